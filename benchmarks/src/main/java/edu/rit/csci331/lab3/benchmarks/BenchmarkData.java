@@ -0,0 +1,52 @@
+package edu.rit.csci331.lab3.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Builds the data sets the benchmarks run on by writing a number
+ * of copies of train.dat or test.dat to a temporary file, so each
+ * stage can be measured at several sizes on the same sentences.
+ */
+class BenchmarkData {
+
+    /**
+     * Writes copies of a data file packaged with the benchmarks to a
+     * new temporary file, one sentence per line.
+     *
+     * @param name String name of the data file, "train.dat" or "test.dat"
+     * @param copies Integer number of times to repeat the file
+     * @return Path of the temporary file, deleted when the JVM exits
+     * @throws IOException if the data cannot be read or written
+     */
+    static Path replicate(String name, int copies) throws IOException {
+
+        byte[] data;
+
+        try (InputStream in = BenchmarkData.class.getResourceAsStream("/" + name)) {
+            if (in == null) {
+                throw new IOException(name + " is not packaged with the benchmarks");
+            }
+            data = in.readAllBytes();
+        }
+
+        boolean newline = data.length > 0 && data[data.length - 1] == '\n';
+        Path file = Files.createTempFile(name.replace(".dat", "-" + copies + "x-"), ".dat");
+        file.toFile().deleteOnExit();
+
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (int i = 0; i < copies; i++) {
+                out.write(data);
+
+                if (!newline) {
+                    out.write('\n');
+                }
+            }
+        }
+
+        return file;
+    }
+}
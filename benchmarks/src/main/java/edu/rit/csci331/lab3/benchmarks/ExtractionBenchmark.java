@@ -0,0 +1,86 @@
+package edu.rit.csci331.lab3.benchmarks;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.lab3;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks answerQuestions(), reading a data file and answering
+ * every question for each sentence, either through a Reader or
+ * with the file memory-mapped.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    /** Number of copies of train.dat and test.dat in the data set */
+    @Param({"1", "10", "100"})
+    public int copies;
+
+    /** True if the data files are memory-mapped instead of read through a Reader */
+    @Param({"false", "true"})
+    public boolean mapped;
+
+    /** Filename of the labelled training data set */
+    private String trainFile;
+
+    /** Filename of the unlabelled prediction data set */
+    private String testFile;
+
+    /**
+     * Writes the data sets for this trial.
+     *
+     * @throws IOException if the data sets cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        trainFile = BenchmarkData.replicate("train.dat", copies).toString();
+        testFile = BenchmarkData.replicate("test.dat", copies).toString();
+    }
+
+    /**
+     * Answers the questions for every training example, building the
+     * ExampleMatrix that learning starts from.
+     *
+     * @return ExampleMatrix of the training data set
+     */
+    @Benchmark
+    public ExampleMatrix training() {
+        return lab3.answerQuestions(FeatureRegistry.defaults(), trainFile, mapped);
+    }
+
+    /**
+     * Answers the questions for every sentence to predict, streaming
+     * the chunks of rows through without keeping them.
+     *
+     * @return Integer number of rows answered
+     */
+    @Benchmark
+    public int predicting() {
+
+        int[] rows = new int[1];
+
+        lab3.answerQuestions(FeatureRegistry.defaults(), testFile, false, mapped, chunk -> rows[0] += chunk.size());
+
+        return rows[0];
+    }
+}
@@ -0,0 +1,123 @@
+package edu.rit.csci331.lab3.benchmarks;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.lab3;
+import edu.rit.csci331.lab3.learners.Learning;
+import edu.rit.csci331.lab3.model.CompiledModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks classifying sentences whose questions have already
+ * been answered, both with the compiled model alone and through
+ * predict(), which also prints every result.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PredictionBenchmark {
+
+    /** Number of copies of test.dat in the data set */
+    @Param({"1", "10", "100"})
+    public int copies;
+
+    /** Learning type of the model, "dt" or "ada" */
+    @Param({"dt", "ada"})
+    public String model;
+
+    /** Compiled model learned from train.dat */
+    private CompiledModel compiled;
+
+    /** Answered rows of the data set */
+    private List<FeatureChunk> chunks;
+
+    /** Label of each row of a chunk */
+    private byte[] labels;
+
+    /** Writer that throws away what predict() prints */
+    private PrintWriter out;
+
+    /**
+     * Learns the model and answers the questions for this trial.
+     *
+     * @throws IOException if a data set cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+
+        FeatureRegistry features = FeatureRegistry.defaults();
+        ExampleMatrix examples = lab3.answerQuestions(features, BenchmarkData.replicate("train.dat", 1).toString(), true);
+        ArrayList<String> attributes = new ArrayList<>(List.of(features.getNames()));
+
+        compiled = lab3.compile(model.equals("dt")
+                ? Learning.decisionTreeLearning(examples, attributes, Integer.MAX_VALUE)
+                : Learning.adaBoost(examples, attributes, attributes.size()), features);
+
+        chunks = new ArrayList<>();
+        lab3.answerQuestions(features, BenchmarkData.replicate("test.dat", copies).toString(), false, true, chunks::add);
+
+        int rows = 0;
+        for (FeatureChunk chunk : chunks) {
+            rows = Math.max(rows, chunk.size());
+        }
+
+        labels = new byte[rows];
+        out = new PrintWriter(OutputStream.nullOutputStream());
+    }
+
+    /**
+     * Classifies every row with the compiled model.
+     *
+     * @return Integer number of rows classified as English (en)
+     */
+    @Benchmark
+    public int classify() {
+
+        int en = 0;
+
+        for (FeatureChunk chunk : chunks) {
+            compiled.classifyAll(chunk, labels);
+
+            for (int row = 0; row < chunk.size(); row++) {
+                en += labels[row] == ExampleMatrix.EN ? 1 : 0;
+            }
+        }
+
+        return en;
+    }
+
+    /**
+     * Classifies every row and prints its result, as the predict
+     * action does.
+     */
+    @Benchmark
+    public void predict() {
+
+        for (FeatureChunk chunk : chunks) {
+            lab3.predict(chunk, compiled, false, out);
+        }
+        out.flush();
+    }
+}
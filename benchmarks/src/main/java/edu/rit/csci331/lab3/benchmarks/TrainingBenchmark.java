@@ -0,0 +1,107 @@
+package edu.rit.csci331.lab3.benchmarks;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.lab3;
+import edu.rit.csci331.lab3.learners.Learning;
+import edu.rit.csci331.lab3.learners.SplitCounter;
+import edu.rit.csci331.lab3.model.Node;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks learning from an ExampleMatrix that has already been
+ * built: the split search that ranks questions by importance,
+ * decisionTreeLearning(), and adaBoost().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrainingBenchmark {
+
+    /** Number of copies of train.dat in the data set */
+    @Param({"1", "10", "100"})
+    public int copies;
+
+    /** Examples learned from */
+    private ExampleMatrix examples;
+
+    /** Questions asked about each example */
+    private ArrayList<String> attributes;
+
+    /** Column index of each question */
+    private int[] columns;
+
+    /**
+     * Builds the examples for this trial.
+     *
+     * @throws IOException if the data set cannot be written
+     */
+    @Setup
+    public void setUp() throws IOException {
+        examples = lab3.answerQuestions(FeatureRegistry.defaults(), BenchmarkData.replicate("train.dat", copies).toString(), true);
+        attributes = new ArrayList<>(List.of(FeatureRegistry.defaults().getNames()));
+        columns = new int[attributes.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = examples.column(attributes.get(i));
+        }
+    }
+
+    /**
+     * Counts the classes of every example for every question and
+     * finds each question's importance, as done at the root of a tree.
+     *
+     * @param blackhole Blackhole consuming each importance
+     */
+    @Benchmark
+    public void splitSearch(Blackhole blackhole) {
+
+        int[] counts = SplitCounter.count(examples, examples.allRows(), columns);
+
+        for (int i = 0; i < columns.length; i++) {
+            blackhole.consume(Learning.importance(counts, i));
+        }
+    }
+
+    /**
+     * Learns a full Decision Tree.
+     *
+     * @return Node root of the tree
+     */
+    @Benchmark
+    public Node decisionTree() {
+        return Learning.decisionTreeLearning(examples, attributes, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Learns an AdaBoost model with the default number of rounds,
+     * starting from even example weights.
+     *
+     * @return Node first stump of the model
+     */
+    @Benchmark
+    public Node adaBoost() {
+        examples.resetWeights();
+        return Learning.adaBoost(examples, attributes, attributes.size());
+    }
+}
@@ -0,0 +1,297 @@
+package edu.rit.csci331.lab3;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.features.LineCache;
+import edu.rit.csci331.lab3.features.SentenceFeaturizer;
+import edu.rit.csci331.lab3.metrics.Metrics;
+import edu.rit.csci331.lab3.model.CompiledModel;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Long-running prediction server that keeps one loaded model
+ * in memory and classifies sentences sent to it, so callers
+ * do not pay for JVM startup and model deserialization on
+ * every prediction.
+ * The protocol is line based in both directions: each request
+ * line is one unlabelled sentence, and each response line is
+ * "en" or "nl", in the same order as the requests. Socket
+ * clients get "error <message>" instead for each line of a batch
+ * that missed its deadline or could not be scored. Lines that
+ * are already waiting are read together as a micro-batch, and
+ * the results of each batch are written and flushed together.
+ * The model can be replaced while the server is running with
+ * swap(). Each batch is classified by the model that was current
+ * when it started, so a swap never splits a batch between models.
+ * Socket clients are served by a SelectorServer, which shares the
+ * compiled model between a fixed pool of scoring threads.
+ */
+public class PredictionServer {
+
+    /** Maximum number of sentences classified per batch */
+    static final int MAX_BATCH = 1024;
+
+    /** Default number of batches that may wait for a scoring thread */
+    static final int QUEUE_BATCHES = 64;
+
+    /**
+     * A compiled model together with the questions it was trained on,
+     * replaced as a whole when the model is swapped.
+     */
+    private static class Snapshot {
+
+        /** Compiled model used for predictions */
+        private final CompiledModel model;
+
+        /** Questions the model was trained on */
+        private final FeatureRegistry features;
+
+        /** Lines already predicted by the model, or null */
+        private final LineCache cache;
+
+        /**
+         * Constructor for Snapshot class
+         *
+         * @param model CompiledModel used for predictions
+         * @param features FeatureRegistry of the questions the model was trained on
+         * @param cacheLines Integer number of lines to cache, or 0 for no cache
+         */
+        Snapshot(CompiledModel model, FeatureRegistry features, int cacheLines) {
+            this.model = model;
+            this.features = features;
+            this.cache = cacheLines > 0 ? new LineCache(cacheLines, features.getStride(), model::classify) : null;
+        }
+    }
+
+    /** Model and questions used for new batches */
+    private volatile Snapshot current;
+
+    /** Number of lines cached for each model, or 0 for no cache */
+    private final int cacheLines;
+
+    /**
+     * Constructor for PredictionServer class
+     *
+     * @param model CompiledModel used for every prediction
+     * @param features FeatureRegistry of the questions the model was trained on
+     */
+    public PredictionServer(CompiledModel model, FeatureRegistry features) {
+        this(model, features, 0);
+    }
+
+    /**
+     * Constructor for PredictionServer class, keeping the predictions of
+     * repeated lines in a LineCache. Each model gets its own cache, so a
+     * swap starts with an empty one.
+     *
+     * @param model CompiledModel used for every prediction
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @param cacheLines Integer number of lines to cache, or 0 for no cache
+     */
+    public PredictionServer(CompiledModel model, FeatureRegistry features, int cacheLines) {
+        this.cacheLines = cacheLines;
+        this.current = new Snapshot(model, features, cacheLines);
+    }
+
+    /**
+     * Replaces the model used for every batch started from now on.
+     * Batches already being classified finish with the old model.
+     *
+     * @param model CompiledModel to use for new batches
+     * @param features FeatureRegistry of the questions the model was trained on
+     */
+    public void swap(CompiledModel model, FeatureRegistry features) {
+        this.current = new Snapshot(model, features, cacheLines);
+    }
+
+    /**
+     * Getter for the cache of the current model
+     *
+     * @return LineCache of lines predicted by the current model, or null
+     *         if lines are not cached
+     */
+    public LineCache getCache() {
+        return current.cache;
+    }
+
+    /**
+     * Classifies batches of request lines for one thread, keeping the
+     * featurizer and buffers of the model it last used. Each batch is
+     * classified by the model that was current when it started, so a
+     * swap never splits a batch between models.
+     */
+    class Scorer {
+
+        /** Model and questions used for the last batch */
+        private Snapshot snapshot;
+
+        /** Featurizer for the questions of the snapshot */
+        private SentenceFeaturizer featurizer;
+
+        /** Packed answers of the batch being classified */
+        private FeatureChunk batch;
+
+        /** Label of each classified line */
+        private final byte[] labels = new byte[MAX_BATCH];
+
+        /**
+         * Classifies a batch of request lines, appending one response line
+         * for each of them to the results, in the same order.
+         *
+         * @param lines List<String> request lines, at most MAX_BATCH of them
+         * @param results StringBuilder the response lines are appended to
+         */
+        void classify(List<String> lines, StringBuilder results) {
+
+            long start = Metrics.start();
+            Snapshot latest = current;
+
+            if (latest != snapshot) {
+                if (snapshot == null || latest.features != snapshot.features) {
+                    featurizer = new SentenceFeaturizer(false, latest.features);
+                    batch = new FeatureChunk(latest.features.getStride(), MAX_BATCH);
+                }
+                snapshot = latest;
+            }
+
+            LineCache cache = snapshot.cache;
+
+            for (String line : lines) {
+                if (cache == null) {
+                    featurize(featurizer, line, batch);
+                    continue;
+                }
+
+                long key = LineCache.hash(line);
+
+                if (!cache.fill(key, batch)) {
+                    featurize(featurizer, line, batch);
+                    cache.store(key, batch, batch.size() - 1);
+                }
+            }
+
+            if (Metrics.ENABLED) {
+                Metrics.stage(Metrics.Stage.FEATURIZE, start, batch.size(), 0);
+                start = System.nanoTime();
+            }
+
+            if (cache == null) {
+                snapshot.model.classifyAll(batch, labels);
+            }
+            else {
+                for (int row = 0; row < batch.size(); row++) {
+                    labels[row] = batch.getLabel(row);
+                }
+            }
+
+            if (Metrics.ENABLED) {
+                Metrics.stage(Metrics.Stage.SCORE, start, 0, 0);
+            }
+
+            for (int row = 0; row < batch.size(); row++) {
+                results.append(labels[row] == ExampleMatrix.EN ? "en" : "nl").append('\n');
+            }
+
+            batch.clear();
+        }
+    }
+
+    /**
+     * Serves one client session, classifying every line read from
+     * the input until it is closed.
+     *
+     * @param input InputStream of sentences, one per line
+     * @param output OutputStream the results are written to, one per line
+     * @throws IOException if the client cannot be read from or written to
+     */
+    public void serve(InputStream input, OutputStream output) throws IOException {
+
+        BufferedReader in = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 16);
+        Writer out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 1 << 16);
+
+        Scorer scorer = new Scorer();
+        List<String> lines = new ArrayList<>(MAX_BATCH);
+        StringBuilder results = new StringBuilder();
+        String line;
+
+        while ((line = in.readLine()) != null) {
+            lines.clear();
+            results.setLength(0);
+
+            do {
+                lines.add(line);
+            } while (lines.size() < MAX_BATCH && in.ready() && (line = in.readLine()) != null);
+
+            scorer.classify(lines, results);
+
+            out.append(results);
+            out.flush();
+        }
+
+        out.flush();
+    }
+
+    /**
+     * Helper function used to answer the questions for one request line,
+     * adding its row to the batch.
+     *
+     * @param featurizer SentenceFeaturizer used by this session
+     * @param line String request line
+     * @param batch FeatureChunk of the current batch
+     */
+    private static void featurize(SentenceFeaturizer featurizer, String line, FeatureChunk batch) {
+
+        featurizer.begin();
+
+        for (int i = 0; i < line.length(); i++) {
+            if (!featurizer.accept(line.charAt(i))) {
+                break;
+            }
+        }
+
+        featurizer.finish(batch);
+    }
+
+    /**
+     * Listens for clients on a local socket until the process is
+     * stopped, with a SelectorServer using a scoring thread per core,
+     * an admission queue of QUEUE_BATCHES batches and no deadline.
+     *
+     * @param port Integer port to listen on, bound to the loopback address only
+     * @throws IOException if the socket cannot be opened
+     */
+    public void listen(int port) throws IOException {
+        listen(port, Runtime.getRuntime().availableProcessors(), QUEUE_BATCHES, 0);
+    }
+
+    /**
+     * Listens for clients on a local socket until the process is
+     * stopped. Every connection is handled by one SelectorServer thread
+     * while it waits on I/O, and its batches are classified on a fixed
+     * pool of scoring threads, so idle clients hold no thread at all.
+     *
+     * @param port Integer port to listen on, bound to the loopback address only
+     * @param threads Integer number of scoring threads
+     * @param queue Integer number of batches that may wait for a scoring thread
+     * @param deadlineMillis Long milliseconds a batch may wait before it is
+     *                       answered with an error instead, or 0 for no deadline
+     * @throws IOException if the socket cannot be opened
+     */
+    public void listen(int port, int threads, int queue, long deadlineMillis) throws IOException {
+        new SelectorServer(this, threads, queue, deadlineMillis).run(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+}
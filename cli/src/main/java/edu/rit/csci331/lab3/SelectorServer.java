@@ -0,0 +1,636 @@
+package edu.rit.csci331.lab3;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Socket front end of a PredictionServer, built for many concurrent
+ * clients that are idle most of the time. One selector thread reads
+ * and writes every connection without blocking, so a waiting client
+ * holds only its socket and a small session, never a thread. Request
+ * lines are grouped into batches of at most MAX_BATCH per client and
+ * classified on a fixed pool of scoring threads, each with its own
+ * Scorer, all sharing the server's compiled model.
+ * Batches wait for a scoring thread in a bounded admission queue.
+ * When it is full, clients whose batches cannot be admitted, and
+ * clients that leave too many responses unread, are no longer read
+ * from until there is room, so TCP flow control slows them down
+ * instead of letting the server's memory grow. A batch that has
+ * waited longer than the deadline is answered with an error instead
+ * of being classified, and the batches of a client that disconnects
+ * are dropped without being classified.
+ * Each client has at most one batch being classified at a time, so
+ * responses are written in the same order as the requests.
+ */
+class SelectorServer {
+
+    /** Size of the buffer each read from a client is made into */
+    private static final int READ_BUFFER = 1 << 16;
+
+    /** Longest request line accepted, in bytes */
+    static final int MAX_LINE = 1 << 20;
+
+    /** Bytes of responses a client may leave unread before its requests stop being read */
+    static final int MAX_UNSENT = 1 << 20;
+
+    /** Milliseconds no client is accepted for after accepting one fails */
+    static final long ACCEPT_PAUSE = 100;
+
+    /**
+     * The state of one client connection, only used by the selector
+     * thread except where noted.
+     */
+    private static class Session {
+
+        /** Connection to the client */
+        private final SocketChannel channel;
+
+        /** Registration of the connection with the selector */
+        private SelectionKey key;
+
+        /** Bytes of a request line that has not ended yet, or null */
+        private byte[] partial;
+
+        /** Number of bytes used in partial */
+        private int partialLength;
+
+        /** Request lines read but not yet sent to a scoring thread */
+        private final ArrayList<String> pending = new ArrayList<>(0);
+
+        /** System.nanoTime() when each run of pending lines was read, and its number of lines, oldest first */
+        private final ArrayDeque<long[]> arrivals = new ArrayDeque<>(0);
+
+        /** True while a batch of this client is waiting for or on a scoring thread */
+        private boolean inFlight;
+
+        /** True while this client is waiting for room in the admission queue */
+        private boolean waiting;
+
+        /** True once the client has finished sending requests */
+        private boolean ended;
+
+        /** True once the connection is closed, read by the scoring threads */
+        private volatile boolean closed;
+
+        /** Responses to the last batch, handed from its scoring thread to the selector thread */
+        private byte[] response;
+
+        /** Responses not yet written to the client, or null */
+        private ByteBuffer unsent;
+
+        /**
+         * Constructor for Session class
+         *
+         * @param channel SocketChannel connected to the client
+         */
+        Session(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /** Scoring threads, fed by the admission queue */
+    private final ThreadPoolExecutor pool;
+
+    /** Scorer of each scoring thread */
+    private final ThreadLocal<PredictionServer.Scorer> scorers;
+
+    /** Nanoseconds a batch may wait before it is answered with an error, or 0 for no deadline */
+    private final long deadlineNanos;
+
+    /** Clients whose last batch has been classified, handed back to the selector thread */
+    private final ConcurrentLinkedQueue<Session> answered = new ConcurrentLinkedQueue<>();
+
+    /** Clients waiting for room in the admission queue, in order */
+    private final ArrayDeque<Session> waiting = new ArrayDeque<>();
+
+    /** Buffer every read is made into */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER);
+
+    /** Selector of every connection */
+    private Selector selector;
+
+    /** Registration of the listening socket with the selector */
+    private SelectionKey listenerKey;
+
+    /** True while accepting is paused after a failed accept */
+    private boolean acceptPaused;
+
+    /** System.nanoTime() when a paused accept is tried again */
+    private long acceptResume;
+
+    /**
+     * Constructor for SelectorServer class
+     *
+     * @param server PredictionServer whose model classifies the requests
+     * @param threads Integer number of scoring threads
+     * @param queue Integer number of batches that may wait for a scoring thread
+     * @param deadlineMillis Long milliseconds a batch may wait before it is
+     *                       answered with an error instead, or 0 for no deadline
+     */
+    SelectorServer(PredictionServer server, int threads, int queue, long deadlineMillis) {
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+                    Thread t = new Thread(r, "scorer");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.scorers = ThreadLocal.withInitial(() -> server.new Scorer());
+        this.deadlineNanos = deadlineMillis * 1_000_000L;
+    }
+
+    /**
+     * Listens for clients and serves them on the calling thread until
+     * the process is stopped.
+     *
+     * @param address InetSocketAddress to listen on
+     * @throws IOException if the socket cannot be opened
+     */
+    void run(InetSocketAddress address) throws IOException {
+
+        try (Selector selector = Selector.open(); ServerSocketChannel listener = ServerSocketChannel.open()) {
+            this.selector = selector;
+            listener.bind(address, 1024);
+            listener.configureBlocking(false);
+            listenerKey = listener.register(selector, SelectionKey.OP_ACCEPT);
+
+            while (true) {
+                selector.select(acceptPaused ? ACCEPT_PAUSE : 0);
+
+                if (acceptPaused && System.nanoTime() - acceptResume >= 0) {
+                    resumeAccept();
+                }
+
+                Session session;
+                while ((session = answered.poll()) != null) {
+                    answer(session);
+                }
+
+                while (!waiting.isEmpty() && dispatch(waiting.peek())) {
+                    session = waiting.poll();
+                    session.waiting = false;
+                    interest(session);
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept(listener);
+                    }
+                    else {
+                        session = (Session) key.attachment();
+
+                        try {
+                            if (key.isReadable()) {
+                                read(session);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(session);
+                            }
+                        } catch (IOException e) {
+                            System.err.println("Client error: " + e.getMessage());
+                            close(session);
+                        }
+                    }
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Helper function used to accept every client waiting to connect.
+     * A client that cannot be set up is closed and the others are still
+     * served. If accepting itself fails, such as when the process is out
+     * of file descriptors, no client is accepted for ACCEPT_PAUSE
+     * milliseconds, or until a connection is closed, so the selector
+     * does not spin on the failing accept.
+     *
+     * @param listener ServerSocketChannel clients connect to
+     */
+    private void accept(ServerSocketChannel listener) {
+
+        while (true) {
+            SocketChannel channel;
+
+            try {
+                channel = listener.accept();
+            } catch (IOException e) {
+                System.err.println("Could not accept client: " + e.getMessage());
+                listenerKey.interestOps(0);
+                acceptPaused = true;
+                acceptResume = System.nanoTime() + ACCEPT_PAUSE * 1_000_000L;
+                return;
+            }
+
+            if (channel == null) {
+                return;
+            }
+
+            try {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+                Session session = new Session(channel);
+                session.key = channel.register(selector, SelectionKey.OP_READ, session);
+            } catch (IOException e) {
+                System.err.println("Could not register client: " + e.getMessage());
+
+                try {
+                    channel.close();
+                } catch (IOException closeError) {
+                    System.err.println("Client error: " + closeError.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function used to accept clients again after a failed accept.
+     */
+    private void resumeAccept() {
+
+        if (acceptPaused && listenerKey.isValid()) {
+            acceptPaused = false;
+            listenerKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    /**
+     * Helper function used to read what a client has sent, splitting it
+     * into request lines and scheduling them.
+     *
+     * @param session Session of the client
+     * @throws IOException if the client cannot be read from, or sends a
+     *                     line longer than MAX_LINE
+     */
+    private void read(Session session) throws IOException {
+
+        readBuffer.clear();
+        int read = session.channel.read(readBuffer);
+        long now = System.nanoTime();
+
+        if (read < 0) {
+            session.ended = true;
+
+            if (session.partialLength > 0) {
+                addLine(session, readBuffer.array(), 0, 0, now);
+            }
+        }
+        else {
+            byte[] data = readBuffer.array();
+            int lineStart = 0;
+
+            for (int i = 0; i < read; i++) {
+                if (data[i] == '\n') {
+                    addLine(session, data, lineStart, i, now);
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lineStart < read) {
+                appendPartial(session, data, lineStart, read);
+            }
+        }
+
+        schedule(session);
+        interest(session);
+        closeIfDone(session);
+    }
+
+    /**
+     * Helper function used to add a finished request line to the pending
+     * lines of a client, joining it to the start of the line left over
+     * from earlier reads.
+     *
+     * @param session Session of the client
+     * @param data byte[] containing the end of the line
+     * @param from Integer index of the first byte of the end of the line
+     * @param to Integer index after the last byte of the line
+     * @param now Long System.nanoTime() when the line was read
+     * @throws IOException if the line is longer than MAX_LINE
+     */
+    private static void addLine(Session session, byte[] data, int from, int to, long now) throws IOException {
+
+        String line;
+
+        if (session.partialLength > 0) {
+            appendPartial(session, data, from, to);
+            line = decode(session.partial, 0, session.partialLength);
+            session.partial = null;
+            session.partialLength = 0;
+        }
+        else {
+            line = decode(data, from, to);
+        }
+
+        long[] run = session.arrivals.peekLast();
+
+        if (run != null && run[0] == now) {
+            run[1]++;
+        }
+        else {
+            session.arrivals.add(new long[] {now, 1});
+        }
+        session.pending.add(line);
+    }
+
+    /**
+     * Helper function used to keep the start of a request line that has
+     * not ended yet.
+     *
+     * @param session Session of the client
+     * @param data byte[] containing the bytes to keep
+     * @param from Integer index of the first byte to keep
+     * @param to Integer index after the last byte to keep
+     * @throws IOException if the line is longer than MAX_LINE
+     */
+    private static void appendPartial(Session session, byte[] data, int from, int to) throws IOException {
+
+        int length = session.partialLength + to - from;
+
+        if (length > MAX_LINE) {
+            throw new IOException("Request line longer than " + MAX_LINE + " bytes");
+        }
+
+        if (session.partial == null || session.partial.length < length) {
+            byte[] grown = new byte[Math.max(length, session.partialLength * 2)];
+
+            if (session.partial != null) {
+                System.arraycopy(session.partial, 0, grown, 0, session.partialLength);
+            }
+            session.partial = grown;
+        }
+
+        System.arraycopy(data, from, session.partial, session.partialLength, to - from);
+        session.partialLength = length;
+    }
+
+    /**
+     * Helper function used to decode a request line, dropping the
+     * carriage return of a CRLF line ending.
+     *
+     * @param data byte[] containing the line
+     * @param from Integer index of the first byte of the line
+     * @param to Integer index after the last byte of the line
+     * @return String request line
+     */
+    private static String decode(byte[] data, int from, int to) {
+
+        if (to > from && data[to - 1] == '\r') {
+            to--;
+        }
+
+        return new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Helper function used to send the next batch of a client to the
+     * scoring threads, or to put the client in line for the admission
+     * queue if it is full.
+     *
+     * @param session Session of the client
+     */
+    private void schedule(Session session) {
+
+        if (session.waiting || session.inFlight || session.closed || session.pending.isEmpty()) {
+            return;
+        }
+
+        if (!waiting.isEmpty() || !dispatch(session)) {
+            session.waiting = true;
+            waiting.add(session);
+        }
+    }
+
+    /**
+     * Helper function used to admit the next batch of a client to the
+     * admission queue, if it has one and none is in flight.
+     *
+     * @param session Session of the client
+     * @return True unless the batch could not be admitted because the
+     *         queue is full
+     */
+    private boolean dispatch(Session session) {
+
+        if (session.inFlight || session.closed || session.pending.isEmpty()) {
+            return true;
+        }
+
+        List<String> batch = session.pending.subList(0, Math.min(PredictionServer.MAX_BATCH, session.pending.size()));
+        List<String> lines = new ArrayList<>(batch);
+        long arrived = session.arrivals.peekFirst()[0];
+
+        try {
+            pool.execute(() -> score(session, lines, arrived));
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+
+        batch.clear();
+        session.inFlight = true;
+
+        // the lines left keep their own arrival time for the next batch
+        for (int taken = lines.size(); taken > 0; ) {
+            long[] run = session.arrivals.peekFirst();
+            int used = (int) Math.min(run[1], taken);
+
+            run[1] -= used;
+            taken -= used;
+
+            if (run[1] == 0) {
+                session.arrivals.pollFirst();
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Classifies a batch on a scoring thread, then hands the responses
+     * back to the selector thread. A batch of a closed client is dropped,
+     * and a batch past its deadline is answered with an error.
+     *
+     * @param session Session of the client
+     * @param lines List<String> request lines of the batch
+     * @param arrived Long System.nanoTime() when the oldest line was read
+     */
+    private void score(Session session, List<String> lines, long arrived) {
+
+        StringBuilder results = new StringBuilder();
+
+        if (!session.closed) {
+            if (deadlineNanos > 0 && System.nanoTime() - arrived > deadlineNanos) {
+                for (int i = 0; i < lines.size(); i++) {
+                    results.append("error deadline exceeded\n");
+                }
+            }
+            else {
+                try {
+                    scorers.get().classify(lines, results);
+                } catch (RuntimeException e) {
+                    scorers.remove();
+                    results.setLength(0);
+
+                    for (int i = 0; i < lines.size(); i++) {
+                        results.append("error ").append(e).append('\n');
+                    }
+                }
+            }
+        }
+
+        session.response = results.toString().getBytes(StandardCharsets.UTF_8);
+        answered.add(session);
+        selector.wakeup();
+    }
+
+    /**
+     * Helper function used to queue the responses to a client's last
+     * batch and schedule its next one.
+     *
+     * @param session Session of the client
+     */
+    private void answer(Session session) {
+
+        session.inFlight = false;
+
+        if (session.closed) {
+            return;
+        }
+
+        byte[] response = session.response;
+        session.response = null;
+
+        if (session.unsent == null) {
+            session.unsent = ByteBuffer.wrap(response);
+        }
+        else {
+            ByteBuffer joined = ByteBuffer.allocate(session.unsent.remaining() + response.length);
+            joined.put(session.unsent).put(response).flip();
+            session.unsent = joined;
+        }
+
+        schedule(session);
+
+        try {
+            write(session);
+        } catch (IOException e) {
+            System.err.println("Client error: " + e.getMessage());
+            close(session);
+        }
+    }
+
+    /**
+     * Helper function used to write as many unsent responses to a client
+     * as it will take without blocking.
+     *
+     * @param session Session of the client
+     * @throws IOException if the client cannot be written to
+     */
+    private void write(Session session) throws IOException {
+
+        if (session.unsent != null) {
+            session.channel.write(session.unsent);
+
+            if (!session.unsent.hasRemaining()) {
+                session.unsent = null;
+            }
+        }
+
+        interest(session);
+        closeIfDone(session);
+    }
+
+    /**
+     * Helper function used to only read from a client while it has room
+     * for more pending lines and unsent responses, and only write to it
+     * while it has unsent responses.
+     *
+     * @param session Session of the client
+     */
+    private static void interest(Session session) {
+
+        if (!session.key.isValid()) {
+            return;
+        }
+
+        int ops = 0;
+
+        if (!session.ended && !session.waiting && session.pending.size() < PredictionServer.MAX_BATCH
+                && (session.unsent == null || session.unsent.remaining() < MAX_UNSENT)) {
+            ops |= SelectionKey.OP_READ;
+        }
+        if (session.unsent != null) {
+            ops |= SelectionKey.OP_WRITE;
+        }
+
+        session.key.interestOps(ops);
+    }
+
+    /**
+     * Helper function used to close the connection of a client that has
+     * finished sending requests once every response has been written.
+     *
+     * @param session Session of the client
+     */
+    private void closeIfDone(Session session) {
+
+        if (session.ended && !session.inFlight && session.pending.isEmpty() && session.unsent == null) {
+            close(session);
+        }
+    }
+
+    /**
+     * Helper function used to close the connection of a client, dropping
+     * any batch of it that has not been classified yet.
+     *
+     * @param session Session of the client
+     */
+    private void close(Session session) {
+
+        if (session.closed) {
+            return;
+        }
+
+        session.closed = true;
+        session.key.cancel();
+
+        if (session.waiting) {
+            waiting.remove(session);
+            session.waiting = false;
+        }
+
+        try {
+            session.channel.close();
+        } catch (IOException e) {
+            System.err.println("Client error: " + e.getMessage());
+        }
+
+        // the connection's file descriptor is free for a new client
+        resumeAccept();
+    }
+}
@@ -0,0 +1,1025 @@
+/**
+ * This program contains functions to perform Decision
+ * Tree or AdaBoost Learning algorithms on a given file
+ * of English and Dutch sentences, either predicting
+ * their exact languages based of characteristics or
+ * creating a model to do so.
+ *
+ * Lab 3 for CSCI 331
+ * @author Crisitan Malone, cmm3351
+ */
+
+package edu.rit.csci331.lab3;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.features.LineCache;
+import edu.rit.csci331.lab3.features.SentenceFeaturizer;
+import edu.rit.csci331.lab3.features.SpillFile;
+import edu.rit.csci331.lab3.features.StreamingExtractor;
+import edu.rit.csci331.lab3.learners.HoeffdingTree;
+import edu.rit.csci331.lab3.learners.Learning;
+import edu.rit.csci331.lab3.learners.OutOfCoreLearning;
+import edu.rit.csci331.lab3.learners.RemoteShard;
+import edu.rit.csci331.lab3.learners.Shard;
+import edu.rit.csci331.lab3.learners.ShardWorker;
+import edu.rit.csci331.lab3.learners.SpillShard;
+import edu.rit.csci331.lab3.metrics.Metrics;
+import edu.rit.csci331.lab3.model.CompiledEnsemble;
+import edu.rit.csci331.lab3.model.CompiledModel;
+import edu.rit.csci331.lab3.model.CompiledTable;
+import edu.rit.csci331.lab3.model.CompiledTree;
+import edu.rit.csci331.lab3.model.ModelFile;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * This is the main class for this program. It contains
+ * the functions to read the inputted language data, train
+ * models on it with the algorithms in Learning, and save,
+ * load and utilize those predictive models.
+ */
+public class lab3 {
+
+    /** Default number of lines cached with "--cache" */
+    static final int CACHE_LINES = 1 << 16;
+
+    /**
+     * -------------------------
+     * CLASSIFICATION FUNCTIONS
+     * -------------------------
+     */
+
+    /**
+     * This function is used to read the examples for training or
+     * predicting from a file and classify them along each attribute,
+     * passing the question answers of each example on to the sink in
+     * chunks as soon as they are ready. The file is streamed through
+     * a StreamingExtractor, so examples are featurized in parallel on
+     * every core and never all held in memory at once.
+     * If mapped is set, the file is memory-mapped and its UTF-8 bytes
+     * are scanned directly instead of being decoded through a Reader.
+     * For training, the function also assigns the result specified
+     * for each example to each row's label.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param filename String filename of file containing examples
+     * @param training Boolean indicating if this call is for training
+     *                 or predicting, which determines if it should
+     *                 look for results in the file as well.
+     * @param mapped Boolean indicating if the file should be memory-mapped
+     * @param sink Consumer<FeatureChunk> receiving each chunk of examples,
+     *             in the same order as they appear in the file.
+     */
+    public static void answerQuestions(FeatureRegistry features, String filename, boolean training, boolean mapped, Consumer<FeatureChunk> sink) {
+
+        try (StreamingExtractor extractor = new StreamingExtractor(features, training, Runtime.getRuntime().availableProcessors())) {
+            extract(extractor, filename, mapped, sink);
+        }
+
+    }
+
+    /**
+     * This function is used to read the examples for predicting from a
+     * file and classify them along each attribute the same as
+     * answerQuestions(), but through a LineCache. Lines already in the
+     * cache are neither featurized nor classified again, and every row
+     * passed on to the sink is labelled with its prediction.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param filename String filename of file containing examples
+     * @param cache LineCache of lines already predicted
+     * @param mapped Boolean indicating if the file should be memory-mapped
+     * @param sink Consumer<FeatureChunk> receiving each chunk of predicted
+     *             examples, in the same order as they appear in the file.
+     */
+    public static void answerQuestions(FeatureRegistry features, String filename, LineCache cache, boolean mapped, Consumer<FeatureChunk> sink) {
+
+        try (StreamingExtractor extractor = new StreamingExtractor(features, cache, Runtime.getRuntime().availableProcessors())) {
+            extract(extractor, filename, mapped, sink);
+        }
+
+    }
+
+    /**
+     * Helper function used to stream a file through an extractor, either
+     * memory-mapped or through a Reader.
+     *
+     * @param extractor StreamingExtractor featurizing the examples
+     * @param filename String filename of file containing examples
+     * @param mapped Boolean indicating if the file should be memory-mapped
+     * @param sink Consumer<FeatureChunk> receiving each chunk of examples
+     */
+    private static void extract(StreamingExtractor extractor, String filename, boolean mapped, Consumer<FeatureChunk> sink) {
+
+        try {
+            if (mapped) {
+                extractor.extract(Path.of(filename), sink);
+            }
+            else {
+                try (Reader in = new FileReader(filename)) {
+                    extractor.extract(in, sink);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This function is used to read every training example from a
+     * file into an ExampleMatrix. The function also assigns a Weight
+     * to each example of 1/N, where N is the number of examples.
+     * This will only be used by AdaBoost algorithms.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param filename String filename of file containing examples
+     * @param mapped Boolean indicating if the file should be memory-mapped
+     * @return ExampleMatrix containing each example's answers for
+     *         each question, their result, and their weight.
+     */
+    public static ExampleMatrix answerQuestions(FeatureRegistry features, String filename, boolean mapped) {
+
+        ExampleMatrix examples = new ExampleMatrix(List.of(features.getNames()), 1024);
+
+        answerQuestions(features, filename, true, mapped, examples::addExamples);
+
+        examples.resetWeights();
+
+        return examples;
+    }
+
+    /**
+     * This function is used to read every training example from a
+     * file and spill it to a SpillFile in the given directory, instead
+     * of an ExampleMatrix, so training can use more examples than fit
+     * in memory. The caller must close the SpillFile, deleting it.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param filename String filename of file containing examples
+     * @param mapped Boolean indicating if the file should be memory-mapped
+     * @param directory Path of the directory to create the SpillFile in
+     * @return SpillFile containing each example's answers for each
+     *         question and their result.
+     */
+    public static SpillFile spillQuestions(FeatureRegistry features, String filename, boolean mapped, Path directory) {
+
+        SpillFile examples;
+
+        try {
+            examples = new SpillFile(directory, features.getNames());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        answerQuestions(features, filename, true, mapped, examples::addExamples);
+
+        examples.finish();
+
+        return examples;
+    }
+
+    /**
+     * This function is used to compile a model into a CompiledModel
+     * used to determine whether each example is either English (en)
+     * or Dutch (nl). The function first checks to see if the model
+     * is a Decision Tree or a set of weight hypotheses from AdaBoost.
+     * If the model is a decision tree, it is compiled into a
+     * CompiledTree, which traverses flat arrays based on the example's
+     * attributes until it reaches a result.
+     * If the model is a set of weighted hypotheses, it is compiled into
+     * a CompiledEnsemble, which sums the signed weight of every stump
+     * for the example's answers and classifies the example as English
+     * (en) if the sum is greater than or equal to 0, or Dutch (nl)
+     * otherwise.
+     *
+     * @param model Node model used to perform predictions.
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @return CompiledModel classifying packed feature rows
+     */
+    public static CompiledModel compile(Node model, FeatureRegistry features) {
+
+        if (!model.getAda()) {
+            return CompiledTree.compile(model, features.getNames());
+        }
+        else {
+            return CompiledEnsemble.compile(model, features.getNames());
+        }
+    }
+
+    /**
+     * This function is used to determine whether each example in
+     * a chunk of examples is either English (en) or Dutch (nl) based
+     * on a compiled model, and write each result to the output on
+     * its own line. If lazy is set, each example is classified on
+     * its own, so an AdaBoost model stops adding stumps as soon as
+     * the rest cannot change the result.
+     *
+     * @param examples FeatureChunk examples to be analyzed
+     * @param model CompiledModel used to perform predictions.
+     * @param lazy Boolean indicating if examples are classified one by one
+     * @param out PrintWriter the results are written to, one per line
+     */
+    public static void predict(FeatureChunk examples, CompiledModel model, boolean lazy, PrintWriter out) {
+
+        int size = examples.size();
+        byte[] labels = new byte[size];
+
+        long start = Metrics.start();
+
+        if (lazy) {
+            long[] features = examples.getFeatures();
+
+            for (int row = 0; row < size; row++) {
+                labels[row] = model.classify(features, row * examples.getStride());
+            }
+        }
+        else {
+            model.classifyAll(examples, labels);
+        }
+
+        if (Metrics.ENABLED) {
+            Metrics.stage(Metrics.Stage.SCORE, start, 0, 0);
+        }
+
+        for (int row = 0; row < size; row++) {
+            if (labels[row] == ExampleMatrix.EN) {
+                out.println("en");
+            } else {
+                out.println("nl");
+            }
+        }
+    }
+
+    /**
+     * This function is used to write the result of each example in a
+     * chunk of examples predicted through a LineCache, whose labels
+     * already hold the predictions, to the output on its own line.
+     *
+     * @param examples FeatureChunk examples already predicted
+     * @param out PrintWriter the results are written to, one per line
+     */
+    public static void predictCached(FeatureChunk examples, PrintWriter out) {
+
+        for (int row = 0; row < examples.size(); row++) {
+            if (examples.getLabel(row) == ExampleMatrix.EN) {
+                out.println("en");
+            } else {
+                out.println("nl");
+            }
+        }
+    }
+
+    /**
+     * This function is used to classify each example in a chunk of
+     * examples with several compiled models at once, for comparing them
+     * over the same sentences. The chunk is featurized once and shared,
+     * and each model classifies it on its own thread of the pool. One
+     * line is written per example, with a tab-separated column for each
+     * model, in order, holding its result. An AdaBoost model also gets a
+     * column with its margin, its score divided by its total weight,
+     * from -1 for a unanimous Dutch (nl) vote to 1 for English (en).
+     *
+     * @param examples FeatureChunk examples to be analyzed
+     * @param models List<CompiledModel> models used to perform predictions
+     * @param pool ExecutorService the models are run on
+     * @param out PrintWriter the results are written to, one line per example
+     */
+    public static void predictAll(FeatureChunk examples, List<CompiledModel> models, ExecutorService pool, PrintWriter out) {
+
+        int size = examples.size();
+        byte[][] labels = new byte[models.size()][size];
+        float[][] margins = new float[models.size()][];
+        List<Future<?>> results = new ArrayList<>();
+
+        long start = Metrics.start();
+
+        for (int m = 0; m < models.size(); m++) {
+            CompiledModel model = models.get(m);
+            CompiledModel source = model instanceof CompiledTable ? ((CompiledTable) model).getModel() : model;
+            byte[] modelLabels = labels[m];
+
+            if (source instanceof CompiledEnsemble) {
+                CompiledEnsemble ensemble = (CompiledEnsemble) source;
+                float[] modelMargins = margins[m] = new float[size];
+
+                results.add(pool.submit(() -> {
+                    ensemble.scoreAll(examples, modelMargins);
+                    float total = ensemble.getTotalWeight();
+
+                    for (int row = 0; row < size; row++) {
+                        modelLabels[row] = modelMargins[row] >= 0 ? ExampleMatrix.EN : ExampleMatrix.NL;
+                        modelMargins[row] = total > 0 ? modelMargins[row] / total : 0;
+                    }
+                }));
+            }
+            else {
+                results.add(pool.submit(() -> model.classifyAll(examples, modelLabels)));
+            }
+        }
+
+        try {
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+
+        if (Metrics.ENABLED) {
+            Metrics.stage(Metrics.Stage.SCORE, start, 0, 0);
+        }
+
+        StringBuilder line = new StringBuilder();
+
+        for (int row = 0; row < size; row++) {
+            line.setLength(0);
+
+            for (int m = 0; m < models.size(); m++) {
+                if (m > 0) {
+                    line.append('\t');
+                }
+                line.append(labels[m][row] == ExampleMatrix.EN ? "en" : "nl");
+
+                if (margins[m] != null) {
+                    line.append('\t');
+                    appendMargin(line, margins[m][row]);
+                }
+            }
+
+            out.println(line);
+        }
+    }
+
+    /**
+     * Helper function used to write a margin with four decimal places.
+     *
+     * @param line StringBuilder the margin is appended to
+     * @param margin float margin, between -1 and 1
+     */
+    private static void appendMargin(StringBuilder line, float margin) {
+
+        long scaled = Math.round(Math.abs(margin) * 10000.0);
+
+        if (margin < 0 && scaled != 0) {
+            line.append('-');
+        }
+
+        line.append(scaled / 10000).append('.');
+        String digits = Long.toString(scaled % 10000);
+
+        for (int i = digits.length(); i < 4; i++) {
+            line.append('0');
+        }
+        line.append(digits);
+    }
+
+    /**
+     * Helper function used to load a compiled model from a file. Model
+     * files are memory-mapped and loaded directly, while models saved
+     * with the old serialized format are deserialized and compiled.
+     * A model file saved with a different window than the features'
+     * is refused.
+     * A model that asks few enough questions is used through its truth
+     * table, read from the model file if it was saved with one, or
+     * built now otherwise. Wider models are used as they are.
+     *
+     * @param hypothesis String filename of the model
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @return CompiledModel stored in the file
+     */
+    private static CompiledModel loadModel(String hypothesis, FeatureRegistry features) {
+
+        CompiledModel model;
+
+        try {
+            Path file = Path.of(hypothesis);
+
+            if (ModelFile.isModelFile(file)) {
+                model = ModelFile.read(file, features.getNames(), features.getWindow());
+            }
+            else {
+                model = compile(ModelFile.readLegacy(file), features);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        CompiledTable table = CompiledTable.of(model);
+        return table != null ? table : model;
+    }
+
+    /**
+     * Helper function used to pick the window of a model file's
+     * questions, so a model is predicted with the window it was
+     * trained with unless another one is given on the command line.
+     *
+     * @param hypothesis String filename of the model
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @return FeatureRegistry with the window stored in the model file,
+     *         or the given one if the file does not store a window
+     */
+    private static FeatureRegistry withModelWindow(String hypothesis, FeatureRegistry features) {
+
+        try {
+            Path file = Path.of(hypothesis);
+
+            if (!ModelFile.isModelFile(file)) {
+                return features;
+            }
+
+            int window = ModelFile.readWindow(file);
+            return window > 0 ? features.withWindow(window) : features;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper function used to compile a trained model and save it
+     * to a model file, along with its truth table if it has one.
+     *
+     * @param model Node trained model
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @param hypothesisOut String filename to save the model to
+     */
+    private static void saveModel(Node model, FeatureRegistry features, String hypothesisOut) {
+
+        try {
+            ModelFile.write(compile(model, features), features.getNames(), features.getWindow(), Path.of(hypothesisOut));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * This function is used to learn a Decision Tree online from a stream
+     * of labelled sentences, one per line, with a HoeffdingTree. Each line
+     * is featurized and learned from as soon as it is read, and every
+     * publishEvery examples, as well as at the end of the stream, a
+     * snapshot of the tree is published to the model file.
+     *
+     * @param in BufferedReader of labelled sentences, one per line
+     * @param tree HoeffdingTree to learn with
+     * @param features FeatureRegistry of the questions to answer
+     * @param hypothesisOut String filename to publish each snapshot to
+     * @param publishEvery Long number of lines between snapshots, at least 1
+     * @throws IOException if the stream cannot be read
+     */
+    public static void learnStream(BufferedReader in, HoeffdingTree tree, FeatureRegistry features,
+                                   String hypothesisOut, long publishEvery) throws IOException {
+
+        SentenceFeaturizer featurizer = new SentenceFeaturizer(true, features);
+        FeatureChunk example = new FeatureChunk(features.getStride(), 1);
+        long lines = 0;
+        String line;
+
+        while ((line = in.readLine()) != null) {
+            featurizer.begin();
+
+            for (int i = 0; i < line.length(); i++) {
+                if (!featurizer.accept(line.charAt(i))) {
+                    break;
+                }
+            }
+
+            featurizer.finish(example);
+            tree.learn(example);
+            example.clear();
+
+            if (++lines % publishEvery == 0) {
+                publishModel(tree, features, hypothesisOut);
+            }
+        }
+
+        publishModel(tree, features, hypothesisOut);
+    }
+
+    /**
+     * Helper function used to publish a snapshot of an online model. The
+     * snapshot is saved next to the model file and then moved over it in
+     * one atomic step, so a server reloading the file never reads a model
+     * that is only partly written.
+     *
+     * @param tree HoeffdingTree to take the snapshot of
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @param hypothesisOut String filename of the model file
+     */
+    private static void publishModel(HoeffdingTree tree, FeatureRegistry features, String hypothesisOut) {
+
+        Path target = Path.of(hypothesisOut).toAbsolutePath();
+        Path saved = target.resolveSibling(target.getFileName() + ".tmp");
+
+        saveModel(tree.snapshot(), features, saved.toString());
+
+        try {
+            Files.move(saved, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        System.err.println("Published " + hypothesisOut + " after " + tree.getExamples()
+                + " examples, " + tree.getSplits() + " splits");
+    }
+
+    /**
+     * Helper function used to watch a model file for a served model,
+     * swapping the newly published model into the server every time the
+     * file is replaced. The file is checked on a daemon thread every
+     * interval seconds, and a model that cannot be loaded is skipped.
+     *
+     * @param hypothesis String filename of the model
+     * @param features FeatureRegistry of the questions the model was trained on
+     * @param lazy Boolean indicating if only the questions each model asks are answered
+     * @param server PredictionServer to swap each new model into
+     * @param interval Long number of seconds between checks
+     */
+    private static void watchModel(String hypothesis, FeatureRegistry features, boolean lazy,
+                                   PredictionServer server, long interval) {
+
+        Path file = Path.of(hypothesis);
+
+        Thread watcher = new Thread(() -> {
+            List<Object> version = modelVersion(file);
+
+            while (true) {
+                try {
+                    Thread.sleep(interval * 1000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                List<Object> latest = modelVersion(file);
+
+                if (latest != null && !latest.equals(version)) {
+                    try {
+                        CompiledModel model = loadModel(hypothesis, features);
+                        server.swap(model, lazy ? features.forModel(model.usedFeatures(), model::decided) : features);
+                        System.err.println("Reloaded " + hypothesis);
+                    } catch (RuntimeException e) {
+                        System.err.println("Could not reload " + hypothesis + ": " + e.getMessage());
+                    }
+                    version = latest;
+                }
+            }
+        }, "model-watcher");
+
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Helper function used to identify the version of a model file, which
+     * changes whenever the file is replaced or rewritten.
+     *
+     * @param file Path of the model file
+     * @return List<Object> file key, modification time and size of the
+     *         file, or null if it cannot be read.
+     */
+    private static List<Object> modelVersion(Path file) {
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return Arrays.asList(attributes.fileKey(), attributes.lastModifiedTime(), attributes.size());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Helper function used to close every shard of a sharded training
+     * run, ending the session of each worker.
+     *
+     * @param shards List<Shard> shards to close
+     */
+    private static void closeAll(List<Shard> shards) {
+
+        for (Shard shard : shards) {
+            try {
+                shard.close();
+            } catch (IOException e) {
+                System.err.println("Could not close shard: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * --------------
+     * MAIN FUNCTION
+     * --------------
+     */
+
+    /**
+     * Helper function used to check if an optional flag, such as
+     * "--mmap", was given after the required command line arguments.
+     *
+     * @param args String array of command line arguments.
+     * @param option String flag to look for
+     * @return True if the flag was given
+     */
+    private static boolean hasOption(String[] args, String option) {
+
+        for (String arg : args) {
+            if (arg.equals(option)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Helper function used to find the value of an optional setting,
+     * such as "--port=9000", given after the required command line
+     * arguments.
+     *
+     * @param args String array of command line arguments.
+     * @param option String name of the setting, such as "--port"
+     * @return String value of the setting, or null if it was not given
+     */
+    private static String optionValue(String[] args, String option) {
+
+        for (String arg : args) {
+            if (arg.startsWith(option + "=")) {
+                return arg.substring(option.length() + 1);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Main function for this program. It first parses through the command
+     * line args, looking the first argument to determine if the user wants
+     * to train or predict data.
+     * If the user wants to train, it will call answerQuestions() to
+     * generate the features of each example for training. It will then
+     * determine which algorithm the user wants to use and call the
+     * necessary functions to set up and start those processes. Once
+     * completed, it will compile the finished model and save it to a
+     * ModelFile, named after another command line argument.
+     * If the user wants to predict, it will load the model file,
+     * specified by a command line argument, containing the model to use.
+     * It will then call answerQuestions() to generate the features of
+     * each example for predicting, calling predict() on each chunk of
+     * examples as it is ready, which will then handle determining the
+     * type of model and printing the results to the console.
+     * For AdaBoost, an optional "--rounds=N" setting gives the maximum
+     * number of stumps to generate, by default one per question.
+     * For training, an optional "--out-of-core" flag spills the examples
+     * to a columnar SpillFile in the temporary directory, or in the
+     * directory given by "--out-of-core=<dir>", and learns from it with
+     * OutOfCoreLearning, so the examples never all have to fit in memory.
+     * With "--workers=<host:port>,...", training is also sharded: the
+     * examples file is the first shard, and each worker holds another,
+     * in that order. Only count tables are sent between them.
+     * If the user wants to run a worker, it will spill the examples file
+     * given to it, the same as for "--out-of-core", and serve them to one
+     * coordinator on "--port=N", bound to the loopback address unless
+     * "--bind=<address>" is given. Workers must be given the same
+     * questions and window as the coordinator.
+     * For predicting or serving, an optional "--lazy" flag only answers
+     * the questions the model asks, and stops reading each sentence
+     * once the model's result for it is decided.
+     * For predicting or serving, an optional "--cache" flag keeps the
+     * answers and prediction of the last 65536 distinct lines, or of N
+     * lines with "--cache=N", in a LineCache, so repeated sentences are
+     * neither featurized nor classified again. Its hit and miss counts
+     * are printed to stderr at the end.
+     * For either action, an optional "--mmap" flag memory-maps the
+     * examples file instead of reading it through a Reader, and an
+     * optional "--features=<file>" setting loads the questions from a
+     * FeatureRegistry spec instead of asking the default Q0-Q8, where
+     * "--features=hashed" also asks hashed character 3-gram and word
+     * questions. An optional "--window=N" setting analyzes only the
+     * first N words of each sentence, 15 unless the spec sets another,
+     * and "--window=all" analyzes every word. Sentences shorter than
+     * the window are analyzed as they are. A model must be used with
+     * the same questions it was trained on. Its window is saved in the
+     * model file and used when predicting, and a model file is refused
+     * if "--window=N" gives a different one.
+     * If the user wants to serve, it will load the model once and
+     * classify sentences sent to it by a PredictionServer, either
+     * over stdin/stdout or, with "--port=N", over a local socket.
+     * Socket clients are read and written by one selector thread and
+     * classified on "--threads=N" scoring threads, one per core by
+     * default, with room for "--queue=N" batches to wait for them, 64
+     * by default. With "--deadline=MS", a batch that waited longer than
+     * MS milliseconds is answered with an error instead.
+     * With "--reload", the model file is checked every second, or every
+     * N seconds with "--reload=N", and each new model is swapped into
+     * the running server.
+     * If the user wants to learn, it will learn a Decision Tree online
+     * with a HoeffdingTree from a stream of labelled sentences, read
+     * from a file or from stdin if the file is "-", publishing it to the
+     * model file every 10000 sentences, or every N with "--publish=N"
+     * for any N of at least 1, and at the end of the stream. "--grace=N" and "--delta=X" set the
+     * number of examples between split checks and the Hoeffding bound's
+     * confidence.
+     * If the user wants to compare, it will load every model file given
+     * after the examples file and classify each example with all of
+     * them, calling predictAll() on each chunk of examples. Each example
+     * is featurized once, answering only the questions some model asks,
+     * and the models classify it side by side on their own threads.
+     * If the user wants to convert, it will read a model saved with the
+     * old serialized format and save it again as a ModelFile.
+     * For any action, an optional "--metrics" flag collects Metrics,
+     * exports them over JMX and flight recorder events, and prints them
+     * to stderr at the end. "--metrics=N" also prints a stats line
+     * every N seconds.
+     *
+     *
+     * @param args String array of command line arguments.
+     */
+    public static void main(String[] args) {
+
+        String metrics = optionValue(args, "--metrics");
+
+        if (metrics != null || hasOption(args, "--metrics")) {
+            System.setProperty(Metrics.PROPERTY, "true");
+            Metrics.export(metrics != null ? Long.parseLong(metrics) : 0);
+        }
+
+        String featureSpec = optionValue(args, "--features");
+        FeatureRegistry features;
+
+        try {
+            features = featureSpec != null ? FeatureRegistry.named(featureSpec) : FeatureRegistry.defaults();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        String window = optionValue(args, "--window");
+
+        if (window != null) {
+            features = features.withWindow(FeatureRegistry.parseWindow(window));
+        }
+
+        ArrayList<String> attributes = new ArrayList<>(List.of(features.getNames()));
+
+        String action = args[0];
+
+        if (action.equals("train")) {
+            String examples = args[1];
+            String hypothesisOut = args[2];
+            String learningType = args[3];
+
+            String spill = optionValue(args, "--out-of-core");
+            String workers = optionValue(args, "--workers");
+
+            if (spill != null || workers != null || hasOption(args, "--out-of-core")) {
+                Path directory = Path.of(spill != null ? spill : System.getProperty("java.io.tmpdir"));
+                List<Shard> shards = new ArrayList<>();
+
+                try {
+                    shards.add(new SpillShard(spillQuestions(features, examples, hasOption(args, "--mmap"), directory)));
+
+                    if (workers != null) {
+                        for (String worker : workers.split(",")) {
+                            int colon = worker.lastIndexOf(':');
+                            shards.add(new RemoteShard(worker.substring(0, colon), Integer.parseInt(worker.substring(colon + 1))));
+                        }
+                    }
+
+                    if (learningType.equals("dt")) {
+                        Node decisionTree = OutOfCoreLearning.decisionTreeLearning(shards, attributes, Integer.MAX_VALUE);
+
+                        saveModel(decisionTree, features, hypothesisOut);
+
+                    }
+                    else if (learningType.equals("ada")) {
+
+                        String rounds = optionValue(args, "--rounds");
+                        Node weightedHyp = OutOfCoreLearning.adaBoost(shards, attributes,
+                                rounds != null ? Integer.parseInt(rounds) : attributes.size());
+
+                        saveModel(weightedHyp, features, hypothesisOut);
+                    }
+                    else {
+                        System.out.println("Invalid Learning Type");
+                        System.exit(-1);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    closeAll(shards);
+                }
+            }
+            else {
+                ExampleMatrix dataList = answerQuestions(features, examples, hasOption(args, "--mmap"));
+
+                if (learningType.equals("dt")) {
+                    Node decisionTree = Learning.decisionTreeLearning(dataList, attributes, Integer.MAX_VALUE);
+
+                    saveModel(decisionTree, features, hypothesisOut);
+
+                }
+                else if (learningType.equals("ada")) {
+
+                    String rounds = optionValue(args, "--rounds");
+                    Node weightedHyp = Learning.adaBoost(dataList, attributes,
+                            rounds != null ? Integer.parseInt(rounds) : attributes.size());
+
+                    saveModel(weightedHyp, features, hypothesisOut);
+                }
+                else {
+                    System.out.println("Invalid Learning Type");
+                    System.exit(-1);
+                }
+            }
+        }
+        else if (action.equals("predict")) {
+            String hypothesis = args[1];
+            String file = args[2];
+
+            if (window == null) {
+                features = withModelWindow(hypothesis, features);
+            }
+
+            CompiledModel model = loadModel(hypothesis, features);
+            boolean lazy = hasOption(args, "--lazy");
+
+            if (lazy) {
+                features = features.forModel(model.usedFeatures(), model::decided);
+            }
+
+            String cacheSize = optionValue(args, "--cache");
+            PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+
+            if (cacheSize != null || hasOption(args, "--cache")) {
+                LineCache cache = new LineCache(cacheSize != null ? Integer.parseInt(cacheSize) : CACHE_LINES,
+                        features.getStride(), model::classify);
+
+                answerQuestions(features, file, cache, hasOption(args, "--mmap"), chunk -> predictCached(chunk, out));
+                out.flush();
+                System.err.println(cache);
+            }
+            else {
+                answerQuestions(features, file, false, hasOption(args, "--mmap"), chunk -> predict(chunk, model, lazy, out));
+                out.flush();
+            }
+
+        }
+        else if (action.equals("compare")) {
+            String file = args[1];
+            List<CompiledModel> models = new ArrayList<>();
+            int[] asked = new int[0];
+
+            if (window == null && args.length > 2 && !args[2].startsWith("--")) {
+                features = withModelWindow(args[2], features);
+            }
+
+            for (int i = 2; i < args.length && !args[i].startsWith("--"); i++) {
+                CompiledModel model = loadModel(args[i], features);
+                models.add(model);
+                asked = IntStream.concat(IntStream.of(asked), IntStream.of(model.usedFeatures())).sorted().distinct().toArray();
+            }
+
+            FeatureRegistry shared = features.forModel(asked, null);
+            ExecutorService pool = Executors.newFixedThreadPool(
+                    Math.min(models.size(), Runtime.getRuntime().availableProcessors()), r -> {
+                        Thread t = new Thread(r, "model");
+                        t.setDaemon(true);
+                        return t;
+                    });
+
+            try {
+                PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+                answerQuestions(shared, file, false, hasOption(args, "--mmap"), chunk -> predictAll(chunk, models, pool, out));
+                out.flush();
+            } finally {
+                pool.shutdownNow();
+            }
+
+        }
+        else if (action.equals("serve")) {
+            String hypothesis = args[1];
+            String port = optionValue(args, "--port");
+
+            String reload = optionValue(args, "--reload");
+            boolean lazy = hasOption(args, "--lazy");
+
+            String cacheSize = optionValue(args, "--cache");
+            int cacheLines = cacheSize != null ? Integer.parseInt(cacheSize) : hasOption(args, "--cache") ? CACHE_LINES : 0;
+
+            if (window == null) {
+                features = withModelWindow(hypothesis, features);
+            }
+
+            CompiledModel model = loadModel(hypothesis, features);
+            PredictionServer server = new PredictionServer(model,
+                    lazy ? features.forModel(model.usedFeatures(), model::decided) : features, cacheLines);
+
+            if (reload != null || hasOption(args, "--reload")) {
+                watchModel(hypothesis, features, lazy, server, reload != null ? Long.parseLong(reload) : 1);
+            }
+
+            try {
+                if (port != null) {
+                    String threads = optionValue(args, "--threads");
+                    String queue = optionValue(args, "--queue");
+                    String deadline = optionValue(args, "--deadline");
+
+                    server.listen(Integer.parseInt(port),
+                            threads != null ? Integer.parseInt(threads) : Runtime.getRuntime().availableProcessors(),
+                            queue != null ? Integer.parseInt(queue) : PredictionServer.QUEUE_BATCHES,
+                            deadline != null ? Long.parseLong(deadline) : 0);
+                }
+                else {
+                    server.serve(System.in, System.out);
+
+                    if (server.getCache() != null) {
+                        System.err.println(server.getCache());
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        else if (action.equals("learn")) {
+            String stream = args[1];
+            String hypothesisOut = args[2];
+            String publish = optionValue(args, "--publish");
+            String grace = optionValue(args, "--grace");
+            String delta = optionValue(args, "--delta");
+            long publishEvery = publish != null ? Long.parseLong(publish) : 10000;
+
+            if (publishEvery < 1) {
+                System.out.println("Invalid publish interval, --publish must be at least 1");
+                System.exit(-1);
+            }
+
+            HoeffdingTree tree = new HoeffdingTree(features.getNames(),
+                    grace != null ? Integer.parseInt(grace) : HoeffdingTree.GRACE_PERIOD,
+                    delta != null ? Double.parseDouble(delta) : HoeffdingTree.DELTA);
+
+            try (BufferedReader in = stream.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : new BufferedReader(new FileReader(stream, StandardCharsets.UTF_8))) {
+
+                learnStream(in, tree, features, hypothesisOut, publishEvery);
+
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        else if (action.equals("worker")) {
+            String examples = args[1];
+            String spill = optionValue(args, "--out-of-core");
+            String port = optionValue(args, "--port");
+            String bind = optionValue(args, "--bind");
+            Path directory = Path.of(spill != null ? spill : System.getProperty("java.io.tmpdir"));
+
+            try (SpillShard shard = new SpillShard(spillQuestions(features, examples, hasOption(args, "--mmap"), directory))) {
+                InetAddress address = bind != null ? InetAddress.getByName(bind) : InetAddress.getLoopbackAddress();
+
+                System.err.println("Serving " + shard.size() + " examples on " + address.getHostAddress() + ":" + port);
+                new ShardWorker(shard).listen(Integer.parseInt(port), address);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        else if (action.equals("convert")) {
+            String legacyModel = args[1];
+            String hypothesisOut = args[2];
+
+            try {
+                saveModel(ModelFile.readLegacy(Path.of(legacyModel)), features, hypothesisOut);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+        else {
+            System.out.println("Invalid option.");
+            System.exit(-1);
+        }
+
+        if (Metrics.ENABLED) {
+            Metrics.report(System.err);
+        }
+
+    }
+}
\ No newline at end of file
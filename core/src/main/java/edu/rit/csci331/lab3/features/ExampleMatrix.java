@@ -0,0 +1,425 @@
+package edu.rit.csci331.lab3.features;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar store for the examples used by both learning
+ * algorithms. Instead of one HashMap of "True"/"False"
+ * strings per example, every attribute/question is stored
+ * as a single bitset over all the examples, the result of
+ * each example is stored in a byte label column, and the
+ * AdaBoost weights are stored in a double array.
+ * Groups of examples (the examples at a tree node) are
+ * represented as row bitsets, so partitioning and counting
+ * examples become bitwise AND and popcount operations.
+ * The same answers are also kept row by row, as the list of
+ * attributes each example answers True, so learners can skip
+ * the False answers when there are many sparse attributes,
+ * such as hashed n-gram questions.
+ */
+public class ExampleMatrix {
+
+    /** Label value of an English (en) example */
+    public static final byte EN = 0;
+
+    /** Label value of a Dutch (nl) example */
+    public static final byte NL = 1;
+
+    /** Label value of an example with no known result */
+    public static final byte UNKNOWN = -1;
+
+    /** String names of each attribute/question, in column order */
+    private final String[] attributes;
+
+    /** Column index of each attribute name */
+    private final Map<String, Integer> columnIndex;
+
+    /** One bitset per attribute, bit r is set if example r answers True */
+    private long[][] columns;
+
+    /** Bitset of all examples labelled English (en) */
+    private long[] enRows;
+
+    /** Bitset of all examples labelled Dutch (nl) */
+    private long[] nlRows;
+
+    /** Label of each example (EN, NL or UNKNOWN) */
+    private byte[] labels;
+
+    /** AdaBoost weight of each example */
+    private double[] weights;
+
+    /** Number of examples stored */
+    private int size;
+
+    /** Index in rowFeatures of the first True attribute of each example, and one past the last example */
+    private int[] rowStart;
+
+    /** Column index of every True answer, grouped by example in row order */
+    private int[] rowFeatures;
+
+    /** Number of True answers stored */
+    private int nonZeros;
+
+    /** Boolean indicating if rowFeatures holds every True answer */
+    private boolean rowMajor = true;
+
+    /**
+     * Constructor for ExampleMatrix class
+     *
+     * @param attributes List of String questions, one column is created for each
+     * @param capacity Integer number of examples to allocate space for up front
+     */
+    public ExampleMatrix(List<String> attributes, int capacity) {
+        this.attributes = attributes.toArray(new String[0]);
+        this.columnIndex = new HashMap<>();
+
+        for (int i = this.attributes.length - 1; i >= 0; i--) {
+            columnIndex.put(this.attributes[i], i);
+        }
+
+        int words = Math.max(1, (capacity + 63) >>> 6);
+        this.columns = new long[this.attributes.length][words];
+        this.enRows = new long[words];
+        this.nlRows = new long[words];
+        this.labels = new byte[words << 6];
+        this.weights = new double[words << 6];
+        this.rowStart = new int[(words << 6) + 1];
+        this.rowFeatures = new int[words << 6];
+    }
+
+    /**
+     * Converts a String result ("en" or "nl") to its label value.
+     *
+     * @param result String result of an example, may be null
+     * @return byte label value
+     */
+    public static byte toLabel(String result) {
+        if ("en".equals(result)) {
+            return EN;
+        }
+        else if ("nl".equals(result)) {
+            return NL;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Converts a label value back to its String result.
+     *
+     * @param label byte label value
+     * @return "en", "nl", or null if the label is unknown
+     */
+    public static String toResult(byte label) {
+        if (label == EN) {
+            return "en";
+        }
+        else if (label == NL) {
+            return "nl";
+        }
+        return null;
+    }
+
+    /**
+     * Appends a new example with every answer set to False.
+     *
+     * @param label byte label of the new example
+     * @return Integer row index of the new example
+     */
+    public int addExample(byte label) {
+        int row = size;
+
+        if ((row >>> 6) == enRows.length) {
+            grow();
+        }
+
+        labels[row] = label;
+
+        if (label == EN) {
+            enRows[row >>> 6] |= 1L << row;
+        }
+        else if (label == NL) {
+            nlRows[row >>> 6] |= 1L << row;
+        }
+
+        size++;
+        rowStart[size] = nonZeros;
+        return row;
+    }
+
+    /**
+     * Appends every row of a chunk as a new example. Bit q of
+     * each row becomes the answer for column q.
+     *
+     * @param chunk FeatureChunk of rows to append
+     */
+    public void addExamples(FeatureChunk chunk) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+
+        for (int r = 0; r < chunk.size(); r++) {
+            int row = addExample(chunk.getLabel(r));
+
+            for (int w = 0; w < stride; w++) {
+                long bits = features[r * stride + w];
+
+                while (bits != 0) {
+                    setTrue((w << 6) + Long.numberOfTrailingZeros(bits), row);
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Doubles the number of examples that can be stored.
+     */
+    private void grow() {
+        int words = enRows.length << 1;
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Arrays.copyOf(columns[i], words);
+        }
+
+        enRows = Arrays.copyOf(enRows, words);
+        nlRows = Arrays.copyOf(nlRows, words);
+        labels = Arrays.copyOf(labels, words << 6);
+        weights = Arrays.copyOf(weights, words << 6);
+        rowStart = Arrays.copyOf(rowStart, (words << 6) + 1);
+    }
+
+    /**
+     * Sets the answer of an example for an attribute to True. Answers
+     * are only kept row by row while they are set for the last example
+     * added.
+     *
+     * @param attr Integer column index of the attribute
+     * @param row Integer row index of the example
+     */
+    public void setTrue(int attr, int row) {
+
+        if ((columns[attr][row >>> 6] & (1L << row)) != 0) {
+            return;
+        }
+
+        columns[attr][row >>> 6] |= 1L << row;
+
+        if (row != size - 1) {
+            rowMajor = false;
+        }
+        else if (rowMajor) {
+            if (nonZeros == rowFeatures.length) {
+                rowFeatures = Arrays.copyOf(rowFeatures, nonZeros << 1);
+            }
+            rowFeatures[nonZeros++] = attr;
+            rowStart[size] = nonZeros;
+        }
+    }
+
+    /**
+     * Getter for an example's answer to an attribute
+     *
+     * @param attr Integer column index of the attribute
+     * @param row Integer row index of the example
+     * @return True if the example answers True for the attribute
+     */
+    public boolean answer(int attr, int row) {
+        return (columns[attr][row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Finds the column index of an attribute by its name.
+     *
+     * @param attr String question of the attribute
+     * @return Integer column index, or -1 if there is no such attribute
+     */
+    public int column(String attr) {
+        return columnIndex.getOrDefault(attr, -1);
+    }
+
+    /**
+     * Getter for the bitset of an attribute
+     *
+     * @param attr Integer column index of the attribute
+     * @return long[] bitset with one bit per example
+     */
+    public long[] getColumn(int attr) {
+        return columns[attr];
+    }
+
+    /**
+     * Getter for the bitset of English (en) examples
+     *
+     * @return long[] bitset with one bit per example
+     */
+    public long[] getEnRows() {
+        return enRows;
+    }
+
+    /**
+     * Getter for the bitset of Dutch (nl) examples
+     *
+     * @return long[] bitset with one bit per example
+     */
+    public long[] getNlRows() {
+        return nlRows;
+    }
+
+    /**
+     * Getter for an example's label
+     *
+     * @param row Integer row index of the example
+     * @return byte label of the example
+     */
+    public byte getLabel(int row) {
+        return labels[row];
+    }
+
+    /**
+     * Getter for double[] weights. Only the first size()
+     * entries are meaningful.
+     *
+     * @return double[] weights
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Getter for String[] attributes
+     *
+     * @return String[] attributes
+     */
+    public String[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Getter for boolean rowMajor
+     *
+     * @return True if every True answer can be found through getRowFeatures()
+     */
+    public boolean hasRowFeatures() {
+        return rowMajor;
+    }
+
+    /**
+     * Finds the first True answer of an example.
+     *
+     * @param row Integer row index of the example
+     * @return Integer index in getRowFeatures() of the example's first True answer
+     */
+    public int rowStart(int row) {
+        return rowStart[row];
+    }
+
+    /**
+     * Finds the end of the True answers of an example.
+     *
+     * @param row Integer row index of the example
+     * @return Integer index in getRowFeatures() after the example's last True answer
+     */
+    public int rowEnd(int row) {
+        return rowStart[row + 1];
+    }
+
+    /**
+     * Getter for int[] rowFeatures. Only the first nonZeros()
+     * entries are meaningful.
+     *
+     * @return int[] column index of every True answer, grouped by example
+     */
+    public int[] getRowFeatures() {
+        return rowFeatures;
+    }
+
+    /**
+     * Getter for the number of True answers
+     *
+     * @return Integer number of True answers over every example and attribute
+     */
+    public int nonZeros() {
+        return nonZeros;
+    }
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the number of long words in each bitset
+     *
+     * @return Integer number of words
+     */
+    public int words() {
+        return enRows.length;
+    }
+
+    /**
+     * Creates a row bitset containing every example.
+     *
+     * @return long[] bitset with the first size() bits set
+     */
+    public long[] allRows() {
+        long[] rows = new long[enRows.length];
+        int full = size >>> 6;
+
+        Arrays.fill(rows, 0, full, -1L);
+
+        if ((size & 63) != 0) {
+            rows[full] = (1L << size) - 1;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Sets the weight of every example to 1/N, where N
+     * is the number of examples.
+     */
+    public void resetWeights() {
+        Arrays.fill(weights, 0, size, 1.0 / size);
+    }
+
+    /**
+     * Counts the examples contained in a row bitset.
+     *
+     * @param rows long[] row bitset
+     * @return Integer number of examples in rows
+     */
+    public static int count(long[] rows) {
+        int count = 0;
+
+        for (long word : rows) {
+            count += Long.bitCount(word);
+        }
+
+        return count;
+    }
+
+    /**
+     * Counts the examples contained in both of two row bitsets.
+     *
+     * @param rows long[] row bitset
+     * @param other long[] row bitset
+     * @return Integer number of examples in both rows and other
+     */
+    public static int countBoth(long[] rows, long[] other) {
+        int count = 0;
+
+        for (int w = 0; w < rows.length; w++) {
+            count += Long.bitCount(rows[w] & other[w]);
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.rit.csci331.lab3.features;
+
+import java.util.Arrays;
+
+/**
+ * A batch of feature rows produced from a block of input
+ * lines. Each row stores the answers of one example as a
+ * packed bitset of stride long words, where bit q is set
+ * if the example answers True for question q, along with
+ * the example's label. Chunks are handed from the extraction
+ * workers to training or prediction in input order.
+ */
+public class FeatureChunk {
+
+    /** Number of long words used by each row */
+    private final int stride;
+
+    /** Packed answers of every row, stride words per row */
+    private long[] features;
+
+    /** Label of each row (ExampleMatrix.EN, NL or UNKNOWN) */
+    private byte[] labels;
+
+    /** Number of rows stored */
+    private int size;
+
+    /**
+     * Constructor for FeatureChunk class
+     *
+     * @param stride Integer number of long words per row
+     * @param capacity Integer number of rows to allocate space for up front
+     */
+    public FeatureChunk(int stride, int capacity) {
+        this.stride = stride;
+        this.features = new long[Math.max(1, capacity) * stride];
+        this.labels = new byte[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends a new row with every answer set to False.
+     *
+     * @param label byte label of the new row
+     * @return Integer row index of the new row
+     */
+    public int addRow(byte label) {
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size << 1);
+            features = Arrays.copyOf(features, (size << 1) * stride);
+        }
+
+        labels[size] = label;
+        return size++;
+    }
+
+    /**
+     * Removes every row, so this chunk can be reused for the
+     * next batch without allocating.
+     */
+    public void clear() {
+        Arrays.fill(features, 0, size * stride, 0L);
+        size = 0;
+    }
+
+    /**
+     * Getter for an row's answer to a question
+     *
+     * @param question Integer index of the question
+     * @param row Integer row index
+     * @return True if the row answers True for the question
+     */
+    public boolean answer(int question, int row) {
+        return (features[row * stride + (question >>> 6)] & (1L << question)) != 0;
+    }
+
+    /**
+     * Getter for long[] features. Row r occupies the words
+     * starting at r * getStride().
+     *
+     * @return long[] features
+     */
+    public long[] getFeatures() {
+        return features;
+    }
+
+    /**
+     * Getter for int stride
+     *
+     * @return Integer number of long words per row
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Getter for a row's label
+     *
+     * @param row Integer row index
+     * @return byte label of the row
+     */
+    public byte getLabel(int row) {
+        return labels[row];
+    }
+
+    /**
+     * Setter for a row's label
+     *
+     * @param row Integer row index
+     * @param label byte new label of the row
+     */
+    public void setLabel(int row, byte label) {
+        labels[row] = label;
+    }
+
+    /**
+     * Getter for the number of rows
+     *
+     * @return Integer number of rows
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,727 @@
+package edu.rit.csci331.lab3.features;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The set of questions asked about each sentence, loaded from a
+ * spec file such as the default features.txt, with one question
+ * per line:
+ *
+ *   Q1 substring aa
+ *   Q2 substring-except j ja je ji jo ju jy
+ *   Q3 word de
+ *
+ * A question may also stand for a fixed number of hashed buckets,
+ * such as "C3 char-ngrams 3 1024", which asks 1024 questions named
+ * C3#0 to C3#1023, each answered True if some character 3-gram of
+ * the sentence hashes to that bucket. Hashed questions need no
+ * dictionary, so the number of columns stays the same no matter
+ * how many different n-grams or words the corpus holds.
+ *
+ * A line "window <n>" sets how many words of each sentence are
+ * analyzed, 15 unless given, and "window all" analyzes every word.
+ *
+ * Every substring pattern is compiled into one SubstringAutomaton
+ * and every whole word into one WordTable, so a SentenceFeaturizer
+ * answers all of the questions in a single scan of each sentence,
+ * however many there are. Question i is answered by bit i of a
+ * row, so rows are getStride() long words wide.
+ *
+ * For prediction, forModel() compiles only the questions a model
+ * asks, and lets the model stop the scan of a sentence as soon as
+ * its result can no longer change.
+ */
+public class FeatureRegistry {
+
+    /** Name of the default spec, stored next to this class */
+    static final String DEFAULTS = "features.txt";
+
+    /** Pattern role: a match answers its feature True */
+    static final byte ANY = 0;
+
+    /** Pattern role: a match answers its feature True unless an excluded pattern is in the same word */
+    static final byte INCLUDE = 1;
+
+    /** Pattern role: a match stops its feature's included pattern from counting for that word */
+    static final byte EXCLUDE = 2;
+
+    /** Number of words of each sentence analyzed unless a spec sets it */
+    public static final int DEFAULT_WINDOW = 15;
+
+    /** Window analyzing every word of each sentence */
+    public static final int WHOLE_SENTENCE = Integer.MAX_VALUE;
+
+    /** Longest character n-gram that can be hashed */
+    static final int MAX_NGRAM = 8;
+
+    /** Largest number of buckets of one hashed question */
+    static final int MAX_BUCKETS = 1 << 20;
+
+    /** Registry of the default questions Q0-Q8, loaded when first used */
+    private static FeatureRegistry defaults;
+
+    /** String name of each question, in column order */
+    private final String[] names;
+
+    /** Automaton matching every substring pattern */
+    private final SubstringAutomaton automaton;
+
+    /** Question index of each substring pattern */
+    private final int[] patternFeature;
+
+    /** Role (ANY, INCLUDE or EXCLUDE) of each substring pattern */
+    private final byte[] patternRole;
+
+    /** Excluded pattern indexes of each substring-except question, or null */
+    private final int[][] excludes;
+
+    /** Table of every whole word */
+    private final WordTable words;
+
+    /** Question index of each avg-length question */
+    private final int[] avgFeature;
+
+    /** Threshold of each avg-length question */
+    private final float[] avgThreshold;
+
+    /** Length, first question index and number of buckets of each char-ngrams question */
+    private final int[] ngramN, ngramBase, ngramBuckets;
+
+    /** First question index and number of buckets of each word-hash question */
+    private final int[] wordHashBase, wordHashBuckets;
+
+    /** Number of words of each sentence analyzed */
+    private final int window;
+
+    /** Question lines of the spec, kept so it can be compiled again */
+    private final List<String> lines;
+
+    /** File and line of each question line, used in error messages */
+    private final List<String> wheres;
+
+    /** Boolean for each question indicating if it is compiled, or null for all of them */
+    private final boolean[] keep;
+
+    /** Decider stopping the scan of a sentence early, or null */
+    private final Decider decider;
+
+    /**
+     * Checks whether the result of a model for a sentence is already
+     * decided while the sentence is still being scanned.
+     */
+    @FunctionalInterface
+    public interface Decider {
+
+        /**
+         * Checks whether a sentence's result can still change. Questions
+         * answered True so far stay True, while questions answered False
+         * so far may still become True, and avg-length questions are not
+         * answered until the end of the sentence.
+         *
+         * @param answers long[] packed answers of the sentence so far
+         * @return True if no later answer could change the result
+         */
+        boolean decided(long[] answers);
+    }
+
+    /**
+     * Constructor for FeatureRegistry class, compiling the parsed questions.
+     *
+     * @param names List<String> name of each question
+     * @param patterns List<String> every substring pattern
+     * @param patternFeature List<Integer> question index of each pattern
+     * @param patternRole List<Byte> role of each pattern
+     * @param excludes int[][] excluded pattern indexes of each question
+     * @param words Map<String, List<Integer>> question indexes of each whole word
+     * @param avgFeature List<Integer> question index of each avg-length question
+     * @param avgThreshold List<Float> threshold of each avg-length question
+     * @param ngrams List<int[]> length, first question and buckets of each char-ngrams question
+     * @param wordHashes List<int[]> first question and buckets of each word-hash question
+     * @param window Integer number of words of each sentence analyzed
+     * @param lines List<String> question lines of the spec
+     * @param wheres List<String> file and line of each question line
+     * @param keep boolean[] questions compiled, or null for all of them
+     * @param decider Decider stopping the scan of a sentence early, or null
+     */
+    private FeatureRegistry(List<String> names, List<String> patterns, List<Integer> patternFeature,
+                            List<Byte> patternRole, int[][] excludes, Map<String, List<Integer>> words,
+                            List<Integer> avgFeature, List<Float> avgThreshold,
+                            List<int[]> ngrams, List<int[]> wordHashes, int window,
+                            List<String> lines, List<String> wheres, boolean[] keep, Decider decider) {
+
+        this.names = names.toArray(new String[0]);
+        this.automaton = new SubstringAutomaton(patterns);
+        this.patternFeature = patternFeature.stream().mapToInt(Integer::intValue).toArray();
+        this.patternRole = new byte[patternRole.size()];
+        this.excludes = excludes;
+        this.words = new WordTable(words);
+        this.avgFeature = avgFeature.stream().mapToInt(Integer::intValue).toArray();
+        this.avgThreshold = new float[avgThreshold.size()];
+        this.ngramN = ngrams.stream().mapToInt(g -> g[0]).toArray();
+        this.ngramBase = ngrams.stream().mapToInt(g -> g[1]).toArray();
+        this.ngramBuckets = ngrams.stream().mapToInt(g -> g[2]).toArray();
+        this.wordHashBase = wordHashes.stream().mapToInt(g -> g[0]).toArray();
+        this.wordHashBuckets = wordHashes.stream().mapToInt(g -> g[1]).toArray();
+        this.window = window;
+        this.lines = lines;
+        this.wheres = wheres;
+        this.keep = keep;
+        this.decider = decider;
+
+        for (int p = 0; p < this.patternRole.length; p++) {
+            this.patternRole[p] = patternRole.get(p);
+        }
+        for (int i = 0; i < this.avgThreshold.length; i++) {
+            this.avgThreshold[i] = avgThreshold.get(i);
+        }
+    }
+
+    /**
+     * Getter for the registry of the default questions Q0-Q8
+     *
+     * @return FeatureRegistry loaded from the default features.txt
+     */
+    public static synchronized FeatureRegistry defaults() {
+
+        if (defaults == null) {
+            try (InputStream in = FeatureRegistry.class.getResourceAsStream(DEFAULTS)) {
+                if (in == null) {
+                    throw new IOException(DEFAULTS + " is missing");
+                }
+                defaults = parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), DEFAULTS);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        return defaults;
+    }
+
+    /**
+     * Loads the questions from one of the specs bundled next to this
+     * class, such as "hashed" for hashed.txt, or else from a spec file.
+     *
+     * @param spec String name of a bundled spec, or path of a spec file
+     * @return FeatureRegistry asking the questions in the spec
+     * @throws IOException if the spec cannot be read
+     * @throws IllegalArgumentException if a line of the spec is not a valid question
+     */
+    public static FeatureRegistry named(String spec) throws IOException {
+
+        if (spec.matches("[a-z-]+")) {
+            try (InputStream in = FeatureRegistry.class.getResourceAsStream(spec + ".txt")) {
+                if (in != null) {
+                    return parse(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), spec + ".txt");
+                }
+            }
+        }
+
+        return load(Path.of(spec));
+    }
+
+    /**
+     * Loads the questions from a spec file.
+     *
+     * @param file Path of the spec file
+     * @return FeatureRegistry asking the questions in the file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line of the file is not a valid question
+     */
+    public static FeatureRegistry load(Path file) throws IOException {
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(in, file.toString());
+        }
+    }
+
+    /**
+     * Helper function used to parse and compile the questions in a spec.
+     *
+     * @param in BufferedReader of the spec
+     * @param source String name of the spec, used in error messages
+     * @return FeatureRegistry asking the questions in the spec
+     * @throws IOException if the spec cannot be read
+     * @throws IllegalArgumentException if a line of the spec is not a valid question
+     */
+    static FeatureRegistry parse(BufferedReader in, String source) throws IOException {
+
+        List<String> lines = new ArrayList<>();
+        List<String> wheres = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.strip();
+
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                lines.add(line);
+                wheres.add(source + " line " + lineNumber + ": ");
+            }
+        }
+
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException(source + " defines no questions");
+        }
+
+        return compile(lines, wheres, 0, null, null);
+    }
+
+    /**
+     * Helper function used to compile the question lines of a spec.
+     *
+     * @param lines List<String> question lines of the spec
+     * @param wheres List<String> file and line of each question line
+     * @param windowOverride Integer window replacing the spec's, or 0 to keep it
+     * @param keep boolean[] questions to compile, or null for all of them
+     * @param decider Decider stopping the scan of a sentence early, or null
+     * @return FeatureRegistry asking the questions in the spec
+     * @throws IllegalArgumentException if a line of the spec is not a valid question
+     */
+    private static FeatureRegistry compile(List<String> lines, List<String> wheres, int windowOverride,
+                                           boolean[] keep, Decider decider) {
+
+        List<String> names = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<String> patterns = new ArrayList<>();
+        List<Integer> patternFeature = new ArrayList<>();
+        List<Byte> patternRole = new ArrayList<>();
+        List<int[]> excludes = new ArrayList<>();
+        Map<String, List<Integer>> words = new LinkedHashMap<>();
+        List<Integer> avgFeature = new ArrayList<>();
+        List<Float> avgThreshold = new ArrayList<>();
+        List<int[]> ngrams = new ArrayList<>();
+        List<int[]> wordHashes = new ArrayList<>();
+        int window = DEFAULT_WINDOW;
+
+        for (int l = 0; l < lines.size(); l++) {
+            String[] parts = lines.get(l).split("\\s+");
+            String where = wheres.get(l);
+
+            if (parts[0].equals("window") && parts.length == 2) {
+                window = parseWindow(parts[1], where);
+                continue;
+            }
+            if (parts.length < 3) {
+                throw new IllegalArgumentException(where + "expected <name> <kind> <arguments>");
+            }
+            if (!seen.add(parts[0])) {
+                throw new IllegalArgumentException(where + "question " + parts[0] + " is defined twice");
+            }
+
+            int feature = names.size();
+            String kind = parts[1];
+            String[] args = Arrays.copyOfRange(parts, 2, parts.length);
+            int[] excluded = null;
+
+            for (int i = 0; i < args.length; i++) {
+                args[i] = args[i].toLowerCase(Locale.ROOT);
+            }
+
+            if (keep != null && !keep[feature] && !kind.equals("char-ngrams") && !kind.equals("word-hash")) {
+                kind = "skip";
+            }
+
+            switch (kind) {
+                case "skip":
+                    break;
+                case "avg-length":
+                    try {
+                        avgThreshold.add(Float.parseFloat(args[0]));
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(where + "avg-length needs a number", e);
+                    }
+                    avgFeature.add(feature);
+                    break;
+                case "substring":
+                    for (String pattern : args) {
+                        patterns.add(pattern);
+                        patternFeature.add(feature);
+                        patternRole.add(ANY);
+                    }
+                    break;
+                case "substring-except":
+                    patterns.add(args[0]);
+                    patternFeature.add(feature);
+                    patternRole.add(INCLUDE);
+                    excluded = new int[args.length - 1];
+
+                    for (int i = 1; i < args.length; i++) {
+                        excluded[i - 1] = patterns.size();
+                        patterns.add(args[i]);
+                        patternFeature.add(feature);
+                        patternRole.add(EXCLUDE);
+                    }
+                    break;
+                case "word":
+                    for (String word : args) {
+                        words.computeIfAbsent(word, w -> new ArrayList<>()).add(feature);
+                    }
+                    break;
+                case "char-ngrams":
+                    int[] ngram = {number(args, 0, 1, MAX_NGRAM, where), feature, number(args, 1, 1, MAX_BUCKETS, where)};
+                    if (kept(keep, feature, ngram[2])) {
+                        ngrams.add(ngram);
+                    }
+                    addBuckets(parts[0], ngram[2], names, excludes, seen, where);
+                    continue;
+                case "word-hash":
+                    int[] wordHash = {feature, number(args, 0, 1, MAX_BUCKETS, where)};
+                    if (kept(keep, feature, wordHash[1])) {
+                        wordHashes.add(wordHash);
+                    }
+                    addBuckets(parts[0], wordHash[1], names, excludes, seen, where);
+                    continue;
+                default:
+                    throw new IllegalArgumentException(where + "unknown kind " + kind);
+            }
+
+            names.add(parts[0]);
+            excludes.add(excluded);
+        }
+
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException(wheres.get(wheres.size() - 1) + "spec defines no questions");
+        }
+
+        return new FeatureRegistry(names, patterns, patternFeature, patternRole,
+                excludes.toArray(new int[0][]), words, avgFeature, avgThreshold, ngrams, wordHashes,
+                windowOverride > 0 ? windowOverride : window, lines, wheres, keep, decider);
+    }
+
+    /**
+     * Helper function used to check if any bucket of a hashed question
+     * is compiled.
+     *
+     * @param keep boolean[] questions to compile, or null for all of them
+     * @param feature Integer question index of the first bucket
+     * @param buckets Integer number of buckets
+     * @return True if any of the buckets is compiled
+     */
+    private static boolean kept(boolean[] keep, int feature, int buckets) {
+
+        if (keep == null) {
+            return true;
+        }
+
+        for (int b = feature; b < feature + buckets; b++) {
+            if (keep[b]) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Creates a registry asking the same questions over a different
+     * window.
+     *
+     * @param window Integer number of words of each sentence analyzed,
+     *               or WHOLE_SENTENCE to analyze every word.
+     * @return FeatureRegistry with the given window
+     * @throws IllegalArgumentException if window is less than 1
+     */
+    public FeatureRegistry withWindow(int window) {
+
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be at least 1 word");
+        }
+
+        return window == this.window ? this : compile(lines, wheres, window, keep, decider);
+    }
+
+    /**
+     * Creates a registry for predicting with one model. Only the given
+     * questions are compiled, so no time is spent on questions the model
+     * never asks, while every question keeps its name and bit. The rows
+     * are therefore only valid for that model. The scan of each sentence
+     * also stops as soon as the decider finds the model's result decided.
+     *
+     * @param questions int[] question indexes the model asks
+     * @param decider Decider checking if the model's result is decided, or null
+     * @return FeatureRegistry answering only the given questions
+     */
+    public FeatureRegistry forModel(int[] questions, Decider decider) {
+
+        boolean[] used = new boolean[names.length];
+
+        for (int q : questions) {
+            used[q] = true;
+        }
+
+        return compile(lines, wheres, window, used, decider);
+    }
+
+    /**
+     * Parses a window setting, such as the value of "--window=".
+     *
+     * @param window String number of words, or "all" for the whole sentence
+     * @return Integer number of words, or WHOLE_SENTENCE
+     * @throws IllegalArgumentException if the setting is not valid
+     */
+    public static int parseWindow(String window) {
+        return parseWindow(window, "window: ");
+    }
+
+    /**
+     * Helper function used to parse a window setting.
+     *
+     * @param window String number of words, or "all" for the whole sentence
+     * @param where String source of the setting, used in error messages
+     * @return Integer number of words, or WHOLE_SENTENCE
+     * @throws IllegalArgumentException if the setting is not valid
+     */
+    private static int parseWindow(String window, String where) {
+        return window.equals("all") ? WHOLE_SENTENCE : number(new String[] {window}, 0, 1, WHOLE_SENTENCE - 1, where);
+    }
+
+    /**
+     * Helper function used to parse a whole number argument of a question.
+     *
+     * @param args String[] arguments of the question
+     * @param i Integer index of the argument
+     * @param min Integer smallest allowed value
+     * @param max Integer largest allowed value
+     * @param where String file and line of the question, used in error messages
+     * @return Integer value of the argument
+     * @throws IllegalArgumentException if the argument is missing or out of range
+     */
+    private static int number(String[] args, int i, int min, int max, String where) {
+
+        try {
+            int value = Integer.parseInt(args[i]);
+
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // reported below
+        }
+
+        throw new IllegalArgumentException(where + "argument " + (i + 1) + " must be a number from " + min + " to " + max);
+    }
+
+    /**
+     * Helper function used to add the questions of a hashed question,
+     * one per bucket, named <name>#<bucket>.
+     *
+     * @param name String name of the hashed question
+     * @param buckets Integer number of buckets
+     * @param names List<String> name of each question so far
+     * @param excludes List<int[]> excluded patterns of each question so far
+     * @param seen Set<String> every name used so far
+     * @param where String file and line of the question, used in error messages
+     */
+    private static void addBuckets(String name, int buckets, List<String> names, List<int[]> excludes,
+                                   Set<String> seen, String where) {
+
+        for (int b = 0; b < buckets; b++) {
+            String bucket = name + "#" + b;
+
+            if (!seen.add(bucket)) {
+                throw new IllegalArgumentException(where + "question " + bucket + " is defined twice");
+            }
+            names.add(bucket);
+            excludes.add(null);
+        }
+    }
+
+    /**
+     * Finds the bucket of a hash. The hash is mixed first, so hashes
+     * that differ only in a few bits still land in unrelated buckets.
+     *
+     * @param hash Integer hash of an n-gram or word
+     * @param buckets Integer number of buckets
+     * @return Integer bucket from 0 to buckets - 1
+     */
+    static int bucket(int hash, int buckets) {
+
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        hash ^= hash >>> 16;
+
+        return (int) (((hash & 0xFFFFFFFFL) * buckets) >>> 32);
+    }
+
+    /**
+     * Getter for the name of each question
+     *
+     * @return String[] name of each question, in column order
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * Getter for the number of questions
+     *
+     * @return Integer number of questions
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Getter for the number of long words of each row
+     *
+     * @return Integer number of long words needed for one bit per question
+     */
+    public int getStride() {
+        return (names.length + 63) >>> 6;
+    }
+
+    /**
+     * Getter for int window
+     *
+     * @return Integer number of words of each sentence analyzed, or WHOLE_SENTENCE
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Checks whether a question is compiled, which it is unless the
+     * registry was created by forModel() for a model not asking it.
+     *
+     * @param question Integer question index
+     * @return True if the question is answered
+     */
+    boolean isCompiled(int question) {
+        return keep == null || keep[question];
+    }
+
+    /**
+     * Getter for Decider decider
+     *
+     * @return Decider stopping the scan of a sentence early, or null
+     */
+    Decider getDecider() {
+        return decider;
+    }
+
+    /**
+     * Getter for SubstringAutomaton automaton
+     *
+     * @return SubstringAutomaton automaton
+     */
+    SubstringAutomaton getAutomaton() {
+        return automaton;
+    }
+
+    /**
+     * Getter for int[] patternFeature
+     *
+     * @return int[] patternFeature
+     */
+    int[] getPatternFeature() {
+        return patternFeature;
+    }
+
+    /**
+     * Getter for byte[] patternRole
+     *
+     * @return byte[] patternRole
+     */
+    byte[] getPatternRole() {
+        return patternRole;
+    }
+
+    /**
+     * Getter for int[][] excludes
+     *
+     * @return int[][] excludes
+     */
+    int[][] getExcludes() {
+        return excludes;
+    }
+
+    /**
+     * Getter for WordTable words
+     *
+     * @return WordTable words
+     */
+    WordTable getWords() {
+        return words;
+    }
+
+    /**
+     * Getter for int[] avgFeature
+     *
+     * @return int[] avgFeature
+     */
+    int[] getAvgFeature() {
+        return avgFeature;
+    }
+
+    /**
+     * Getter for float[] avgThreshold
+     *
+     * @return float[] avgThreshold
+     */
+    float[] getAvgThreshold() {
+        return avgThreshold;
+    }
+
+    /**
+     * Getter for int[] ngramN
+     *
+     * @return int[] ngramN
+     */
+    int[] getNgramN() {
+        return ngramN;
+    }
+
+    /**
+     * Getter for int[] ngramBase
+     *
+     * @return int[] ngramBase
+     */
+    int[] getNgramBase() {
+        return ngramBase;
+    }
+
+    /**
+     * Getter for int[] ngramBuckets
+     *
+     * @return int[] ngramBuckets
+     */
+    int[] getNgramBuckets() {
+        return ngramBuckets;
+    }
+
+    /**
+     * Getter for int[] wordHashBase
+     *
+     * @return int[] wordHashBase
+     */
+    int[] getWordHashBase() {
+        return wordHashBase;
+    }
+
+    /**
+     * Getter for int[] wordHashBuckets
+     *
+     * @return int[] wordHashBuckets
+     */
+    int[] getWordHashBuckets() {
+        return wordHashBuckets;
+    }
+}
@@ -0,0 +1,499 @@
+package edu.rit.csci331.lab3.features;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of the answers and predicted label of each input
+ * line, used when the same sentences are predicted over and over.
+ * Lines are keyed by a 64-bit hash of their raw characters or bytes,
+ * so a hit skips both featurizing and classifying the line. Two
+ * different lines with the same hash would share an entry, but with
+ * a 64-bit hash that is not expected to happen before billions of
+ * distinct lines. The hash of a line's bytes differs from the hash of
+ * its characters, so one cache should only be used for one kind of
+ * input.
+ * The cache is split into SEGMENTS independently locked segments, so
+ * every extraction thread can use it at once. Each segment stores its
+ * entries in flat arrays of sets of WAYS entries, without allocating
+ * per line. A new line replaces the least recently used entry of its
+ * set, but only if a TinyLFU frequency sketch has seen the new line
+ * more often than that entry, so a stream of one-off lines cannot
+ * push out the lines that keep repeating.
+ */
+public class LineCache {
+
+    /**
+     * The model the cached labels come from, called for each line that
+     * misses the cache. CompiledModel.classify() can be used directly.
+     */
+    public interface Labeler {
+
+        /**
+         * Classifies one packed feature row.
+         *
+         * @param features long[] containing the row
+         * @param offset Integer index of the row's first word
+         * @return byte label (ExampleMatrix.EN or NL) of the row
+         */
+        byte classify(long[] features, int offset);
+    }
+
+    /** Number of independently locked segments, a power of 2 */
+    static final int SEGMENTS = 16;
+
+    /** Number of entries a key may be stored in */
+    static final int WAYS = 8;
+
+    /** Largest count of the frequency sketch */
+    private static final int MAX_FREQUENCY = 15;
+
+    /** Multipliers picking the sketch word and four counters of a key */
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    /**
+     * One independently locked part of the cache, holding the keys
+     * whose low bits select it. Its entries are kept in flat arrays,
+     * split into sets of WAYS entries. A key can only be stored in the
+     * set picked by its high bits, and replaces the least recently used
+     * entry of that set, so each lookup only compares WAYS keys.
+     */
+    private static class Segment {
+
+        /** Number of sets */
+        private final int sets;
+
+        /** Key of each entry */
+        private final long[] keys;
+
+        /** Time each entry was last used, or 0 for an empty entry */
+        private final long[] used;
+
+        /** Packed answers of each entry, stride words per entry */
+        private final long[] features;
+
+        /** Predicted label of each entry */
+        private final byte[] labels;
+
+        /** Number of lookups and stores so far, used as the time */
+        private long clock;
+
+        /** Number of entries used */
+        private int size;
+
+        /** Approximate number of recent lookups of each key, as 16 4-bit counters per word */
+        private final long[] sketch;
+
+        /** Number of sketch increments since its counters were last halved */
+        private int additions;
+
+        /** Number of sketch increments after which its counters are halved */
+        private final int sampleSize;
+
+        /**
+         * Constructor for Segment class
+         *
+         * @param capacity Integer maximum number of entries, rounded up to whole sets
+         * @param stride Integer number of long words of each row
+         */
+        Segment(int capacity, int stride) {
+            this.sets = (capacity + WAYS - 1) / WAYS;
+            this.keys = new long[sets * WAYS];
+            this.used = new long[sets * WAYS];
+            this.features = new long[sets * WAYS * stride];
+            this.labels = new byte[sets * WAYS];
+            this.sketch = new long[Integer.highestOneBit(Math.max(2, capacity / 4) - 1) << 1];
+            this.sampleSize = capacity * 10;
+        }
+
+        /**
+         * Helper function used to find the first entry of the set of a key.
+         *
+         * @param key Long hash of the line
+         * @return Integer index of the set's first entry
+         */
+        private int set(long key) {
+            return (int) (((key >>> 32) * sets) >>> 32) * WAYS;
+        }
+
+        /**
+         * Helper function used to find the entry of a key.
+         *
+         * @param key Long hash of the line
+         * @return Integer index of the entry, or -1 if the key is not stored
+         */
+        private int find(long key) {
+
+            int set = set(key);
+
+            for (int e = set; e < set + WAYS; e++) {
+                if (keys[e] == key && used[e] != 0) {
+                    return e;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Helper function used to find the sketch word holding the counters of a key.
+         *
+         * @param key Long hash of the line
+         * @return Integer index of the word in the sketch
+         */
+        private int word(long key) {
+            return (int) ((key * SEEDS[0]) >>> 40) & (sketch.length - 1);
+        }
+
+        /**
+         * Helper function used to find the bit offset of one of the four
+         * counters of a key in its sketch word. Each counter is in a
+         * different quarter of the word.
+         *
+         * @param key Long hash of the line
+         * @param i Integer index of the counter, 0 to 3
+         * @return Integer bit offset of the counter
+         */
+        private static int offset(long key, int i) {
+            return (i << 4) + ((int) ((key * SEEDS[i]) >>> 62) << 2);
+        }
+
+        /**
+         * Helper function used to count a lookup of a key, halving every
+         * counter once enough lookups were counted, so the sketch follows
+         * recent traffic.
+         *
+         * @param key Long hash of the line
+         */
+        private void record(long key) {
+
+            int word = word(key);
+            long counters = sketch[word];
+            boolean added = false;
+
+            for (int i = 0; i < SEEDS.length; i++) {
+                int offset = offset(key, i);
+
+                if (((counters >>> offset) & MAX_FREQUENCY) < MAX_FREQUENCY) {
+                    counters += 1L << offset;
+                    added = true;
+                }
+            }
+
+            sketch[word] = counters;
+
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < sketch.length; i++) {
+                    sketch[i] = (sketch[i] >>> 1) & 0x7777777777777777L;
+                }
+                additions = 0;
+            }
+        }
+
+        /**
+         * Helper function used to estimate how often a key was looked up recently.
+         *
+         * @param key Long hash of the line
+         * @return Integer smallest of the key's four counters
+         */
+        private int frequency(long key) {
+
+            long counters = sketch[word(key)];
+            int frequency = MAX_FREQUENCY;
+
+            for (int i = 0; i < SEEDS.length; i++) {
+                frequency = Math.min(frequency, (int) (counters >>> offset(key, i)) & MAX_FREQUENCY);
+            }
+
+            return frequency;
+        }
+    }
+
+    /** Segments of the cache, selected by the low bits of each key */
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /** Number of long words of each row */
+    private final int stride;
+
+    /** Model the cached labels come from */
+    private final Labeler labeler;
+
+    /** Number of lookups that found their line */
+    private final LongAdder hits = new LongAdder();
+
+    /** Number of lookups that did not find their line */
+    private final LongAdder misses = new LongAdder();
+
+    /** Number of entries removed to make room for another */
+    private final LongAdder evictions = new LongAdder();
+
+    /** Number of lines not admitted because the entry they would replace is used more */
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * Constructor for LineCache class
+     *
+     * @param capacity Integer maximum number of lines cached, rounded up to
+     *                 whole sets of WAYS entries in each segment
+     * @param stride Integer number of long words of each row
+     * @param labeler Labeler classifying each line that misses the cache
+     */
+    public LineCache(int capacity, int stride, Labeler labeler) {
+        this.stride = stride;
+        this.labeler = labeler;
+
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, (capacity + SEGMENTS - 1) / SEGMENTS), stride);
+        }
+    }
+
+    /**
+     * Hashes the characters of a line, four at a time.
+     *
+     * @param buf char[] containing the line
+     * @param start Integer index of the line's first character
+     * @param end Integer index after the line's last character
+     * @return Long hash of the line
+     */
+    public static long hash(char[] buf, int start, int end) {
+
+        long h = end - start;
+        int i = start;
+
+        for (; i + 4 <= end; i += 4) {
+            h = round(h, buf[i] | (long) buf[i + 1] << 16 | (long) buf[i + 2] << 32 | (long) buf[i + 3] << 48);
+        }
+        for (; i < end; i++) {
+            h = round(h, buf[i]);
+        }
+
+        return mix(h);
+    }
+
+    /**
+     * Hashes the characters of a line, four at a time, the same as for
+     * a char[] holding them.
+     *
+     * @param line CharSequence line
+     * @return Long hash of the line
+     */
+    public static long hash(CharSequence line) {
+
+        int end = line.length();
+        long h = end;
+        int i = 0;
+
+        for (; i + 4 <= end; i += 4) {
+            h = round(h, line.charAt(i) | (long) line.charAt(i + 1) << 16
+                    | (long) line.charAt(i + 2) << 32 | (long) line.charAt(i + 3) << 48);
+        }
+        for (; i < end; i++) {
+            h = round(h, line.charAt(i));
+        }
+
+        return mix(h);
+    }
+
+    /**
+     * Hashes the bytes of a line, eight at a time.
+     *
+     * @param buf ByteBuffer containing the line, read with absolute gets
+     * @param start Integer index of the line's first byte
+     * @param end Integer index after the line's last byte
+     * @return Long hash of the line
+     */
+    public static long hash(ByteBuffer buf, int start, int end) {
+
+        long h = end - start;
+        int i = start;
+
+        for (; i + 8 <= end; i += 8) {
+            h = round(h, buf.getLong(i));
+        }
+        for (; i < end; i++) {
+            h = round(h, buf.get(i) & 0xFF);
+        }
+
+        return mix(h);
+    }
+
+    /**
+     * Helper function used to add one word of a line to its hash.
+     *
+     * @param h Long hash of the line so far
+     * @param word Long next characters or bytes of the line
+     * @return Long hash including the word
+     */
+    private static long round(long h, long word) {
+        return Long.rotateLeft(h ^ word * 0x9E3779B97F4A7C15L, 31) * 0xC2B2AE3D27D4EB4FL;
+    }
+
+    /**
+     * Helper function used to spread the bits of a hash, so its low bits
+     * pick segments and its high bits pick sets evenly.
+     *
+     * @param h Long hash
+     * @return Long mixed hash
+     */
+    private static long mix(long h) {
+
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * Looks up a line, adding a row with its cached answers and label to
+     * the chunk if it is found.
+     *
+     * @param key Long hash of the line
+     * @param chunk FeatureChunk to add the line's row to
+     * @return True if the line was found and its row added
+     */
+    public boolean fill(long key, FeatureChunk chunk) {
+
+        Segment segment = segments[(int) key & (SEGMENTS - 1)];
+
+        synchronized (segment) {
+            segment.record(key);
+            int entry = segment.find(key);
+
+            if (entry < 0) {
+                misses.increment();
+                return false;
+            }
+
+            segment.used[entry] = ++segment.clock;
+            int row = chunk.addRow(segment.labels[entry]);
+            System.arraycopy(segment.features, entry * stride, chunk.getFeatures(), row * stride, stride);
+        }
+
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * Classifies a row that missed the cache, setting its label in the
+     * chunk, and caches its answers and label. If the key's set is full,
+     * its least recently used entry is replaced, but only if the TinyLFU
+     * sketch has seen the new line more often than that entry.
+     *
+     * @param key Long hash of the row's line
+     * @param chunk FeatureChunk containing the row
+     * @param row Integer row index
+     */
+    public void store(long key, FeatureChunk chunk, int row) {
+
+        long[] features = chunk.getFeatures();
+        byte label = labeler.classify(features, row * stride);
+        chunk.setLabel(row, label);
+
+        Segment segment = segments[(int) key & (SEGMENTS - 1)];
+
+        synchronized (segment) {
+            if (segment.find(key) >= 0) {
+                return;
+            }
+
+            int set = segment.set(key);
+            int victim = set;
+
+            for (int e = set; e < set + WAYS; e++) {
+                if (segment.used[e] < segment.used[victim]) {
+                    victim = e;
+                }
+            }
+
+            if (segment.used[victim] == 0) {
+                segment.size++;
+            }
+            else if (segment.frequency(key) <= segment.frequency(segment.keys[victim])) {
+                rejections.increment();
+                return;
+            }
+            else {
+                evictions.increment();
+            }
+
+            segment.keys[victim] = key;
+            segment.used[victim] = ++segment.clock;
+            segment.labels[victim] = label;
+            System.arraycopy(features, row * stride, segment.features, victim * stride, stride);
+        }
+    }
+
+    /**
+     * Getter for the number of hits
+     *
+     * @return Long number of lookups that found their line
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Getter for the number of misses
+     *
+     * @return Long number of lookups that did not find their line
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Getter for the number of evictions
+     *
+     * @return Long number of entries removed to make room for another
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Getter for the number of rejections
+     *
+     * @return Long number of lines not admitted because the entry they
+     *         would replace is used more
+     */
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    /**
+     * Finds the number of lines cached.
+     *
+     * @return Integer number of entries in every segment
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size;
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Summarizes the cache's counters on one line.
+     *
+     * @return String of the hits, misses, hit rate, evictions, rejections
+     *         and size of the cache
+     */
+    @Override
+    public String toString() {
+
+        long hits = getHits();
+        long lookups = hits + getMisses();
+
+        return String.format("cache hits=%d misses=%d hit-rate=%.1f%% evictions=%d rejections=%d size=%d",
+                hits, lookups - hits, lookups > 0 ? 100.0 * hits / lookups : 0.0,
+                getEvictions(), getRejections(), size());
+    }
+}
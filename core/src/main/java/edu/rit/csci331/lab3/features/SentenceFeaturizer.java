@@ -0,0 +1,664 @@
+package edu.rit.csci331.lab3.features;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Allocation-free scanner that answers the questions of a
+ * FeatureRegistry for one sentence at a time. Characters are
+ * fed to it one by one, so the same scanner is used no matter
+ * where the sentence is stored. Words are tokenized, stripped
+ * of punctuation and lowercased character by character, without
+ * creating any String or running any regex.
+ * Each character steps the registry's SubstringAutomaton and
+ * the hash of the current word, so every substring and whole
+ * word question is answered in the same single pass, and the
+ * last few characters are kept to hash character n-grams.
+ * Hashed questions set one bucket's bit per n-gram or word, so
+ * nothing is allocated however large the vocabulary is.
+ * Sentences may have any number of words. Only the registry's
+ * window of words is analyzed, and the scan of a sentence stops
+ * early once no word after it could change any answer, either
+ * because the window is full or because every question is
+ * already decided.
+ * A scanner holds the state of the sentence being read, so
+ * each thread must use its own instance.
+ */
+public class SentenceFeaturizer {
+
+    /** Boolean indicating if the first word starts with an "en|"/"nl|" label */
+    private final boolean training;
+
+    /** Automaton matching every substring pattern */
+    private final SubstringAutomaton automaton;
+
+    /** Pattern indexes matched by each automaton state */
+    private final int[] matches;
+
+    /** Question index of each substring pattern */
+    private final int[] patternFeature;
+
+    /** Role of each substring pattern */
+    private final byte[] patternRole;
+
+    /** Excluded pattern indexes of each substring-except question */
+    private final int[][] excludes;
+
+    /** Table of every whole word */
+    private final WordTable wordTable;
+
+    /** Question indexes of the whole words */
+    private final int[] wordFeatures;
+
+    /** Question index and threshold of each avg-length question */
+    private final int[] avgFeature;
+    private final float[] avgThreshold;
+
+    /** Number of words of each sentence analyzed */
+    private final int window;
+
+    /** Bits of every question that is decided once it answers True */
+    private final long[] decidable;
+
+    /** Boolean indicating if every question is decidable or avg-length */
+    private final boolean canDecide;
+
+    /** Model deciding when the rest of a sentence cannot change its result, or null */
+    private final FeatureRegistry.Decider decider;
+
+    /** Cache of the rows and labels of lines already predicted, or null */
+    private final LineCache cache;
+
+    /** Decidable answers of the current sentence when the decider was last asked */
+    private final long[] checked;
+
+    /** Length, first question index and number of buckets of each char-ngrams question */
+    private final int[] ngramN, ngramBase, ngramBuckets;
+
+    /** First question index and number of buckets of each word-hash question */
+    private final int[] wordHashBase, wordHashBuckets;
+
+    /** Last characters of the current word, oldest first, padded with a leading ' ' */
+    private final char[] recent;
+
+    /** Number of characters in recent */
+    private int recentCount;
+
+    /** Number of words finished in the current sentence */
+    private int words;
+
+    /** Total length of the finished words, without punctuation */
+    private int charCount;
+
+    /** Packed answers of the current sentence, bit q for question q */
+    private final long[] answers;
+
+    /** Label of the current sentence */
+    private byte label;
+
+    /** Boolean indicating if a word is currently being read */
+    private boolean inWord;
+
+    /** Part of the first word being read: 0 = label, 1 = word, 2 = ignored */
+    private int labelPart;
+
+    /** Up to the first two characters of the label */
+    private char label0, label1;
+
+    /** Length of the label */
+    private int labelLength;
+
+    /** Length of the current word, without punctuation */
+    private int wordLength;
+
+    /** First lowercase characters of the current word, up to the longest whole word */
+    private final char[] word;
+
+    /** Incremental hash of the current word */
+    private int wordHash;
+
+    /** Automaton state after the current word's characters */
+    private int state;
+
+    /** Serial number of the current word, used to stamp matches */
+    private int serial;
+
+    /** Serial of the last word each excluded pattern was found in */
+    private final int[] patternSeen;
+
+    /** Serial of the last word each substring-except question was pending in */
+    private final int[] featureSeen;
+
+    /** Substring-except questions found in the current word */
+    private final int[] pending;
+
+    /** Number of pending questions */
+    private int pendingCount;
+
+    /**
+     * Constructor for SentenceFeaturizer class
+     *
+     * @param training Boolean indicating if sentences start with a label
+     * @param features FeatureRegistry of the questions to answer
+     */
+    public SentenceFeaturizer(boolean training, FeatureRegistry features) {
+        this(training, features, null);
+    }
+
+    /**
+     * Constructor for SentenceFeaturizer class, predicting through a
+     * cache. featurizeLines() copies the row and label of each line
+     * found in the cache instead of scanning it, and classifies and
+     * caches the other lines, so every row it adds is labelled with
+     * its prediction.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param cache LineCache of lines already predicted
+     */
+    public SentenceFeaturizer(FeatureRegistry features, LineCache cache) {
+        this(false, features, cache);
+    }
+
+    /**
+     * Helper constructor for SentenceFeaturizer class
+     *
+     * @param training Boolean indicating if sentences start with a label
+     * @param features FeatureRegistry of the questions to answer
+     * @param cache LineCache of lines already predicted, or null
+     */
+    private SentenceFeaturizer(boolean training, FeatureRegistry features, LineCache cache) {
+        this.training = training;
+        this.cache = cache;
+        this.automaton = features.getAutomaton();
+        this.matches = automaton.getMatches();
+        this.patternFeature = features.getPatternFeature();
+        this.patternRole = features.getPatternRole();
+        this.excludes = features.getExcludes();
+        this.wordTable = features.getWords();
+        this.wordFeatures = wordTable.getFeatures();
+        this.avgFeature = features.getAvgFeature();
+        this.avgThreshold = features.getAvgThreshold();
+        this.ngramN = features.getNgramN();
+        this.ngramBase = features.getNgramBase();
+        this.ngramBuckets = features.getNgramBuckets();
+        this.wordHashBase = features.getWordHashBase();
+        this.wordHashBuckets = features.getWordHashBuckets();
+        this.recent = new char[Arrays.stream(ngramN).max().orElse(0)];
+        this.window = features.getWindow();
+        this.decidable = new long[features.getStride()];
+
+        for (int q = 0; q < features.size(); q++) {
+            if (features.isCompiled(q)) {
+                decidable[q >>> 6] |= 1L << q;
+            }
+        }
+        for (int q : avgFeature) {
+            decidable[q >>> 6] &= ~(1L << q);
+        }
+
+        // avg-length questions can only be decided early over a fixed window
+        this.canDecide = window != FeatureRegistry.WHOLE_SENTENCE || avgFeature.length == 0;
+        this.decider = features.getDecider();
+        this.checked = new long[features.getStride()];
+        this.answers = new long[features.getStride()];
+        this.word = new char[wordTable.maxLength()];
+        this.patternSeen = new int[patternFeature.length];
+        this.featureSeen = new int[features.size()];
+        this.pending = new int[features.size()];
+        this.serial = 1;
+    }
+
+    /**
+     * Resets this scanner to start reading a new sentence.
+     */
+    public void begin() {
+        words = 0;
+        charCount = 0;
+        Arrays.fill(answers, 0L);
+        Arrays.fill(checked, 0L);
+        label = ExampleMatrix.UNKNOWN;
+        inWord = false;
+        labelLength = 0;
+    }
+
+    /**
+     * Feeds the next character of the current sentence to this scanner.
+     *
+     * @param c char next character of the sentence
+     * @return False once enough words have been read that the
+     *         rest of the sentence cannot change any answer.
+     */
+    public boolean accept(char c) {
+
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B') {
+            if (inWord) {
+                endWord();
+                return words < window && !decided();
+            }
+            return true;
+        }
+
+        if (!inWord) {
+            inWord = true;
+            wordLength = 0;
+            wordHash = WordTable.EMPTY_HASH;
+            state = SubstringAutomaton.ROOT;
+            recentCount = 0;
+            labelPart = (training && words == 0) ? 0 : 1;
+        }
+
+        if (labelPart == 0) {
+            if (c == '|') {
+                labelPart = 1;
+                return true;
+            }
+
+            if (labelLength == 0) {
+                label0 = c;
+            }
+            else if (labelLength == 1) {
+                label1 = c;
+            }
+            labelLength++;
+            return true;
+        }
+        else if (labelPart == 2 || (c == '|' && training && words == 0)) {
+            labelPart = 2;
+            return true;
+        }
+
+        switch (c) {
+            case ',': case '.': case '!': case '?': case ';': case ':': case '(': case ')':
+                return true;
+            default:
+                break;
+        }
+
+        char lc;
+        if (c < 128) {
+            lc = (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        else {
+            lc = Character.toLowerCase(c);
+        }
+
+        if (wordLength < word.length) {
+            word[wordLength] = lc;
+        }
+        wordLength++;
+        wordHash = WordTable.hash(wordHash, lc);
+        state = automaton.step(state, lc);
+
+        for (int k = automaton.matchStart(state), end = automaton.matchEnd(state); k < end; k++) {
+            match(matches[k]);
+        }
+
+        if (recent.length > 0) {
+            if (recentCount == 0) {
+                push(' ');
+            }
+            push(lc);
+            hashNgrams(1);
+        }
+
+        return true;
+    }
+
+    /**
+     * Helper function used to add a character to the last characters
+     * of the current word.
+     *
+     * @param c char next character, or ' ' at either end of the word
+     */
+    private void push(char c) {
+
+        if (recentCount == recent.length) {
+            System.arraycopy(recent, 1, recent, 0, recentCount - 1);
+            recentCount--;
+        }
+
+        recent[recentCount++] = c;
+    }
+
+    /**
+     * Helper function used to answer the char-ngrams questions for the
+     * n-grams ending at the last character of the current word.
+     *
+     * @param minN Integer shortest n-gram length to hash
+     */
+    private void hashNgrams(int minN) {
+
+        for (int g = 0; g < ngramN.length; g++) {
+            int n = ngramN[g];
+
+            if (n < minN || n > recentCount) {
+                continue;
+            }
+
+            int hash = ngramBase[g];
+            for (int i = recentCount - n; i < recentCount; i++) {
+                hash = WordTable.hash(hash, recent[i]);
+            }
+
+            int feature = ngramBase[g] + FeatureRegistry.bucket(hash, ngramBuckets[g]);
+            answers[feature >>> 6] |= 1L << feature;
+        }
+    }
+
+    /**
+     * Helper function used to record a substring pattern found in
+     * the current word.
+     *
+     * @param pattern Integer index of the pattern
+     */
+    private void match(int pattern) {
+
+        int feature = patternFeature[pattern];
+
+        if (patternRole[pattern] == FeatureRegistry.ANY) {
+            answers[feature >>> 6] |= 1L << feature;
+        }
+        else if (patternRole[pattern] == FeatureRegistry.INCLUDE) {
+            if (featureSeen[feature] != serial) {
+                featureSeen[feature] = serial;
+                pending[pendingCount++] = feature;
+            }
+        }
+        else {
+            patternSeen[pattern] = serial;
+        }
+    }
+
+    /**
+     * Finishes the current word, adding its length and
+     * answering every question about it.
+     */
+    private void endWord() {
+
+        inWord = false;
+
+        if (words == 0 && training) {
+            if (labelLength == 2 && label0 == 'e' && label1 == 'n') {
+                label = ExampleMatrix.EN;
+            }
+            else if (labelLength == 2 && label0 == 'n' && label1 == 'l') {
+                label = ExampleMatrix.NL;
+            }
+        }
+
+        words++;
+        charCount += wordLength;
+
+        for (int i = 0; i < pendingCount; i++) {
+            int feature = pending[i];
+            boolean excluded = false;
+
+            for (int pattern : excludes[feature]) {
+                if (patternSeen[pattern] == serial) {
+                    excluded = true;
+                    break;
+                }
+            }
+
+            if (!excluded) {
+                answers[feature >>> 6] |= 1L << feature;
+            }
+        }
+        pendingCount = 0;
+
+        if (wordLength > 0) {
+            if (recent.length > 0) {
+                push(' ');
+                hashNgrams(2);
+            }
+
+            for (int g = 0; g < wordHashBase.length; g++) {
+                int feature = wordHashBase[g] + FeatureRegistry.bucket(wordHash ^ wordHashBase[g], wordHashBuckets[g]);
+                answers[feature >>> 6] |= 1L << feature;
+            }
+        }
+
+        if (wordLength <= word.length) {
+            int slot = wordTable.find(wordHash, word, wordLength);
+
+            if (slot >= 0) {
+                for (int k = wordTable.featureStart(slot); k < wordTable.featureEnd(slot); k++) {
+                    int feature = wordFeatures[k];
+                    answers[feature >>> 6] |= 1L << feature;
+                }
+            }
+        }
+
+        if (++serial == 0) {
+            Arrays.fill(patternSeen, 0);
+            Arrays.fill(featureSeen, 0);
+            serial = 1;
+        }
+    }
+
+    /**
+     * Helper function used to check if every question of the current
+     * sentence, or the result of the model the registry was compiled
+     * for, is already decided, so the rest of it can be skipped.
+     * Questions other than avg-length only change from False to True,
+     * so they are decided once True. An avg-length question over a
+     * fixed window is decided once it would be True even if no more
+     * characters were read. The model only ever depends on the True
+     * answers, so it is asked again only once another one turned True.
+     *
+     * @return True if no later word could change any answer
+     */
+    private boolean decided() {
+
+        boolean changed = false;
+        boolean all = true;
+
+        for (int w = 0; w < decidable.length; w++) {
+            long known = answers[w] & decidable[w];
+
+            if (known != checked[w]) {
+                checked[w] = known;
+                changed = true;
+            }
+            all &= known == decidable[w];
+        }
+
+        if (changed && decider != null && decider.decided(answers)) {
+            return true;
+        }
+        else if (!canDecide || !all) {
+            return false;
+        }
+
+        for (int i = 0; i < avgFeature.length; i++) {
+            if ((float) charCount / window < avgThreshold[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finishes the current sentence and stores its answers and
+     * label as a new row of the given chunk, which must have
+     * the registry's stride. The average word length is taken
+     * over the words analyzed, however few there were.
+     *
+     * @param chunk FeatureChunk to add the sentence's row to
+     */
+    public void finish(FeatureChunk chunk) {
+
+        if (inWord) {
+            endWord();
+        }
+
+        int analyzed = Math.min(words, window);
+        float avgCharCount = analyzed == 0 ? 0 : (float) charCount / analyzed;
+
+        for (int i = 0; i < avgFeature.length; i++) {
+            if (avgCharCount >= avgThreshold[i]) {
+                answers[avgFeature[i] >>> 6] |= 1L << avgFeature[i];
+            }
+        }
+
+        int row = chunk.addRow(label);
+        System.arraycopy(answers, 0, chunk.getFeatures(), row * answers.length, answers.length);
+    }
+
+    /**
+     * Answers every question for each line in a block of characters,
+     * adding one row per line to the given chunk.
+     *
+     * @param buf char[] block of characters
+     * @param start Integer index of the first character of the first line
+     * @param end Integer index after the last character of the last line
+     * @param chunk FeatureChunk to add each line's row to
+     */
+    public void featurizeLines(char[] buf, int start, int end, FeatureChunk chunk) {
+
+        int i = start;
+
+        while (i < end) {
+            if (cache == null) {
+                i = featurizeLine(buf, i, end, chunk) + 1;
+                continue;
+            }
+
+            int lineEnd = i;
+            while (lineEnd < end && buf[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            long key = LineCache.hash(buf, i, lineEnd);
+
+            if (!cache.fill(key, chunk)) {
+                featurizeLine(buf, i, lineEnd, chunk);
+                cache.store(key, chunk, chunk.size() - 1);
+            }
+            i = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Helper function used to answer every question for the line starting
+     * at an index of a block of characters, adding its row to the chunk.
+     *
+     * @param buf char[] block of characters
+     * @param i Integer index of the first character of the line
+     * @param end Integer index after the last character the line may use
+     * @param chunk FeatureChunk to add the line's row to
+     * @return Integer index of the line's '\n', or end if it has none
+     */
+    private int featurizeLine(char[] buf, int i, int end, FeatureChunk chunk) {
+
+        begin();
+
+        while (i < end && buf[i] != '\n') {
+            if (!accept(buf[i++])) {
+                while (i < end && buf[i] != '\n') {
+                    i++;
+                }
+            }
+        }
+
+        finish(chunk);
+        return i;
+    }
+
+    /**
+     * Answers every question for each line in a block of UTF-8 bytes,
+     * adding one row per line to the given chunk. Bytes are read with
+     * absolute gets, so the same buffer can be shared by every thread,
+     * and only characters that are needed are decoded, without creating
+     * a String for any line.
+     *
+     * @param buf ByteBuffer containing UTF-8 encoded lines
+     * @param start Integer index of the first byte of the first line
+     * @param end Integer index after the last byte of the last line
+     * @param chunk FeatureChunk to add each line's row to
+     */
+    public void featurizeLines(ByteBuffer buf, int start, int end, FeatureChunk chunk) {
+
+        int i = start;
+
+        while (i < end) {
+            if (cache == null) {
+                i = featurizeLine(buf, i, end, chunk) + 1;
+                continue;
+            }
+
+            int lineEnd = i;
+            while (lineEnd < end && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            long key = LineCache.hash(buf, i, lineEnd);
+
+            if (!cache.fill(key, chunk)) {
+                featurizeLine(buf, i, lineEnd, chunk);
+                cache.store(key, chunk, chunk.size() - 1);
+            }
+            i = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Helper function used to answer every question for the line starting
+     * at an index of a block of UTF-8 bytes, adding its row to the chunk.
+     *
+     * @param buf ByteBuffer containing UTF-8 encoded lines
+     * @param i Integer index of the first byte of the line
+     * @param end Integer index after the last byte the line may use
+     * @param chunk FeatureChunk to add the line's row to
+     * @return Integer index of the line's '\n', or end if it has none
+     */
+    private int featurizeLine(ByteBuffer buf, int i, int end, FeatureChunk chunk) {
+
+        begin();
+        boolean reading = true;
+
+        while (i < end) {
+            int b = buf.get(i);
+
+            if (b == '\n') {
+                break;
+            }
+            else if (!reading) {
+                i++;
+            }
+            else if (b >= 0) {
+                reading = accept((char) b);
+                i++;
+            }
+            else {
+                int length = (b & 0xE0) == 0xC0 ? 2 : (b & 0xF0) == 0xE0 ? 3 : (b & 0xF8) == 0xF0 ? 4 : 1;
+                int codePoint = length == 2 ? b & 0x1F : length == 3 ? b & 0x0F : b & 0x07;
+
+                for (int k = 1; k < length; k++) {
+                    int next = (i + k < end) ? buf.get(i + k) : 0;
+
+                    if ((next & 0xC0) != 0x80) {
+                        length = 1;
+                        break;
+                    }
+                    codePoint = (codePoint << 6) | (next & 0x3F);
+                }
+
+                if (length == 1) {
+                    reading = accept('\uFFFD');
+                }
+                else if (length == 4) {
+                    reading = accept(Character.highSurrogate(codePoint)) && accept(Character.lowSurrogate(codePoint));
+                }
+                else {
+                    reading = accept((char) codePoint);
+                }
+                i += length;
+            }
+        }
+
+        finish(chunk);
+        return i;
+    }
+}
@@ -0,0 +1,367 @@
+package edu.rit.csci331.lab3.features;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Training examples spilled to a compact columnar file on disk,
+ * used to train on inputs larger than the heap. Examples are
+ * stored in blocks of up to BLOCK_ROWS rows, and each block is
+ * laid out by column, the same as an ExampleMatrix:
+ *
+ *   int magic "LNGS", int column count, then for each block:
+ *   int row count r, long[w] en bitset, long[w] nl bitset,
+ *   and long[w] bitset of each column, where w = ceil(r / 64).
+ *
+ * Every answer takes one bit, and only one block is ever held in
+ * memory, while it is being written or scanned, so heap use does
+ * not depend on the number of examples. Learners make sequential
+ * passes over the blocks with forEachBlock().
+ * The file is deleted when it is closed.
+ */
+public class SpillFile implements AutoCloseable {
+
+    /** First four bytes of every spill file, "LNGS" */
+    static final int MAGIC = 0x4C4E4753;
+
+    /** Number of examples stored in each block */
+    public static final int BLOCK_ROWS = 1 << 14;
+
+    /** Size of the file header */
+    private static final int HEADER = 8;
+
+    /** Path of the file */
+    private final Path path;
+
+    /** Channel the file is written and read through */
+    private final FileChannel channel;
+
+    /** Names of the columns, in column order */
+    private final String[] attributes;
+
+    /** Block currently being written */
+    private final Block block;
+
+    /** Buffer holding one block's bytes */
+    private final ByteBuffer buf;
+
+    /** Number of bytes written */
+    private long length;
+
+    /** Number of examples written */
+    private int size;
+
+    /** Boolean indicating if the last block has been written */
+    private boolean finished;
+
+    /**
+     * Constructor for SpillFile class, creating an empty file in the
+     * given directory.
+     *
+     * @param directory Path of the directory to create the file in
+     * @param attributes String[] name of each column
+     * @throws IOException if the file cannot be created
+     */
+    public SpillFile(Path directory, String[] attributes) throws IOException {
+        this.path = Files.createTempFile(directory, "lab3-", ".spill");
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.attributes = attributes;
+        this.block = new Block(attributes.length);
+        this.buf = ByteBuffer.allocateDirect(4 + (2 + attributes.length) * (BLOCK_ROWS / 64) * 8);
+
+        path.toFile().deleteOnExit();
+
+        buf.putInt(MAGIC);
+        buf.putInt(attributes.length);
+        buf.flip();
+        write();
+    }
+
+    /**
+     * Appends every row of a chunk of examples, writing out each
+     * block as soon as it is full. Question q of a row is stored
+     * in column q.
+     *
+     * @param chunk FeatureChunk of examples to add
+     */
+    public void addExamples(FeatureChunk chunk) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+        int words = Math.min(stride, (attributes.length + 63) >>> 6);
+
+        for (int row = 0; row < chunk.size(); row++) {
+            int r = block.rows++;
+            int word = r >>> 6;
+            long bit = 1L << r;
+
+            if (chunk.getLabel(row) == ExampleMatrix.EN) {
+                block.en[word] |= bit;
+            }
+            else if (chunk.getLabel(row) == ExampleMatrix.NL) {
+                block.nl[word] |= bit;
+            }
+
+            for (int w = 0; w < words; w++) {
+                long answers = features[row * stride + w];
+
+                while (answers != 0) {
+                    int q = (w << 6) + Long.numberOfTrailingZeros(answers);
+                    answers &= answers - 1;
+
+                    if (q < attributes.length) {
+                        block.columns[q][word] |= bit;
+                    }
+                }
+            }
+
+            if (block.rows == BLOCK_ROWS) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * Writes the last, partly filled block. No more examples can be
+     * added afterwards.
+     */
+    public void finish() {
+
+        if (!finished && block.rows > 0) {
+            writeBlock();
+        }
+        finished = true;
+    }
+
+    /**
+     * Helper function used to write out the current block and clear it.
+     */
+    private void writeBlock() {
+
+        int words = block.words();
+
+        buf.clear();
+        buf.putInt(block.rows);
+
+        LongBuffer longs = buf.asLongBuffer();
+        longs.put(block.en, 0, words);
+        longs.put(block.nl, 0, words);
+        for (long[] column : block.columns) {
+            longs.put(column, 0, words);
+        }
+
+        buf.position(4 + longs.position() * 8);
+        buf.flip();
+        write();
+
+        size += block.rows;
+        block.clear();
+    }
+
+    /**
+     * Helper function used to append the contents of the buffer to the file.
+     */
+    private void write() {
+
+        try {
+            while (buf.hasRemaining()) {
+                length += channel.write(buf, length);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Scans every block of the file in order. The same Block object
+     * is reused for every block, so it must not be kept by the action.
+     *
+     * @param action Consumer<Block> called with each block, in order
+     */
+    public void forEachBlock(Consumer<Block> action) {
+
+        finish();
+
+        try {
+            long position = HEADER;
+
+            while (position < length) {
+                buf.clear().limit(4);
+                read(position);
+                int rows = buf.getInt(0);
+                int words = (rows + 63) >>> 6;
+
+                buf.clear().limit((2 + attributes.length) * words * 8);
+                read(position + 4);
+
+                LongBuffer longs = buf.asLongBuffer();
+                block.clear();
+                block.rows = rows;
+                longs.get(block.en, 0, words);
+                longs.get(block.nl, 0, words);
+                for (long[] column : block.columns) {
+                    longs.get(column, 0, words);
+                }
+
+                action.accept(block);
+                position += 4 + (long) (2 + attributes.length) * words * 8;
+            }
+
+            block.clear();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper function used to fill the buffer from the file.
+     *
+     * @param position Long position to read from
+     * @throws IOException if the file cannot be read
+     */
+    private void read(long position) throws IOException {
+
+        while (buf.hasRemaining()) {
+            int read = channel.read(buf, position);
+
+            if (read < 0) {
+                throw new IOException("Spill file " + path + " ends in the middle of a block");
+            }
+            position += read;
+        }
+        buf.flip();
+    }
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for String[] attributes
+     *
+     * @return String[] attributes
+     */
+    public String[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Getter for Path path
+     *
+     * @return Path path
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Closes and deletes the file.
+     *
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * One block of examples, laid out by column. Bit r of each
+     * bitset is the r-th example of the block.
+     */
+    public static class Block {
+
+        /** Number of examples in the block */
+        private int rows;
+
+        /** Bitsets of the examples labelled en and nl */
+        private final long[] en, nl;
+
+        /** Bitset of the examples answering True, for each column */
+        private final long[][] columns;
+
+        /**
+         * Constructor for Block class
+         *
+         * @param columns Integer number of columns
+         */
+        Block(int columns) {
+            this.en = new long[BLOCK_ROWS / 64];
+            this.nl = new long[BLOCK_ROWS / 64];
+            this.columns = new long[columns][BLOCK_ROWS / 64];
+        }
+
+        /**
+         * Helper function used to clear every bit of the block.
+         */
+        private void clear() {
+
+            int words = words();
+
+            Arrays.fill(en, 0, words, 0L);
+            Arrays.fill(nl, 0, words, 0L);
+            for (long[] column : columns) {
+                Arrays.fill(column, 0, words, 0L);
+            }
+            rows = 0;
+        }
+
+        /**
+         * Getter for the number of examples
+         *
+         * @return Integer number of examples in the block
+         */
+        public int size() {
+            return rows;
+        }
+
+        /**
+         * Getter for the number of bitset words
+         *
+         * @return Integer number of long words used by each bitset
+         */
+        public int words() {
+            return (rows + 63) >>> 6;
+        }
+
+        /**
+         * Getter for long[] en
+         *
+         * @return long[] en
+         */
+        public long[] getEnRows() {
+            return en;
+        }
+
+        /**
+         * Getter for long[] nl
+         *
+         * @return long[] nl
+         */
+        public long[] getNlRows() {
+            return nl;
+        }
+
+        /**
+         * Getter for the bitset of a column
+         *
+         * @param attr Integer column index
+         * @return long[] bitset of the examples answering True
+         */
+        public long[] getColumn(int attr) {
+            return columns[attr];
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package edu.rit.csci331.lab3.features;
+
+import edu.rit.csci331.lab3.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streaming, parallel pipeline used to answer the questions
+ * of every example in an input. The input is read in blocks
+ * of whole lines, each block is featurized on a pool of worker
+ * threads, and the resulting FeatureChunks are handed to a
+ * sink in input order as soon as they are ready. Only a few
+ * blocks are ever in flight, so memory stays bounded no matter
+ * how large the input is.
+ * Files can also be memory-mapped instead of read, in which
+ * case the workers scan the UTF-8 bytes of the mapping directly.
+ * If Metrics are enabled, reading, splitting into lines and
+ * featurizing are each timed once per block.
+ */
+public class StreamingExtractor implements AutoCloseable {
+
+    /** Number of characters read into each block */
+    static final int BLOCK_CHARS = 1 << 20;
+
+    /** Number of bytes of a mapped file scanned in each block */
+    static final int BLOCK_BYTES = 1 << 22;
+
+    /** Number of bytes of a file mapped at once */
+    static final int MAP_BYTES = 1 << 30;
+
+    /** Estimated number of rows per block, used to size each chunk */
+    private static final int ROWS_PER_BLOCK = BLOCK_CHARS / 64;
+
+    /** Pool of worker threads featurizing blocks */
+    private final ExecutorService pool;
+
+    /** Number of worker threads */
+    private final int threads;
+
+    /** One scanner per worker thread */
+    private final ThreadLocal<SentenceFeaturizer> featurizers;
+
+    /** Number of long words of each row */
+    private final int stride;
+
+    /**
+     * Constructor for StreamingExtractor class
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param training Boolean indicating if each line starts with a label
+     * @param threads Integer number of worker threads to use
+     */
+    public StreamingExtractor(FeatureRegistry features, boolean training, int threads) {
+        this(features, ThreadLocal.withInitial(() -> new SentenceFeaturizer(training, features)), threads);
+    }
+
+    /**
+     * Constructor for StreamingExtractor class, predicting through a
+     * cache. Each row handed to the sink is labelled with the prediction
+     * for its line, taken from the cache or classified by its labeler.
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param cache LineCache of lines already predicted
+     * @param threads Integer number of worker threads to use
+     */
+    public StreamingExtractor(FeatureRegistry features, LineCache cache, int threads) {
+        this(features, ThreadLocal.withInitial(() -> new SentenceFeaturizer(features, cache)), threads);
+    }
+
+    /**
+     * Helper constructor for StreamingExtractor class
+     *
+     * @param features FeatureRegistry of the questions to answer
+     * @param featurizers ThreadLocal<SentenceFeaturizer> scanner of each worker thread
+     * @param threads Integer number of worker threads to use
+     */
+    private StreamingExtractor(FeatureRegistry features, ThreadLocal<SentenceFeaturizer> featurizers, int threads) {
+        this.threads = Math.max(1, threads);
+        this.stride = features.getStride();
+        this.featurizers = featurizers;
+        this.pool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "extractor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Reads every line of the given input, answering the questions for
+     * each line in parallel and passing the rows on to the sink in the
+     * same order as the lines were read.
+     *
+     * @param in Reader containing one example per line
+     * @param sink Consumer<FeatureChunk> receiving each chunk of rows
+     * @throws IOException if the input cannot be read
+     */
+    public void extract(Reader in, Consumer<FeatureChunk> sink) throws IOException {
+
+        ArrayDeque<Future<FeatureChunk>> inFlight = new ArrayDeque<>();
+        char[] block = new char[BLOCK_CHARS];
+        int filled = 0;
+        int read;
+
+        while ((read = read(in, block, filled)) != -1) {
+            filled += read;
+
+            if (filled < block.length) {
+                continue;
+            }
+
+            long start = Metrics.start();
+            int end = filled;
+            while (end > 0 && block[end - 1] != '\n') {
+                end--;
+            }
+
+            if (end == 0) {
+                block = Arrays.copyOf(block, block.length << 1);
+                continue;
+            }
+
+            char[] next = new char[Math.max(BLOCK_CHARS, (filled - end) << 1)];
+            System.arraycopy(block, end, next, 0, filled - end);
+
+            if (Metrics.ENABLED) {
+                Metrics.stage(Metrics.Stage.TOKENIZE, start, 0, 0);
+            }
+
+            submit(inFlight, charTask(block, end), sink);
+
+            block = next;
+            filled -= end;
+        }
+
+        if (filled > 0) {
+            submit(inFlight, charTask(block, filled), sink);
+        }
+
+        while (!inFlight.isEmpty()) {
+            sink.accept(take(inFlight));
+        }
+    }
+
+    /**
+     * Memory-maps the given file and answers the questions for each of its
+     * lines in parallel, passing the rows on to the sink in the same order
+     * as the lines appear. Line boundaries and labels are found directly
+     * in the mapped UTF-8 bytes, so no line is ever decoded into a String.
+     * Files larger than MAP_BYTES are mapped one region at a time, each
+     * region ending on a line boundary.
+     *
+     * @param file Path of a UTF-8 file containing one example per line
+     * @param sink Consumer<FeatureChunk> receiving each chunk of rows
+     * @throws IOException if the file cannot be mapped
+     */
+    public void extract(Path file, Consumer<FeatureChunk> sink) throws IOException {
+
+        ArrayDeque<Future<FeatureChunk>> inFlight = new ArrayDeque<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+
+            while (position < fileSize) {
+                int regionSize = (int) Math.min(MAP_BYTES, fileSize - position);
+                long mapStart = Metrics.start();
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, regionSize);
+                boolean last = position + regionSize == fileSize;
+
+                if (Metrics.ENABLED) {
+                    Metrics.stage(Metrics.Stage.READ, mapStart, 0, regionSize);
+                }
+
+                int regionEnd = last ? regionSize : lastLineEnd(region, 0, regionSize);
+                if (regionEnd == 0) {
+                    throw new IOException("Line longer than " + MAP_BYTES + " bytes at offset " + position);
+                }
+
+                int start = 0;
+                while (start < regionEnd) {
+                    long splitStart = Metrics.start();
+                    int end = Math.min(start + BLOCK_BYTES, regionEnd);
+
+                    if (end < regionEnd) {
+                        int lineEnd = lastLineEnd(region, start, end);
+                        end = lineEnd > start ? lineEnd : nextLineEnd(region, end, regionEnd);
+                    }
+
+                    if (Metrics.ENABLED) {
+                        Metrics.stage(Metrics.Stage.TOKENIZE, splitStart, 0, 0);
+                    }
+
+                    submit(inFlight, byteTask(region, start, end), sink);
+                    start = end;
+                }
+
+                position += regionEnd;
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            sink.accept(take(inFlight));
+        }
+    }
+
+    /**
+     * Helper function used to read as many characters as are available
+     * into the rest of a block, timing the read if Metrics are enabled.
+     *
+     * @param in Reader to read from
+     * @param block char[] block of characters
+     * @param filled Integer number of characters already in the block
+     * @return Integer number of characters read, or -1 at the end of the input
+     * @throws IOException if the input cannot be read
+     */
+    private static int read(Reader in, char[] block, int filled) throws IOException {
+
+        long start = Metrics.start();
+        int read = in.read(block, filled, block.length - filled);
+
+        if (Metrics.ENABLED) {
+            Metrics.stage(Metrics.Stage.READ, start, 0, Math.max(read, 0));
+        }
+
+        return read;
+    }
+
+    /**
+     * Helper function used to find the end of the last whole line in a
+     * range of bytes.
+     *
+     * @param buf ByteBuffer to search
+     * @param start Integer index of the first byte of the range
+     * @param end Integer index after the last byte of the range
+     * @return Integer index after the last newline in the range, or
+     *         start if the range contains no newline.
+     */
+    private static int lastLineEnd(ByteBuffer buf, int start, int end) {
+
+        for (int i = end - 1; i >= start; i--) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return start;
+    }
+
+    /**
+     * Helper function used to find the end of the line containing a byte.
+     *
+     * @param buf ByteBuffer to search
+     * @param start Integer index of the byte
+     * @param end Integer index after the last byte that may be searched
+     * @return Integer index after the next newline, or end if there is none.
+     */
+    private static int nextLineEnd(ByteBuffer buf, int start, int end) {
+
+        for (int i = start; i < end; i++) {
+            if (buf.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+
+        return end;
+    }
+
+    /**
+     * Helper function used to create a task featurizing a block of
+     * whole lines of characters.
+     *
+     * @param block char[] block of characters
+     * @param end Integer index after the last character of the last line
+     * @return Callable<FeatureChunk> returning the rows of the block
+     */
+    private Callable<FeatureChunk> charTask(char[] block, int end) {
+        return () -> {
+            long taskStart = Metrics.start();
+            FeatureChunk chunk = new FeatureChunk(stride, ROWS_PER_BLOCK);
+            featurizers.get().featurizeLines(block, 0, end, chunk);
+
+            if (Metrics.ENABLED) {
+                Metrics.stage(Metrics.Stage.FEATURIZE, taskStart, chunk.size(), 0);
+            }
+            return chunk;
+        };
+    }
+
+    /**
+     * Helper function used to create a task featurizing a block of
+     * whole lines of mapped bytes.
+     *
+     * @param region ByteBuffer mapped region of the file
+     * @param start Integer index of the first byte of the first line
+     * @param end Integer index after the last byte of the last line
+     * @return Callable<FeatureChunk> returning the rows of the block
+     */
+    private Callable<FeatureChunk> byteTask(ByteBuffer region, int start, int end) {
+        return () -> {
+            long taskStart = Metrics.start();
+            FeatureChunk chunk = new FeatureChunk(stride, ROWS_PER_BLOCK);
+            featurizers.get().featurizeLines(region, start, end, chunk);
+
+            if (Metrics.ENABLED) {
+                Metrics.stage(Metrics.Stage.FEATURIZE, taskStart, chunk.size(), 0);
+            }
+            return chunk;
+        };
+    }
+
+    /**
+     * Helper function used to queue a block of whole lines for
+     * featurizing, first passing finished chunks on to the sink
+     * if too many blocks are already in flight.
+     *
+     * @param inFlight ArrayDeque<Future<FeatureChunk>> blocks queued, in input order
+     * @param task Callable<FeatureChunk> featurizing the block
+     * @param sink Consumer<FeatureChunk> receiving each chunk of rows
+     */
+    private void submit(ArrayDeque<Future<FeatureChunk>> inFlight, Callable<FeatureChunk> task, Consumer<FeatureChunk> sink) {
+
+        while (inFlight.size() >= threads * 2) {
+            sink.accept(take(inFlight));
+        }
+
+        inFlight.add(pool.submit(task));
+    }
+
+    /**
+     * Helper function used to wait for the oldest block in flight.
+     *
+     * @param inFlight ArrayDeque<Future<FeatureChunk>> blocks queued, in input order
+     * @return FeatureChunk containing the rows of the oldest block
+     */
+    private static FeatureChunk take(ArrayDeque<Future<FeatureChunk>> inFlight) {
+
+        try {
+            return inFlight.poll().get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Shuts down the worker threads.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,224 @@
+package edu.rit.csci331.lab3.features;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton matching every substring pattern of a
+ * FeatureRegistry at once. A word is fed to it one character at
+ * a time, and after each character the automaton's state lists
+ * every pattern that ends at that character, so a word is
+ * scanned once no matter how many patterns there are.
+ *
+ * Characters are first mapped to a class: one class for each
+ * distinct character used by a pattern, and class 0 for every
+ * other character. The transitions are then a dense table with
+ * one row per state and one column per class, built with the
+ * failure links already followed, so each step is a single
+ * array lookup.
+ */
+class SubstringAutomaton {
+
+    /** State at the start of every word */
+    static final int ROOT = 0;
+
+    /** Class of each ASCII character */
+    private final byte[] asciiClass = new byte[128];
+
+    /** Sorted non-ASCII characters used by the patterns */
+    private final char[] otherChars;
+
+    /** Class of each character in otherChars */
+    private final int[] otherClass;
+
+    /** Number of character classes, including class 0 */
+    private final int classes;
+
+    /** Next state for each state and class, at state * classes + class */
+    private final int[] next;
+
+    /** Index in matches of the first pattern ending at each state, and one past the last state */
+    private final int[] matchStart;
+
+    /** Index of each pattern ending at each state, grouped by state */
+    private final int[] matches;
+
+    /**
+     * Constructor for SubstringAutomaton class, building the automaton
+     * for the given patterns.
+     *
+     * @param patterns List<String> lowercase patterns, identified by their index
+     */
+    SubstringAutomaton(List<String> patterns) {
+
+        TreeSet<Character> chars = new TreeSet<>();
+        for (String pattern : patterns) {
+            for (char c : pattern.toCharArray()) {
+                chars.add(c);
+            }
+        }
+
+        int other = 0;
+        for (char c : chars) {
+            if (c >= 128) {
+                other++;
+            }
+        }
+
+        otherChars = new char[other];
+        otherClass = new int[other];
+        int cls = 1;
+        other = 0;
+
+        for (char c : chars) {
+            if (c < 128) {
+                asciiClass[c] = (byte) cls++;
+            }
+            else {
+                otherChars[other] = c;
+                otherClass[other++] = cls++;
+            }
+        }
+        classes = cls;
+
+        // Trie of the patterns, with -1 for a missing transition
+        List<int[]> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(newRow());
+        ends.add(new ArrayList<>());
+
+        for (int p = 0; p < patterns.size(); p++) {
+            int state = ROOT;
+
+            for (char c : patterns.get(p).toCharArray()) {
+                int k = classOf(c);
+
+                if (trie.get(state)[k] < 0) {
+                    trie.get(state)[k] = trie.size();
+                    trie.add(newRow());
+                    ends.add(new ArrayList<>());
+                }
+                state = trie.get(state)[k];
+            }
+            ends.get(state).add(p);
+        }
+
+        // Breadth-first pass filling in failure transitions and outputs
+        int states = trie.size();
+        int[] fail = new int[states];
+        next = new int[states * classes];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int k = 0; k < classes; k++) {
+            int child = trie.get(ROOT)[k];
+
+            if (child > 0) {
+                next[k] = child;
+                fail[child] = ROOT;
+                queue.add(child);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            ends.get(state).addAll(ends.get(fail[state]));
+
+            for (int k = 0; k < classes; k++) {
+                int child = trie.get(state)[k];
+
+                if (child > 0) {
+                    next[state * classes + k] = child;
+                    fail[child] = next[fail[state] * classes + k];
+                    queue.add(child);
+                }
+                else {
+                    next[state * classes + k] = next[fail[state] * classes + k];
+                }
+            }
+        }
+
+        matchStart = new int[states + 1];
+        for (int s = 0; s < states; s++) {
+            matchStart[s + 1] = matchStart[s] + ends.get(s).size();
+        }
+
+        matches = new int[matchStart[states]];
+        for (int s = 0; s < states; s++) {
+            for (int i = 0; i < ends.get(s).size(); i++) {
+                matches[matchStart[s] + i] = ends.get(s).get(i);
+            }
+        }
+    }
+
+    /**
+     * Helper function used to create a trie row with no transitions.
+     *
+     * @return int[] row of -1 for every class
+     */
+    private int[] newRow() {
+
+        int[] row = new int[classes];
+        Arrays.fill(row, -1);
+
+        return row;
+    }
+
+    /**
+     * Finds the class of a character.
+     *
+     * @param c char lowercase character
+     * @return Integer class of the character, 0 if no pattern uses it
+     */
+    private int classOf(char c) {
+
+        if (c < 128) {
+            return asciiClass[c];
+        }
+
+        int i = Arrays.binarySearch(otherChars, c);
+        return i >= 0 ? otherClass[i] : 0;
+    }
+
+    /**
+     * Moves the automaton on by one character.
+     *
+     * @param state Integer current state
+     * @param c char next lowercase character of the word
+     * @return Integer next state
+     */
+    int step(int state, char c) {
+        return next[state * classes + classOf(c)];
+    }
+
+    /**
+     * Finds the first of the patterns ending at a state.
+     *
+     * @param state Integer state of the automaton
+     * @return Integer index in getMatches() of the first pattern
+     */
+    int matchStart(int state) {
+        return matchStart[state];
+    }
+
+    /**
+     * Finds the end of the patterns ending at a state.
+     *
+     * @param state Integer state of the automaton
+     * @return Integer index in getMatches() after the last pattern
+     */
+    int matchEnd(int state) {
+        return matchStart[state + 1];
+    }
+
+    /**
+     * Getter for int[] matches
+     *
+     * @return int[] matches
+     */
+    int[] getMatches() {
+        return matches;
+    }
+}
@@ -0,0 +1,226 @@
+package edu.rit.csci331.lab3.features;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Perfect hash table of the whole words a FeatureRegistry looks
+ * for. Words are hashed as they are scanned, one character at a
+ * time with hash(), and looked up once they end, so finding every
+ * feature a word answers costs a single probe and comparison no
+ * matter how many words there are. The multiplier used to turn a
+ * hash into a slot is searched for when the table is built, so
+ * that no two words share a slot.
+ */
+class WordTable {
+
+    /** Hash of a word before its first character */
+    static final int EMPTY_HASH = 0;
+
+    /** Multiplier tried first when searching for a perfect hash */
+    private static final int FIRST_MULTIPLIER = 0x9E3779B9;
+
+    /** Number of multipliers tried for each table size before doubling it */
+    private static final int ATTEMPTS = 64;
+
+    /** Number of bits of a slot index */
+    private final int bits;
+
+    /** Multiplier turning a word's hash into its slot */
+    private final int multiplier;
+
+    /** Word stored in each slot, or null if the slot is empty */
+    private final char[][] slotWord;
+
+    /** Index in features of the first feature of each slot, and one past the last slot */
+    private final int[] featureStart;
+
+    /** Index of each feature answered by each slot's word, grouped by slot */
+    private final int[] features;
+
+    /** Length of the longest word */
+    private final int maxLength;
+
+    /**
+     * Constructor for WordTable class, building a perfect hash table
+     * of the given words.
+     *
+     * @param words Map<String, List<Integer>> lowercase words, each with
+     *              the index of every feature it answers True
+     */
+    WordTable(Map<String, List<Integer>> words) {
+
+        List<String> keys = new ArrayList<>(words.keySet());
+        int size = Integer.highestOneBit(Math.max(1, keys.size() * 2 - 1)) << 1;
+        int length = 0;
+
+        for (String key : keys) {
+            length = Math.max(length, key.length());
+        }
+        maxLength = length;
+
+        int tries = 0;
+        int mult = FIRST_MULTIPLIER;
+
+        while (!isPerfect(keys, size, mult)) {
+            if (++tries == ATTEMPTS) {
+                size <<= 1;
+                tries = 0;
+            }
+            mult += 0x6A09E667 << 1;
+        }
+
+        bits = Integer.numberOfTrailingZeros(size);
+        multiplier = mult | 1;
+        slotWord = new char[size][];
+        featureStart = new int[size + 1];
+
+        int[] slotOf = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            slotOf[i] = slot(hash(keys.get(i)));
+            slotWord[slotOf[i]] = keys.get(i).toCharArray();
+            featureStart[slotOf[i] + 1] = words.get(keys.get(i)).size();
+        }
+
+        for (int s = 0; s < size; s++) {
+            featureStart[s + 1] += featureStart[s];
+        }
+
+        features = new int[featureStart[size]];
+        for (int i = 0; i < keys.size(); i++) {
+            List<Integer> answered = words.get(keys.get(i));
+
+            for (int f = 0; f < answered.size(); f++) {
+                features[featureStart[slotOf[i]] + f] = answered.get(f);
+            }
+        }
+    }
+
+    /**
+     * Helper function used to check if a multiplier puts every word in
+     * its own slot.
+     *
+     * @param keys List<String> words
+     * @param size Integer number of slots, a power of 2
+     * @param mult Integer multiplier to check
+     * @return True if no two words share a slot
+     */
+    private static boolean isPerfect(List<String> keys, int size, int mult) {
+
+        int bits = Integer.numberOfTrailingZeros(size);
+        boolean[] used = new boolean[size];
+
+        for (String key : keys) {
+            int s = (hash(key) * (mult | 1)) >>> (32 - bits);
+
+            if (used[s]) {
+                return false;
+            }
+            used[s] = true;
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the next character of a word to its hash.
+     *
+     * @param hash Integer hash of the word so far
+     * @param c char next lowercase character
+     * @return Integer hash of the word including c
+     */
+    static int hash(int hash, char c) {
+        return hash * 31 + c;
+    }
+
+    /**
+     * Helper function used to hash a whole word.
+     *
+     * @param word String lowercase word
+     * @return Integer hash of the word
+     */
+    private static int hash(String word) {
+
+        int hash = EMPTY_HASH;
+        for (int i = 0; i < word.length(); i++) {
+            hash = hash(hash, word.charAt(i));
+        }
+
+        return hash;
+    }
+
+    /**
+     * Helper function used to find the only slot a word may be in.
+     *
+     * @param hash Integer hash of the word
+     * @return Integer slot index
+     */
+    private int slot(int hash) {
+        return (hash * multiplier) >>> (32 - bits);
+    }
+
+    /**
+     * Looks up a scanned word.
+     *
+     * @param hash Integer hash of the word, from hash()
+     * @param word char[] first characters of the word
+     * @param length Integer length of the word, at most maxLength()
+     * @return Integer slot of the word, or -1 if it is not in the table
+     */
+    int find(int hash, char[] word, int length) {
+
+        int s = slot(hash);
+        char[] key = slotWord[s];
+
+        if (key == null || key.length != length) {
+            return -1;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (key[i] != word[i]) {
+                return -1;
+            }
+        }
+
+        return s;
+    }
+
+    /**
+     * Finds the first feature answered by the word in a slot.
+     *
+     * @param slot Integer slot from find()
+     * @return Integer index in getFeatures() of the first feature
+     */
+    int featureStart(int slot) {
+        return featureStart[slot];
+    }
+
+    /**
+     * Finds the end of the features answered by the word in a slot.
+     *
+     * @param slot Integer slot from find()
+     * @return Integer index in getFeatures() after the last feature
+     */
+    int featureEnd(int slot) {
+        return featureStart[slot + 1];
+    }
+
+    /**
+     * Getter for int[] features
+     *
+     * @return int[] features
+     */
+    int[] getFeatures() {
+        return features;
+    }
+
+    /**
+     * Getter for the length of the longest word
+     *
+     * @return Integer length of the longest word
+     */
+    int maxLength() {
+        return maxLength;
+    }
+}
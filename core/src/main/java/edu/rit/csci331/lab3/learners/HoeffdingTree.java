@@ -0,0 +1,268 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+import edu.rit.csci331.lab3.model.Node;
+
+/**
+ * Decision Tree learned online, one example at a time, from a
+ * stream of labelled sentences (a Hoeffding tree). Each leaf keeps
+ * the class count table of the examples that reached it, the same
+ * table decisionTreeLearning() picks questions from, and updates it
+ * as each example arrives. Every GRACE_PERIOD examples, a leaf
+ * checks whether the importance of its best question beats that of
+ * the second best by more than the Hoeffding bound
+ *
+ *   epsilon = sqrt(ln(1 / delta) / (2n)),
+ *
+ * for n examples and an importance range of 1 bit. If it does, the
+ * best question would, with probability 1 - delta, also be picked
+ * from every example of the stream, so the leaf is split on it and
+ * its two new leaves start counting from zero. Only the tables of
+ * the current leaves are kept, so memory does not grow with the
+ * length of the stream, and snapshot() can be called at any time to
+ * get the tree learned so far.
+ * This class is not thread safe; a single thread should learn from
+ * the stream and take the snapshots.
+ */
+public class HoeffdingTree {
+
+    /** Default number of examples a leaf sees between split checks */
+    public static final int GRACE_PERIOD = 200;
+
+    /** Default probability of splitting on a different question than the whole stream would */
+    public static final double DELTA = 1e-7;
+
+    /** Bound below which two nearly tied questions are split on anyway */
+    public static final double TIE_THRESHOLD = 0.05;
+
+    /**
+     * A node of the tree being learned: a leaf counting its examples,
+     * or a question whose two children are nodes.
+     */
+    private static class Vertex {
+
+        /** Column index of the question asked, or -1 for a leaf */
+        private int feature = -1;
+
+        /** Children of a question node */
+        private Vertex trueChild, falseChild;
+
+        /** Column index of each question a leaf may still split on */
+        private final int[] attributes;
+
+        /** Class count table of the examples that reached a leaf, laid out as by SplitCounter */
+        private int[] counts;
+
+        /** Result of a leaf before any of its examples has been labelled */
+        private final String fallback;
+
+        /** Number of examples a leaf has seen since its last split check */
+        private int sinceCheck;
+
+        /**
+         * Constructor for Vertex class, creating a leaf
+         *
+         * @param attributes int[] column index of each remaining question
+         * @param fallback String result of the leaf until it has examples
+         */
+        Vertex(int[] attributes, String fallback) {
+            this.attributes = attributes;
+            this.counts = new int[attributes.length * 2 + 2];
+            this.fallback = fallback;
+        }
+    }
+
+    /** Question of each column */
+    private final String[] names;
+
+    /** Number of examples a leaf sees between split checks */
+    private final int gracePeriod;
+
+    /** Probability of splitting on a different question than the whole stream would */
+    private final double delta;
+
+    /** Root of the tree */
+    private final Vertex root;
+
+    /** Number of labelled examples learned from */
+    private long examples;
+
+    /** Number of leaves split */
+    private int splits;
+
+    /**
+     * Constructor for HoeffdingTree class
+     *
+     * @param names String[] question of each column, indexed the same as the feature bits
+     * @param gracePeriod Integer number of examples a leaf sees between split checks
+     * @param delta Double probability of splitting on a different question than
+     *              the whole stream would
+     */
+    public HoeffdingTree(String[] names, int gracePeriod, double delta) {
+        this.names = names;
+        this.gracePeriod = Math.max(1, gracePeriod);
+        this.delta = delta;
+
+        int[] attributes = new int[names.length];
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = i;
+        }
+        this.root = new Vertex(attributes, "en");
+    }
+
+    /**
+     * Learns from every labelled row of a chunk, in order. Rows without
+     * an en or nl label are skipped.
+     *
+     * @param chunk FeatureChunk of examples
+     */
+    public void learn(FeatureChunk chunk) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+
+        for (int row = 0; row < chunk.size(); row++) {
+            byte label = chunk.getLabel(row);
+
+            if (label == ExampleMatrix.EN || label == ExampleMatrix.NL) {
+                learn(features, row * stride, label);
+            }
+        }
+    }
+
+    /**
+     * Learns from one packed feature row, adding it to the counts of the
+     * leaf it reaches and splitting that leaf if its grace period is over
+     * and the Hoeffding bound allows it.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @param label byte label of the row, ExampleMatrix.EN or NL
+     */
+    public void learn(long[] features, int offset, byte label) {
+
+        Vertex leaf = root;
+
+        while (leaf.feature >= 0) {
+            int f = leaf.feature;
+            leaf = (features[offset + (f >>> 6)] & (1L << f)) != 0 ? leaf.trueChild : leaf.falseChild;
+        }
+
+        int[] counts = leaf.counts;
+
+        for (int i = 0; i < leaf.attributes.length; i++) {
+            int f = leaf.attributes[i];
+
+            if ((features[offset + (f >>> 6)] & (1L << f)) != 0) {
+                counts[2 * i + label]++;
+            }
+        }
+        counts[counts.length - 2 + label]++;
+        examples++;
+
+        if (++leaf.sinceCheck >= gracePeriod) {
+            leaf.sinceCheck = 0;
+            trySplit(leaf);
+        }
+    }
+
+    /**
+     * Helper function used to split a leaf on its best question if the
+     * Hoeffding bound shows it is better than the second best, or if the
+     * two are so close that it no longer matters which is picked.
+     *
+     * @param leaf Vertex leaf to check
+     */
+    private void trySplit(Vertex leaf) {
+
+        int[] counts = leaf.counts;
+        int n = counts[counts.length - 2] + counts[counts.length - 1];
+
+        if (leaf.attributes.length == 0 || counts[counts.length - 2] == 0 || counts[counts.length - 1] == 0) {
+            return;
+        }
+
+        int best = Learning.bestAttribute(counts, leaf.attributes.length);
+        double bestImportance = Learning.importance(counts, best);
+        double secondImportance = 0;
+
+        for (int i = 0; i < leaf.attributes.length; i++) {
+            if (i != best) {
+                secondImportance = Math.max(secondImportance, Learning.importance(counts, i));
+            }
+        }
+
+        double epsilon = Math.sqrt(Math.log(1 / delta) / (2.0 * n));
+
+        if (bestImportance <= 0 || (bestImportance - secondImportance <= epsilon && epsilon >= TIE_THRESHOLD)) {
+            return;
+        }
+
+        int[] remaining = Learning.without(leaf.attributes, leaf.attributes[best]);
+        int aTrue = counts[2 * best];
+        int bTrue = counts[2 * best + 1];
+        int aFalse = counts[counts.length - 2] - aTrue;
+        int bFalse = counts[counts.length - 1] - bTrue;
+
+        leaf.trueChild = new Vertex(remaining, aTrue >= bTrue ? "en" : "nl");
+        leaf.falseChild = new Vertex(remaining, aFalse >= bFalse ? "en" : "nl");
+        leaf.feature = leaf.attributes[best];
+        leaf.counts = null;
+        splits++;
+    }
+
+    /**
+     * Builds the Decision Tree learned so far. Each leaf results in the
+     * class of most of its examples, or in its parent's if it has none.
+     *
+     * @return Node containing the Decision Tree
+     */
+    public Node snapshot() {
+        return snapshot(root);
+    }
+
+    /**
+     * Helper function used to build the Node of a vertex and its children.
+     *
+     * @param vertex Vertex to build
+     * @return Node equivalent to the vertex
+     */
+    private Node snapshot(Vertex vertex) {
+
+        if (vertex.feature < 0) {
+            int[] counts = vertex.counts;
+            int aCount = counts[counts.length - 2];
+            int bCount = counts[counts.length - 1];
+
+            if (aCount + bCount == 0) {
+                return new Node("Result", vertex.fallback);
+            }
+            return new Node("Result", aCount >= bCount ? "en" : "nl");
+        }
+
+        Node node = new Node(names[vertex.feature], null);
+        node.getChildNodes().put("True", snapshot(vertex.trueChild));
+        node.getChildNodes().put("False", snapshot(vertex.falseChild));
+
+        return node;
+    }
+
+    /**
+     * Getter for the number of examples learned from
+     *
+     * @return Long number of labelled examples learned from
+     */
+    public long getExamples() {
+        return examples;
+    }
+
+    /**
+     * Getter for the number of splits
+     *
+     * @return Integer number of leaves split so far
+     */
+    public int getSplits() {
+        return splits;
+    }
+}
@@ -0,0 +1,188 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.SpillFile;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Class counts of the examples reaching one unfinished leaf of a
+ * Decision Tree being learned from Shards. Every statistic the
+ * learner needs from a group of examples, the class count table
+ * importance() and majorityAnswer() are calculated from, the
+ * number of examples and the label of the first of them, can be
+ * counted separately over each shard and then merged, so the
+ * examples never have to be moved to one place.
+ */
+public class LeafCounts {
+
+    /** Node standing in for the leaf in the tree until it is replaced */
+    private final Node placeholder;
+
+    /** Column index of each remaining question/attribute */
+    private final int[] attributes;
+
+    /** Class count table of the leaf's examples, laid out as by SplitCounter */
+    private final int[] counts;
+
+    /** Number of examples reaching the leaf */
+    private int numExamples;
+
+    /** Label of the first example reaching the leaf */
+    private byte firstLabel;
+
+    /**
+     * Constructor for LeafCounts class
+     *
+     * @param placeholder Node standing in for the leaf in the tree
+     * @param attributes int[] column index of each remaining attribute
+     */
+    public LeafCounts(Node placeholder, int[] attributes) {
+        this.placeholder = placeholder;
+        this.attributes = attributes;
+        this.counts = new int[attributes.length * 2 + 2];
+    }
+
+    /**
+     * Adds the examples of a block reaching the leaf to its counts.
+     *
+     * @param block SpillFile.Block being scanned
+     * @param member long[] bitset of the block's examples reaching the leaf
+     */
+    void count(SpillFile.Block block, long[] member) {
+
+        long[] en = block.getEnRows();
+        long[] nl = block.getNlRows();
+        int words = block.words();
+        long[] memberEn = new long[words];
+        long[] memberNl = new long[words];
+
+        for (int w = 0; w < words; w++) {
+            if (numExamples == 0 && member[w] != 0) {
+                long first = Long.lowestOneBit(member[w]);
+                firstLabel = (en[w] & first) != 0 ? ExampleMatrix.EN
+                        : (nl[w] & first) != 0 ? ExampleMatrix.NL : ExampleMatrix.UNKNOWN;
+            }
+
+            numExamples += Long.bitCount(member[w]);
+            memberEn[w] = member[w] & en[w];
+            memberNl[w] = member[w] & nl[w];
+        }
+
+        counts[counts.length - 2] += ExampleMatrix.count(memberEn);
+        counts[counts.length - 1] += ExampleMatrix.count(memberNl);
+
+        for (int i = 0; i < attributes.length; i++) {
+            long[] column = block.getColumn(attributes[i]);
+            int aTrue = 0;
+            int bTrue = 0;
+
+            for (int w = 0; w < words; w++) {
+                aTrue += Long.bitCount(column[w] & memberEn[w]);
+                bTrue += Long.bitCount(column[w] & memberNl[w]);
+            }
+
+            counts[2 * i] += aTrue;
+            counts[2 * i + 1] += bTrue;
+        }
+    }
+
+    /**
+     * Adds the counts of the same leaf over the examples that come
+     * after these ones, such as those of the next shard.
+     *
+     * @param later LeafCounts of the same leaf over later examples
+     */
+    void merge(LeafCounts later) {
+
+        if (numExamples == 0) {
+            firstLabel = later.firstLabel;
+        }
+
+        numExamples += later.numExamples;
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += later.counts[i];
+        }
+    }
+
+    /**
+     * Writes the counts to a stream.
+     *
+     * @param out DataOutputStream to write to
+     * @throws IOException if the stream cannot be written to
+     */
+    void write(DataOutputStream out) throws IOException {
+
+        out.writeInt(numExamples);
+        out.writeByte(firstLabel);
+
+        for (int count : counts) {
+            out.writeInt(count);
+        }
+    }
+
+    /**
+     * Reads counts written by write() for the same leaf, replacing these.
+     *
+     * @param in DataInputStream to read from
+     * @throws IOException if the stream cannot be read
+     */
+    void read(DataInputStream in) throws IOException {
+
+        numExamples = in.readInt();
+        firstLabel = in.readByte();
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readInt();
+        }
+    }
+
+    /**
+     * Getter for Node placeholder
+     *
+     * @return Node placeholder
+     */
+    public Node getPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * Getter for int[] attributes
+     *
+     * @return int[] attributes
+     */
+    public int[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Getter for int[] counts
+     *
+     * @return int[] counts
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Getter for Integer numExamples
+     *
+     * @return Integer numExamples
+     */
+    public int getNumExamples() {
+        return numExamples;
+    }
+
+    /**
+     * Getter for byte firstLabel
+     *
+     * @return byte firstLabel
+     */
+    public byte getFirstLabel() {
+        return firstLabel;
+    }
+}
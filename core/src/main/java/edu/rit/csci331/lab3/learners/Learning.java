@@ -0,0 +1,657 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.metrics.Metrics;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class contains the learning algorithms of the program:
+ * the functions to perform importance/entropy calculations,
+ * decision tree learning, and AdaBoost on the answered
+ * examples to create predictive models.
+ */
+public class Learning {
+
+    /** Number of examples at a node above which its subtrees are grown concurrently */
+    static final int FORK_THRESHOLD = 1 << 14;
+
+    /** Smallest error a stump is given, so a perfect stump gets a finite weight */
+    static final double MIN_ERROR = 1e-10;
+
+    /**
+     * ----------------------------
+     * ENTROPY/IMPORTANCE FUNCTIONS
+     * ----------------------------
+     */
+
+    /**
+     * Helper function used for the calculation of the remainder
+     * for gain, in the overall calculation of importance of the
+     * current question being asked for the given sample of examples.
+     *
+     * @param aCount float count of all positive (en) examples
+     * @param bCount float count of all positive (nl) examples
+     * @param aTrueCount float count of all positive (en) examples that
+     *                   have an answer of True for the current question
+     * @param aFalseCount float count of all positive (en) examples that
+     *                    have an answer of False for the current question
+     * @param bTrueCount float count of all negative (nl) examples that
+     *                   have an answer of True for the current question
+     * @param bFalseCount float count of all negative (nl) examples that
+     *                    have an answer of False for the current question
+     * @return Double value representing the gain's remainder in the importance
+     *         calculation
+     */
+    private static double remainder(float aCount, float bCount, float aTrueCount, float aFalseCount, float bTrueCount, float bFalseCount) {
+
+        double remainder;
+
+        remainder = ((aTrueCount+bTrueCount)/(aCount+bCount)) * booleanEntropy(aTrueCount/(aTrueCount+bTrueCount));
+
+        remainder += ((aFalseCount+bFalseCount)/(aCount+bCount)) * booleanEntropy(aFalseCount/(aFalseCount+bFalseCount));
+
+        return remainder;
+    }
+
+    /**
+     * Helper function used to calculate the Boolean Entropy
+     * of a given probability.
+     *
+     * @param prob Float probability for calculations
+     * @return Double value representing the Boolean entropy of prob
+     */
+    private static double booleanEntropy(float prob) {
+
+        if (prob == 0 || prob == 1 || Float.isNaN(prob)) {
+            return 0;
+        }
+
+        double e1 = prob * (Math.log(1/prob) / Math.log(2));
+
+        double e2 = (1-prob) * (Math.log(1/(1-prob)) / Math.log(2));
+
+        return e1 + e2;
+    }
+
+    /**
+     * This function calculates the importance of a given attr/question for
+     * a given group of examples, indicating how good the question is at
+     * partitioning the examples based on their result classification (language).
+     * This is used to help pick the order or next question to ask in
+     * both learning algorithms.
+     * The counts for every candidate attribute are built at once, in one
+     * pass over the examples, by SplitCounter.
+     *
+     * @param counts int[] class count table built by SplitCounter.count()
+     * @param i Integer position of the attribute in the table
+     * @return Double value representing the attribute's importance.
+     */
+    public static double importance(int[] counts, int i) {
+
+        double gain;
+
+        float aCount = counts[counts.length - 2];
+        float bCount = counts[counts.length - 1];
+        float aTrueCount = counts[2 * i];
+        float bTrueCount = counts[2 * i + 1];
+        float aFalseCount = aCount - aTrueCount;
+        float bFalseCount = bCount - bTrueCount;
+
+        gain = booleanEntropy(aCount/(aCount+bCount)) - remainder(aCount, bCount, aTrueCount, aFalseCount, bTrueCount, bFalseCount);
+
+        return gain;
+    }
+
+    /**
+     * Helper function used to find the column index of each attribute.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param attributes List of String questions
+     * @return int[] column index of each attribute, in the same order
+     */
+    private static int[] columns(ExampleMatrix examples, List<String> attributes) {
+
+        int[] columns = new int[attributes.size()];
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = examples.column(attributes.get(i));
+        }
+
+        return columns;
+    }
+
+    /**
+     * --------------------------------
+     * DECISION TREE LEARNING FUNCTIONS
+     * --------------------------------
+     */
+
+    /**
+     * Helper function for Decision Tree Learning algorithm. When a group of
+     * examples can no longer be partitioned, it is used to generate a result
+     * node by finding what the majority of the examples remaining are
+     * classified as.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows RowSet of the examples to be analyzed
+     * @return New result Node, indicating that the answer to the parent question
+     *         results in an English (en) or Dutch (nl) classification.
+     */
+    private static Node majorityAnswer(ExampleMatrix examples, RowSet rows) {
+
+        int aCount = rows.countLabel(examples, ExampleMatrix.EN);
+        int bCount = rows.countLabel(examples, ExampleMatrix.NL);
+
+        if (aCount >= bCount) {
+            return new Node("Result", "en");
+        }
+        else {
+            return new Node("Result", "nl");
+        }
+
+    }
+
+    /**
+     * Function for generating a Decision Tree based on given examples,
+     * attributes, and other information. The tree is grown as a graph of
+     * fork-join tasks, so large sibling subtrees are learned concurrently.
+     * Without any example, the tree is a single English (en) result.
+     *
+     * @param examples ExampleMatrix containing every example and its attributes
+     * @param attributes ArrayList of String questions/attributes of each example
+     * @param maxDepth Integer representing the maximum depth the tree should reach
+     *                 before it hase to generate result nodes.
+     * @return Node containing the finished Decision Tree.
+     */
+    public static Node decisionTreeLearning(ExampleMatrix examples, ArrayList<String> attributes, int maxDepth) {
+
+        RowSet rows = new RowSet(examples.allRows());
+        int[] columns = columns(examples, attributes);
+
+        return ForkJoinPool.commonPool().invoke(ForkJoinTask.adapt(
+                () -> decisionTreeLearning(examples, rows, columns, "en", 0, maxDepth)));
+    }
+
+    /**
+     * Recursive function for generating a Decision Tree based on given examples,
+     * attributes, and other information. If the current group of examples is
+     * large enough, the "True" subtree is forked as a separate task while the
+     * "False" subtree is grown on the current thread.
+     *
+     * @param examples ExampleMatrix containing every example and its attributes
+     * @param rows RowSet of the examples to analyze at this level
+     * @param attributes int[] column index of each remaining question/attribute
+     * @param parentResult String majority classification of the examples
+     *                     from the parent recursion level
+     * @param depth Integer representing current tree/recursive depth of this call.
+     * @param maxDepth Integer representing the maximum depth the tree should reach
+     *                 before it hase to generate result nodes.
+     * @return Node containing the finished Decision Tree.
+     */
+    private static Node decisionTreeLearning(ExampleMatrix examples, RowSet rows, int[] attributes, String parentResult,
+                                             int depth, int maxDepth) {
+
+        int numExamples = rows.size();
+
+        if (numExamples > 0) {
+            boolean same = rows.countLabel(examples, examples.getLabel(rows.first())) == 1;
+
+            if (same) {
+                return majorityAnswer(examples, rows);
+            }
+        }
+
+        if (attributes.length == 0 || depth == maxDepth) {
+            return majorityAnswer(examples, rows);
+        }
+        else if (numExamples == 0) {
+            return new Node("Result", parentResult);
+        }
+
+        long start = Metrics.start();
+        int[] counts = rows.countClasses(examples, attributes);
+
+        if (Metrics.ENABLED) {
+            Metrics.splitSearch(start, depth, numExamples);
+        }
+
+        String result = counts[counts.length - 2] >= counts[counts.length - 1] ? "en" : "nl";
+        int labelled = counts[counts.length - 2] + counts[counts.length - 1];
+        int best = bestAttribute(counts, attributes.length);
+        int answeredTrue = counts[2 * best] + counts[2 * best + 1];
+
+        if (labelled == numExamples && (answeredTrue == 0 || answeredTrue == labelled)) {
+            return unsplitChain(examples, rows, attributes, counts, result, depth, maxDepth);
+        }
+
+        int bestQuestion = attributes[best];
+        Node newNode = new Node(examples.getAttributes()[bestQuestion], null);
+
+        RowSet[] partitions = rows.split(examples, bestQuestion);
+        int[] newAttributes = without(attributes, bestQuestion);
+
+        Node trueChild;
+        Node falseChild;
+
+        if (numExamples >= FORK_THRESHOLD) {
+            ForkJoinTask<Node> trueTask = ForkJoinTask.adapt(
+                    () -> decisionTreeLearning(examples, partitions[0], newAttributes, result, depth + 1, maxDepth)).fork();
+
+            falseChild = decisionTreeLearning(examples, partitions[1], newAttributes, result, depth + 1, maxDepth);
+            trueChild = trueTask.join();
+        }
+        else {
+            trueChild = decisionTreeLearning(examples, partitions[0], newAttributes, result, depth + 1, maxDepth);
+            falseChild = decisionTreeLearning(examples, partitions[1], newAttributes, result, depth + 1, maxDepth);
+        }
+
+        newNode.getChildNodes().put("True", trueChild);
+        newNode.getChildNodes().put("False", falseChild);
+
+        return newNode;
+    }
+
+    /**
+     * Helper function used to pick the attribute with the highest
+     * importance, the first one if several are tied.
+     *
+     * @param counts int[] class count table of the group
+     * @param attributes Integer number of attributes in the table
+     * @return Integer index of the best attribute in the table
+     */
+    static int bestAttribute(int[] counts, int attributes) {
+
+        int best = 0;
+        double maxImportance = 0;
+
+        for (int i = 0; i < attributes; i++) {
+            double currImportance = importance(counts, i);
+
+            if (i == 0 || currImportance > maxImportance) {
+                maxImportance = currImportance;
+                best = i;
+            }
+        }
+
+        return best;
+    }
+
+    /**
+     * Helper function for Decision Tree Learning, used when the best
+     * question answers the same for every example of a group. Such a
+     * question leaves the whole group on one side, so every question
+     * picked after it is picked from the same class count table. The
+     * chain of nodes those questions make is built here in a loop from
+     * that one table, instead of one recursion level and one count per
+     * question, until a question splits the group. With many sparse
+     * attributes, such as hashed n-gram questions, this keeps both the
+     * number of counts and the recursion depth small.
+     *
+     * @param examples ExampleMatrix containing every example and its attributes
+     * @param rows RowSet of the examples to analyze at this level
+     * @param attributes int[] column index of each remaining question/attribute
+     * @param counts int[] class count table of the group
+     * @param result String majority classification of the group
+     * @param depth Integer representing current tree/recursive depth of this call.
+     * @param maxDepth Integer representing the maximum depth the tree should reach
+     *                 before it hase to generate result nodes.
+     * @return Node containing the finished Decision Tree.
+     */
+    private static Node unsplitChain(ExampleMatrix examples, RowSet rows, int[] attributes, int[] counts,
+                                     String result, int depth, int maxDepth) {
+
+        int labelled = counts[counts.length - 2] + counts[counts.length - 1];
+        Node first = null;
+        Node last = null;
+        String lastAnswer = null;
+
+        while (true) {
+            int best = bestAttribute(counts, attributes.length);
+            int answeredTrue = counts[2 * best] + counts[2 * best + 1];
+            Node next;
+
+            if (answeredTrue != 0 && answeredTrue != labelled) {
+                next = decisionTreeLearning(examples, rows, attributes, result, depth, maxDepth);
+            }
+            else {
+                boolean lastLevel = attributes.length == 1 || depth + 1 == maxDepth;
+
+                // As in decisionTreeLearning(), an empty group on the last level
+                // gets majorityAnswer()'s result for no examples, en.
+                next = new Node(examples.getAttributes()[attributes[best]], null);
+                next.getChildNodes().put(answeredTrue == 0 ? "True" : "False", new Node("Result", lastLevel ? "en" : result));
+            }
+
+            if (first == null) {
+                first = next;
+            }
+            else {
+                last.getChildNodes().put(lastAnswer, next);
+            }
+
+            if (answeredTrue != 0 && answeredTrue != labelled) {
+                return first;
+            }
+
+            last = next;
+            lastAnswer = answeredTrue == 0 ? "False" : "True";
+            attributes = without(attributes, attributes[best]);
+            counts = withoutCounts(counts, best);
+            depth++;
+
+            if (attributes.length == 0 || depth == maxDepth) {
+                last.getChildNodes().put(lastAnswer, majorityAnswer(examples, rows));
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Helper function used to remove an attribute's entries from a
+     * class count table.
+     *
+     * @param counts int[] class count table
+     * @param i Integer index of the attribute in the table
+     * @return int[] class count table without attribute i
+     */
+    static int[] withoutCounts(int[] counts, int i) {
+
+        int[] remaining = new int[counts.length - 2];
+
+        System.arraycopy(counts, 0, remaining, 0, 2 * i);
+        System.arraycopy(counts, 2 * i + 2, remaining, 2 * i, counts.length - 2 * i - 2);
+
+        return remaining;
+    }
+
+    /**
+     * Helper function used to remove an attribute from the remaining
+     * attributes, keeping the others in the same order. Both children
+     * of a node share the returned array.
+     *
+     * @param attributes int[] column index of each remaining attribute
+     * @param attr Integer column index of the attribute to remove
+     * @return int[] remaining attributes without attr
+     */
+    static int[] without(int[] attributes, int attr) {
+
+        int[] remaining = new int[attributes.length];
+        int size = 0;
+        boolean removed = false;
+
+        for (int a : attributes) {
+            if (a == attr && !removed) {
+                removed = true;
+            }
+            else {
+                remaining[size++] = a;
+            }
+        }
+
+        return Arrays.copyOf(remaining, size);
+    }
+
+    /**
+     * ----------------------------
+     * ADABOOST LEARNING FUNCTIONS
+     * ----------------------------
+     */
+
+    /**
+     * Helper function used in AdaBoost learning to determine
+     * which examples a stump classifies correctly during training.
+     * The result is built from the stump's attribute bitset and
+     * the label bitsets, without testing each example one by one.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param stump Node model containing current Decision stump
+     * @return long[] bitset of the examples classified correctly
+     */
+    private static long[] correctRows(ExampleMatrix examples, Node stump) {
+
+        long[] correct = new long[examples.words()];
+
+        if (stump.getResult() != null) {
+            long[] labelRows = labelRows(examples, stump.getResult());
+            System.arraycopy(labelRows, 0, correct, 0, correct.length);
+            return correct;
+        }
+
+        long[] column = examples.getColumn(examples.column(stump.getQuestion()));
+        long[] trueRows = labelRows(examples, stump.getChildNodes().get("True").getResult());
+        long[] falseRows = labelRows(examples, stump.getChildNodes().get("False").getResult());
+
+        for (int w = 0; w < correct.length; w++) {
+            correct[w] = (column[w] & trueRows[w]) | (~column[w] & falseRows[w]);
+        }
+
+        return correct;
+    }
+
+    /**
+     * Helper function used to find the bitset of examples with a result.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param result String result, "en" or "nl"
+     * @return long[] bitset of the examples classified as result
+     */
+    private static long[] labelRows(ExampleMatrix examples, String result) {
+        return result.equals("en") ? examples.getEnRows() : examples.getNlRows();
+    }
+
+    /**
+     * Helper function used by AdaBoost learning to reweight and normalize
+     * every example in one pass. The weight of each example the current
+     * stump classified correctly is multiplied by deltaW, and every weight
+     * is multiplied by scale so they sum to 1. In the same pass, the new
+     * weights are added up into a weighted class total table for every
+     * attribute, so the next round can find the error of every possible
+     * stump from the table without another pass over the examples.
+     *
+     * When there are many sparse attributes, only the True answers of
+     * each example are read, from its row of the ExampleMatrix.
+     *
+     * The table is laid out the same as a SplitCounter count table: the
+     * weight of en examples answering True to attribute i at 2i, of nl
+     * examples at 2i + 1, and the total en and nl weight in the last two.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param correct long[] bitset of examples the current stump classified
+     *                correctly, or null to only scale every weight
+     * @param deltaW Double factor for the weights of correct examples
+     * @param scale Double factor for every weight
+     * @param columns int[] column index of each attribute
+     * @param totals double[] receiving the weighted class total table
+     */
+    private static void reweight(ExampleMatrix examples, long[] correct, double deltaW, double scale,
+                                 int[] columns, double[] totals) {
+
+        double[] weights = examples.getWeights();
+        long[] enRows = examples.getEnRows();
+        long[] nlRows = examples.getNlRows();
+        long[][] answers = new long[columns.length][];
+        int[] position = SplitCounter.positions(examples, columns);
+        int[] features = examples.getRowFeatures();
+        double correctFactor = deltaW * scale;
+        double aTotal = 0;
+        double bTotal = 0;
+
+        for (int i = 0; i < columns.length; i++) {
+            answers[i] = examples.getColumn(columns[i]);
+        }
+        Arrays.fill(totals, 0);
+
+        for (int row = 0; row < examples.size(); row++) {
+            int word = row >>> 6;
+            long bit = 1L << row;
+            boolean wasCorrect = correct != null && (correct[word] & bit) != 0;
+            double w = weights[row] * (wasCorrect ? correctFactor : scale);
+            double a = (enRows[word] & bit) != 0 ? w : 0;
+            double b = (nlRows[word] & bit) != 0 ? w : 0;
+
+            weights[row] = w;
+            aTotal += a;
+            bTotal += b;
+
+            if (position != null) {
+                for (int k = examples.rowStart(row); k < examples.rowEnd(row); k++) {
+                    int i = position[features[k]];
+
+                    if (i >= 0) {
+                        totals[2 * i] += a;
+                        totals[2 * i + 1] += b;
+                    }
+                }
+                continue;
+            }
+
+            for (int i = 0; i < answers.length; i++) {
+                long answer = (answers[i][word] >>> row) & 1;
+                totals[2 * i] += answer * a;
+                totals[2 * i + 1] += answer * b;
+            }
+        }
+
+        totals[totals.length - 2] = aTotal;
+        totals[totals.length - 1] = bTotal;
+    }
+
+    /**
+     * Helper function used by AdaBoost learning to find the weighted error
+     * of the best stump for an attribute, whose True and False results are
+     * each the class with the most weight behind that answer.
+     *
+     * @param totals double[] weighted class total table
+     * @param i Integer index of the attribute in the table
+     * @return Double weight of the examples that stump classifies incorrectly
+     */
+    static double stumpError(double[] totals, int i) {
+
+        double aFalse = totals[totals.length - 2] - totals[2 * i];
+        double bFalse = totals[totals.length - 1] - totals[2 * i + 1];
+
+        return Math.min(totals[2 * i], totals[2 * i + 1]) + Math.min(aFalse, bFalse);
+    }
+
+    /**
+     * Helper function used by AdaBoost learning to build the stump for an
+     * attribute from the weighted class total table, with each answer
+     * resulting in the class with the most weight behind it.
+     *
+     * @param question String question asked by the stump
+     * @param totals double[] weighted class total table
+     * @param i Integer index of the attribute in the table
+     * @return Node containing the new Decision stump
+     */
+    static Node weightedStump(String question, double[] totals, int i) {
+
+        double aFalse = totals[totals.length - 2] - totals[2 * i];
+        double bFalse = totals[totals.length - 1] - totals[2 * i + 1];
+
+        Node stump = new Node(question, null);
+        stump.setAda(true);
+        stump.getChildNodes().put("True", new Node("Result", totals[2 * i] >= totals[2 * i + 1] ? "en" : "nl"));
+        stump.getChildNodes().put("False", new Node("Result", aFalse >= bFalse ? "en" : "nl"));
+
+        return stump;
+    }
+
+    /**
+     * This is the main function for performing AdaBoost on a
+     * given set of examples. Each round, it picks the decision stump
+     * with the lowest error under the current example weights, out of
+     * every attribute's stump, and assigns it a hypothesis weight based
+     * on that error. It then reassigns new weights to each example
+     * based on whether the stump correctly classifies it, normalizes
+     * them, and repeats. The same attribute may be asked by more than
+     * one stump. Boosting stops early once no stump does better than
+     * chance, or once a stump classifies every example correctly.
+     * Without any labelled example, the result is a single English
+     * (en) result node, the same as for a tie.
+     * Which examples each stump classifies correctly is cached as a
+     * bitset, and each round's reweighting, normalization, and the
+     * weighted class totals every candidate stump's error is found
+     * from are done in a single pass by reweight().
+     *
+     * @param examples ExampleMatrix weighted examples to test
+     * @param attributes ArrayList<String> ArrayList of strings containing all questions
+     * @param rounds Integer maximum number of stumps to generate
+     * @return Node containing all the decision stumps and their weights, linked in
+     *         the order they were generated.
+     */
+    public static Node adaBoost(ExampleMatrix examples, ArrayList<String> attributes, int rounds) {
+
+        Node firstHyp = null;
+        Node parentHyp = null;
+        int[] columns = columns(examples, attributes);
+        double[] totals = new double[columns.length * 2 + 2];
+
+        reweight(examples, null, 1, 1, columns, totals);
+
+        for (int round = 0; round < rounds && columns.length > 0; round++) {
+
+            double total = totals[totals.length - 2] + totals[totals.length - 1];
+
+            // without labelled examples there is no error to weigh a stump by
+            if (!(total > 0)) {
+                break;
+            }
+            int best = 0;
+            double minError = stumpError(totals, 0);
+
+            for (int i = 1; i < columns.length; i++) {
+                double currError = stumpError(totals, i);
+
+                if (currError < minError) {
+                    minError = currError;
+                    best = i;
+                }
+            }
+
+            double err = Math.max(minError / total, MIN_ERROR);
+
+            if (err >= 0.5) {
+                break;
+            }
+
+            Node currHyp = weightedStump(attributes.get(best), totals, best);
+            double hypWeight = 0.5 * Math.log((1-err)/err);
+            currHyp.setAdaHypWeight((float) hypWeight);
+
+            if (Metrics.ENABLED) {
+                Metrics.boostingRound(round, currHyp.getQuestion(), err, (float) hypWeight);
+            }
+
+            if (firstHyp == null) {
+                firstHyp = currHyp;
+            }
+            else {
+                parentHyp.setNextStump(currHyp);
+            }
+            parentHyp = currHyp;
+
+            if (err <= MIN_ERROR || round == rounds - 1) {
+                break;
+            }
+
+            double deltaW = (err)/(1-err);
+            double newTotal = total * (err + deltaW * (1 - err));
+            reweight(examples, correctRows(examples, currHyp), deltaW, 1 / newTotal, columns, totals);
+        }
+
+        if (firstHyp == null) {
+            firstHyp = totals[totals.length - 2] >= totals[totals.length - 1]
+                    ? new Node("Result", "en") : new Node("Result", "nl");
+            firstHyp.setAda(true);
+            firstHyp.setAdaHypWeight(1.0f);
+        }
+
+        return firstHyp;
+    }
+}
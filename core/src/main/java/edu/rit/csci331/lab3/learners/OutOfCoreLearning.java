@@ -0,0 +1,452 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.metrics.Metrics;
+import edu.rit.csci331.lab3.model.CompiledTree;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * This class contains out-of-core versions of the learning
+ * algorithms in Learning, used when the examples are split into
+ * Shards, such as a SpillFile on disk or the shards of worker
+ * processes, instead of held in an ExampleMatrix. Only the model
+ * and the statistics of the current step, which every shard
+ * builds over its own examples and which are merged here, are
+ * kept in memory, so heap use does not grow with the number of
+ * examples and the examples never have to be moved.
+ * Both algorithms make the same choices, in the same order, as
+ * their in-memory versions, so with one shard they learn the
+ * same models.
+ */
+public class OutOfCoreLearning {
+
+    /**
+     * A leaf of a Decision Tree that is still being learned. Its
+     * examples are counted by every shard during the next pass,
+     * after which it is replaced by a subtree.
+     */
+    private static class Pending {
+
+        /** Parent node of this leaf, or null for the root */
+        private final Node parent;
+
+        /** Answer ("True" or "False") of the parent leading to this leaf */
+        private final String answer;
+
+        /** Majority classification of the parent's examples */
+        private final String parentResult;
+
+        /** Depth of this leaf */
+        private final int depth;
+
+        /** Counts of this leaf's examples, merged over every shard */
+        private LeafCounts counts;
+
+        /**
+         * Constructor for Pending class
+         *
+         * @param parent Node parent of the leaf, or null for the root
+         * @param answer String answer of the parent leading to the leaf
+         * @param attributes int[] column index of each remaining attribute
+         * @param parentResult String majority classification of the parent's examples
+         * @param depth Integer depth of the leaf
+         */
+        Pending(Node parent, String answer, int[] attributes, String parentResult, int depth) {
+            this.parent = parent;
+            this.answer = answer;
+            this.parentResult = parentResult;
+            this.depth = depth;
+            this.counts = new LeafCounts(new Node(null, null), attributes);
+        }
+    }
+
+    /**
+     * --------------------------------
+     * DECISION TREE LEARNING FUNCTIONS
+     * --------------------------------
+     */
+
+    /**
+     * Function for generating a Decision Tree from sharded examples. The
+     * tree is grown one level at a time: on each pass, every shard sends
+     * its examples down the tree built so far and counts the classes of
+     * the examples reaching each unfinished leaf, for every remaining
+     * attribute at once. The shards are counted concurrently and their
+     * counts merged in shard order. Each leaf is then either finished or
+     * split, the same as Learning.decisionTreeLearning() would, and the
+     * leaves it is split into are counted on the next pass.
+     *
+     * @param shards List<? extends Shard> shards of the examples, in input order
+     * @param attributes ArrayList of String questions/attributes of each example
+     * @param maxDepth Integer representing the maximum depth the tree should reach
+     *                 before it hase to generate result nodes.
+     * @return Node containing the finished Decision Tree.
+     */
+    public static Node decisionTreeLearning(List<? extends Shard> shards, ArrayList<String> attributes, int maxDepth) {
+
+        String[] names = shards.get(0).getAttributes();
+        Pending first = new Pending(null, null, columns(shards, attributes), "en", 0);
+        Node root = first.counts.getPlaceholder();
+        List<Pending> frontier = List.of(first);
+        int level = 0;
+
+        while (!frontier.isEmpty()) {
+            long start = Metrics.start();
+            List<Pending> leaves = frontier;
+            Node tree = root;
+
+            List<List<LeafCounts>> counted = onEveryShard(shards, shard -> {
+                List<LeafCounts> counts = new ArrayList<>();
+
+                for (Pending leaf : leaves) {
+                    counts.add(new LeafCounts(leaf.counts.getPlaceholder(), leaf.counts.getAttributes()));
+                }
+                shard.countLeaves(tree, counts);
+                return counts;
+            });
+
+            for (int i = 0; i < frontier.size(); i++) {
+                frontier.get(i).counts = counted.get(0).get(i);
+
+                for (int s = 1; s < counted.size(); s++) {
+                    frontier.get(i).counts.merge(counted.get(s).get(i));
+                }
+            }
+
+            if (Metrics.ENABLED) {
+                Metrics.splitSearch(start, level, shards.stream().mapToInt(Shard::size).sum());
+            }
+
+            List<Pending> next = new ArrayList<>();
+
+            for (Pending leaf : frontier) {
+                Node subtree = grow(leaf, names, maxDepth, next);
+
+                if (leaf.parent == null) {
+                    root = subtree;
+                }
+                else {
+                    leaf.parent.getChildNodes().put(leaf.answer, subtree);
+                }
+            }
+
+            frontier = next;
+            level++;
+        }
+
+        return root;
+    }
+
+    /**
+     * Helper function used to finish or split an unfinished leaf once its
+     * examples have been counted, following Learning.decisionTreeLearning().
+     * When the best question answers the same for every example, the chain
+     * of nodes it starts is built from the same counts, following
+     * Learning.unsplitChain(), until a question splits the examples.
+     *
+     * @param leaf Pending leaf whose examples have been counted on every shard
+     * @param names String[] question of each column
+     * @param maxDepth Integer representing the maximum depth the tree should reach
+     *                 before it hase to generate result nodes.
+     * @param next List<Pending> receiving the leaves of each new split
+     * @return Node replacing the leaf
+     */
+    private static Node grow(Pending leaf, String[] names, int maxDepth, List<Pending> next) {
+
+        int[] counts = leaf.counts.getCounts();
+        int[] attributes = leaf.counts.getAttributes();
+        int numExamples = leaf.counts.getNumExamples();
+        int depth = leaf.depth;
+        Node majority = majorityAnswer(counts);
+
+        if (numExamples > 0) {
+            boolean same = counts[counts.length - (leaf.counts.getFirstLabel() == ExampleMatrix.EN ? 2 : 1)] == 1;
+
+            if (same) {
+                return majority;
+            }
+        }
+
+        if (attributes.length == 0 || depth == maxDepth) {
+            return majority;
+        }
+        else if (numExamples == 0) {
+            return new Node("Result", leaf.parentResult);
+        }
+
+        String result = counts[counts.length - 2] >= counts[counts.length - 1] ? "en" : "nl";
+        int labelled = counts[counts.length - 2] + counts[counts.length - 1];
+        Node first = null;
+        Node last = null;
+        String lastAnswer = null;
+
+        while (true) {
+            int best = Learning.bestAttribute(counts, attributes.length);
+            int answeredTrue = counts[2 * best] + counts[2 * best + 1];
+            boolean splits = labelled != numExamples || (answeredTrue != 0 && answeredTrue != labelled);
+            Node node = new Node(names[attributes[best]], null);
+
+            if (splits) {
+                int[] newAttributes = Learning.without(attributes, attributes[best]);
+
+                for (String answer : new String[] {"True", "False"}) {
+                    Pending child = new Pending(node, answer, newAttributes, result, depth + 1);
+                    node.getChildNodes().put(answer, child.counts.getPlaceholder());
+                    next.add(child);
+                }
+            }
+            else {
+                boolean lastLevel = attributes.length == 1 || depth + 1 == maxDepth;
+
+                // As in Learning.unsplitChain(), an empty group on the last level gets en.
+                node.getChildNodes().put(answeredTrue == 0 ? "True" : "False", new Node("Result", lastLevel ? "en" : result));
+            }
+
+            if (first == null) {
+                first = node;
+            }
+            else {
+                last.getChildNodes().put(lastAnswer, node);
+            }
+
+            if (splits) {
+                return first;
+            }
+
+            last = node;
+            lastAnswer = answeredTrue == 0 ? "False" : "True";
+            attributes = Learning.without(attributes, attributes[best]);
+            counts = Learning.withoutCounts(counts, best);
+            depth++;
+
+            if (attributes.length == 0 || depth == maxDepth) {
+                last.getChildNodes().put(lastAnswer, majority);
+                return first;
+            }
+        }
+    }
+
+    /**
+     * Helper function used to generate a result node from the class
+     * counts of a group, the same as Learning.majorityAnswer().
+     *
+     * @param counts int[] class count table of the group
+     * @return New result Node with the majority classification, en if tied
+     */
+    private static Node majorityAnswer(int[] counts) {
+
+        if (counts[counts.length - 2] >= counts[counts.length - 1]) {
+            return new Node("Result", "en");
+        }
+        else {
+            return new Node("Result", "nl");
+        }
+    }
+
+    /**
+     * Helper function used to find the column index of each attribute,
+     * checking that every shard has the same columns.
+     *
+     * @param shards List<? extends Shard> shards of the examples
+     * @param attributes List of String questions
+     * @return int[] column index of each attribute, in the same order
+     * @throws IllegalArgumentException if the shards have different columns
+     */
+    private static int[] columns(List<? extends Shard> shards, List<String> attributes) {
+
+        String[] names = shards.get(0).getAttributes();
+        int[] columns = new int[attributes.size()];
+
+        for (Shard shard : shards) {
+            if (!Arrays.equals(names, shard.getAttributes())) {
+                throw new IllegalArgumentException("Shards were featurized with different questions");
+            }
+        }
+
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = CompiledTree.indexOf(names, attributes.get(i));
+        }
+
+        return columns;
+    }
+
+    /**
+     * Helper function used to run the same step on every shard at once,
+     * each on its own thread, since remote shards spend most of the step
+     * waiting for their worker.
+     *
+     * @param shards List<? extends Shard> shards to run the step on
+     * @param step Function<Shard, T> step returning the shard's statistics
+     * @return List<T> statistics of each shard, in shard order
+     */
+    private static <T> List<T> onEveryShard(List<? extends Shard> shards, Function<Shard, T> step) {
+
+        if (shards.size() == 1) {
+            return List.of(step.apply(shards.get(0)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(shards.size(), r -> {
+            Thread t = new Thread(r, "shard");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            List<Future<T>> results = new ArrayList<>();
+
+            for (Shard shard : shards) {
+                results.add(pool.submit(() -> step.apply(shard)));
+            }
+
+            List<T> statistics = new ArrayList<>();
+
+            for (Future<T> result : results) {
+                statistics.add(result.get());
+            }
+
+            return statistics;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * ----------------------------
+     * ADABOOST LEARNING FUNCTIONS
+     * ----------------------------
+     */
+
+    /**
+     * Helper function used by AdaBoost learning to reweight the examples
+     * of every shard concurrently and sum their weighted class total
+     * tables, in shard order.
+     *
+     * @param shards List<? extends Shard> shards of the examples, in input order
+     * @param stump Node stump picked in the last round, or null to give
+     *              every example the starting weight
+     * @param initial Double starting weight of every example
+     * @param deltaW Double factor for the weights of correct examples
+     * @param scale Double factor for every weight
+     * @param columns int[] column index of each attribute
+     * @param totals double[] receiving the weighted class total table
+     */
+    private static void reweight(List<? extends Shard> shards, Node stump, double initial, double deltaW, double scale,
+                                 int[] columns, double[] totals) {
+
+        List<double[]> tables = onEveryShard(shards, shard -> {
+            double[] table = new double[totals.length];
+            shard.reweight(stump, initial, deltaW, scale, columns, table);
+            return table;
+        });
+
+        System.arraycopy(tables.get(0), 0, totals, 0, totals.length);
+
+        for (int s = 1; s < tables.size(); s++) {
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += tables.get(s)[i];
+            }
+        }
+    }
+
+    /**
+     * This is the sharded, out-of-core version of Learning.adaBoost().
+     * Each round, every shard reweights its own examples, as a sequential
+     * scan, and returns the weighted class total table of its new weights.
+     * The tables are summed in shard order and the next stump is picked
+     * from the sum, so only the tables are ever held in memory.
+     *
+     * @param shards List<? extends Shard> shards of the weighted examples, in input order
+     * @param attributes ArrayList<String> ArrayList of strings containing all questions
+     * @param rounds Integer maximum number of stumps to generate
+     * @return Node containing all the decision stumps and their weights, linked in
+     *         the order they were generated.
+     */
+    public static Node adaBoost(List<? extends Shard> shards, ArrayList<String> attributes, int rounds) {
+
+        Node firstHyp = null;
+        Node parentHyp = null;
+        int[] columns = columns(shards, attributes);
+        double[] totals = new double[columns.length * 2 + 2];
+        int size = shards.stream().mapToInt(Shard::size).sum();
+        double initial = size > 0 ? 1.0 / size : 0;
+
+        reweight(shards, null, initial, 1, 1, columns, totals);
+
+        for (int round = 0; round < rounds && columns.length > 0; round++) {
+
+            double total = totals[totals.length - 2] + totals[totals.length - 1];
+
+            // without labelled examples there is no error to weigh a stump by
+            if (!(total > 0)) {
+                break;
+            }
+            int best = 0;
+            double minError = Learning.stumpError(totals, 0);
+
+            for (int i = 1; i < columns.length; i++) {
+                double currError = Learning.stumpError(totals, i);
+
+                if (currError < minError) {
+                    minError = currError;
+                    best = i;
+                }
+            }
+
+            double err = Math.max(minError / total, Learning.MIN_ERROR);
+
+            if (err >= 0.5) {
+                break;
+            }
+
+            Node currHyp = Learning.weightedStump(attributes.get(best), totals, best);
+            double hypWeight = 0.5 * Math.log((1-err)/err);
+            currHyp.setAdaHypWeight((float) hypWeight);
+
+            if (Metrics.ENABLED) {
+                Metrics.boostingRound(round, currHyp.getQuestion(), err, (float) hypWeight);
+            }
+
+            if (firstHyp == null) {
+                firstHyp = currHyp;
+            }
+            else {
+                parentHyp.setNextStump(currHyp);
+            }
+            parentHyp = currHyp;
+
+            if (err <= Learning.MIN_ERROR || round == rounds - 1) {
+                break;
+            }
+
+            double deltaW = (err)/(1-err);
+            double newTotal = total * (err + deltaW * (1 - err));
+            reweight(shards, currHyp, initial, deltaW, 1 / newTotal, columns, totals);
+        }
+
+        if (firstHyp == null) {
+            firstHyp = totals[totals.length - 2] >= totals[totals.length - 1]
+                    ? new Node("Result", "en") : new Node("Result", "nl");
+            firstHyp.setAda(true);
+            firstHyp.setAdaHypWeight(1.0f);
+        }
+
+        return firstHyp;
+    }
+}
@@ -0,0 +1,255 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Shard of examples held by a ShardWorker in another process,
+ * possibly on another machine, and reached over a socket. Only
+ * the tree built so far and the stump of each AdaBoost round are
+ * sent to the worker, and only count tables are sent back, so the
+ * examples themselves never leave the worker.
+ *
+ * The protocol is binary, big-endian, in request/response pairs.
+ * On connecting, the worker sends:
+ *
+ *   int magic "LNGW", int example count, int column count,
+ *   and the UTF name of each column.
+ *
+ * COUNT sends the tree in pre-order, each node as RESULT and its
+ * label, QUESTION, its column and its True then False subtrees,
+ * or LEAF and the leaf's index, followed by the number of leaves
+ * and each leaf's remaining columns. The worker answers with the
+ * LeafCounts of each leaf.
+ * REWEIGHT sends whether there is a stump, its column (-1 for a
+ * result stump) and True and False labels, the starting weight,
+ * deltaW, scale and the columns to total. The worker answers with
+ * the weighted class total table.
+ * QUIT ends the session.
+ */
+public class RemoteShard implements Shard {
+
+    /** First four bytes sent by a worker, "LNGW" */
+    static final int MAGIC = 0x4C4E4757;
+
+    /** Request for the counts of the leaves of a tree */
+    static final byte COUNT = 1;
+
+    /** Request to reweight the examples after an AdaBoost round */
+    static final byte REWEIGHT = 2;
+
+    /** Request ending the session */
+    static final byte QUIT = 3;
+
+    /** Tree node tags */
+    static final byte RESULT = 0, QUESTION = 1, LEAF = 2;
+
+    /** Socket connected to the worker */
+    private final Socket socket;
+
+    /** Stream of requests to the worker */
+    private final DataOutputStream out;
+
+    /** Stream of responses from the worker */
+    private final DataInputStream in;
+
+    /** Number of examples held by the worker */
+    private final int size;
+
+    /** Question of each column */
+    private final String[] attributes;
+
+    /** Column index of each question */
+    private final HashMap<String, Integer> columnOf = new HashMap<>();
+
+    /**
+     * Constructor for RemoteShard class, connecting to a worker.
+     *
+     * @param host String host name of the worker
+     * @param port Integer port the worker listens on
+     * @throws IOException if the worker cannot be reached
+     */
+    public RemoteShard(String host, int port) throws IOException {
+        this.socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+
+        if (in.readInt() != MAGIC) {
+            socket.close();
+            throw new IOException(host + ":" + port + " is not a shard worker");
+        }
+
+        this.size = in.readInt();
+        this.attributes = new String[in.readInt()];
+
+        for (int i = 0; i < attributes.length; i++) {
+            attributes[i] = in.readUTF();
+            columnOf.put(attributes[i], i);
+        }
+    }
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples held by the worker
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the question of each column
+     *
+     * @return String[] question of each column, in column order
+     */
+    @Override
+    public String[] getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Sends the tree built so far to the worker and reads back the
+     * counts of each unfinished leaf.
+     *
+     * @param root Node root of the tree built so far
+     * @param leaves List<LeafCounts> empty counts of each unfinished leaf
+     */
+    @Override
+    public void countLeaves(Node root, List<LeafCounts> leaves) {
+
+        IdentityHashMap<Node, Integer> leafIndex = new IdentityHashMap<>();
+
+        for (int i = 0; i < leaves.size(); i++) {
+            leafIndex.put(leaves.get(i).getPlaceholder(), i);
+        }
+
+        try {
+            out.writeByte(COUNT);
+            writeTree(root, leafIndex);
+            out.writeInt(leaves.size());
+
+            for (LeafCounts leaf : leaves) {
+                writeInts(leaf.getAttributes());
+            }
+            out.flush();
+
+            for (LeafCounts leaf : leaves) {
+                leaf.read(in);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper function used to write a tree in pre-order.
+     *
+     * @param node Node root of the tree
+     * @param leafIndex IdentityHashMap<Node, Integer> index of each unfinished leaf by placeholder
+     * @throws IOException if the worker cannot be written to
+     */
+    private void writeTree(Node node, IdentityHashMap<Node, Integer> leafIndex) throws IOException {
+
+        Integer leaf = leafIndex.get(node);
+
+        if (leaf != null) {
+            out.writeByte(LEAF);
+            out.writeInt(leaf);
+        }
+        else if (node.getResult() != null) {
+            out.writeByte(RESULT);
+            out.writeByte(ExampleMatrix.toLabel(node.getResult()));
+        }
+        else {
+            out.writeByte(QUESTION);
+            out.writeInt(columnOf.get(node.getQuestion()));
+            writeTree(node.getChildNodes().get("True"), leafIndex);
+            writeTree(node.getChildNodes().get("False"), leafIndex);
+        }
+    }
+
+    /**
+     * Sends the stump of the last AdaBoost round to the worker and
+     * reads back the weighted class total table of its new weights.
+     *
+     * @param stump Node stump picked in the last round, or null to give
+     *              every example the starting weight
+     * @param initial Double starting weight of every example
+     * @param deltaW Double factor for the weights of correct examples
+     * @param scale Double factor for every weight
+     * @param columns int[] column index of each attribute
+     * @param totals double[] receiving the weighted class total table
+     */
+    @Override
+    public void reweight(Node stump, double initial, double deltaW, double scale, int[] columns, double[] totals) {
+
+        try {
+            out.writeByte(REWEIGHT);
+            out.writeBoolean(stump != null);
+
+            if (stump != null && stump.getResult() != null) {
+                out.writeInt(-1);
+                out.writeByte(ExampleMatrix.toLabel(stump.getResult()));
+                out.writeByte(ExampleMatrix.toLabel(stump.getResult()));
+            }
+            else if (stump != null) {
+                out.writeInt(columnOf.get(stump.getQuestion()));
+                out.writeByte(ExampleMatrix.toLabel(stump.getChildNodes().get("True").getResult()));
+                out.writeByte(ExampleMatrix.toLabel(stump.getChildNodes().get("False").getResult()));
+            }
+
+            out.writeDouble(initial);
+            out.writeDouble(deltaW);
+            out.writeDouble(scale);
+            writeInts(columns);
+            out.flush();
+
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] = in.readDouble();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Helper function used to write an array of integers and its length.
+     *
+     * @param values int[] integers to write
+     * @throws IOException if the worker cannot be written to
+     */
+    private void writeInts(int[] values) throws IOException {
+
+        out.writeInt(values.length);
+
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Ends the session with the worker.
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        try (socket) {
+            out.writeByte(QUIT);
+            out.flush();
+        }
+    }
+}
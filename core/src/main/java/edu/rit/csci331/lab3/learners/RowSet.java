@@ -0,0 +1,218 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+
+/**
+ * The group of examples stored at one node of a Decision Tree
+ * while it is being learned. Large groups are kept as a row
+ * bitset over the ExampleMatrix, so counting and partitioning
+ * them are popcount and AND operations. Once a group becomes
+ * sparse, it switches to a range of a sorted example-index
+ * array that its whole subtree shares: each split stably
+ * partitions its range into a second array of the same size,
+ * so children only ever touch their own part of the two
+ * arrays and subtrees can be grown concurrently without
+ * copying any lists.
+ */
+class RowSet {
+
+    /** Groups smaller than this many examples per bitset word become sparse */
+    static final int SPARSE_PER_WORD = 8;
+
+    /** Row bitset of the group, or null if it is sparse */
+    private final long[] bits;
+
+    /** Sorted row indexes of a sparse group, in index[from] to index[to - 1] */
+    private final int[] index;
+
+    /** Array the range is partitioned into when a sparse group is split */
+    private final int[] scratch;
+
+    /** First position of a sparse group's range */
+    private final int from;
+
+    /** Position after the last position of a sparse group's range */
+    private final int to;
+
+    /** Number of examples in the group */
+    private final int size;
+
+    /**
+     * Constructor for a dense RowSet
+     *
+     * @param bits long[] row bitset of the group
+     */
+    public RowSet(long[] bits) {
+        this(bits, null, null, 0, 0, ExampleMatrix.count(bits));
+    }
+
+    /**
+     * Constructor for RowSet class
+     *
+     * @param bits long[] row bitset, or null if the group is sparse
+     * @param index int[] sorted row indexes of a sparse group
+     * @param scratch int[] array to partition a sparse group into
+     * @param from Integer first position of a sparse group's range
+     * @param to Integer position after a sparse group's range
+     * @param size Integer number of examples in the group
+     */
+    private RowSet(long[] bits, int[] index, int[] scratch, int from, int to, int size) {
+        this.bits = bits;
+        this.index = index;
+        this.scratch = scratch;
+        this.from = from;
+        this.to = to;
+        this.size = size;
+    }
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples in the group
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the first example of the group.
+     *
+     * @return Integer lowest row index in the group, or -1 if it is empty
+     */
+    public int first() {
+
+        if (size == 0) {
+            return -1;
+        }
+        else if (bits == null) {
+            return index[from];
+        }
+
+        for (int w = 0; w < bits.length; w++) {
+            if (bits[w] != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(bits[w]);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Counts the examples of the group with the given label.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param label byte label to count
+     * @return Integer number of examples with that label
+     */
+    public int countLabel(ExampleMatrix examples, byte label) {
+
+        if (bits != null) {
+            return ExampleMatrix.countBoth(bits, label == ExampleMatrix.EN ? examples.getEnRows() : examples.getNlRows());
+        }
+
+        int count = 0;
+
+        for (int i = from; i < to; i++) {
+            if (examples.getLabel(index[i]) == label) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Builds the class count table of the group for the given attributes.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param attrs int[] column index of each candidate attribute
+     * @return int[] class count table, laid out as by SplitCounter
+     */
+    public int[] countClasses(ExampleMatrix examples, int[] attrs) {
+
+        if (bits != null) {
+            return SplitCounter.count(examples, bits, attrs);
+        }
+
+        return SplitCounter.count(examples, index, from, to, attrs);
+    }
+
+    /**
+     * Partitions the group by its answers to an attribute.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param attr Integer column index of the attribute
+     * @return RowSet[] with the examples answering True at 0 and False at 1
+     */
+    public RowSet[] split(ExampleMatrix examples, int attr) {
+
+        long[] column = examples.getColumn(attr);
+
+        if (bits != null) {
+            long[] trueBits = new long[bits.length];
+            long[] falseBits = new long[bits.length];
+
+            for (int w = 0; w < bits.length; w++) {
+                trueBits[w] = bits[w] & column[w];
+                falseBits[w] = bits[w] & ~column[w];
+            }
+
+            return new RowSet[] {dense(trueBits), dense(falseBits)};
+        }
+
+        int t = from;
+
+        for (int i = from; i < to; i++) {
+            int row = index[i];
+
+            if ((column[row >>> 6] & (1L << row)) != 0) {
+                scratch[t++] = row;
+            }
+        }
+
+        int f = t;
+
+        for (int i = from; i < to; i++) {
+            int row = index[i];
+
+            if ((column[row >>> 6] & (1L << row)) == 0) {
+                scratch[f++] = row;
+            }
+        }
+
+        return new RowSet[] {
+                new RowSet(null, scratch, index, from, t, t - from),
+                new RowSet(null, scratch, index, t, to, to - t)
+        };
+    }
+
+    /**
+     * Helper function used to create a group from a row bitset,
+     * switching to a sparse index range if the group is sparse.
+     *
+     * @param bits long[] row bitset of the group
+     * @return RowSet containing the group
+     */
+    private static RowSet dense(long[] bits) {
+
+        int size = ExampleMatrix.count(bits);
+
+        if (size >= bits.length * SPARSE_PER_WORD) {
+            return new RowSet(bits, null, null, 0, 0, size);
+        }
+
+        int[] index = new int[size];
+        int i = 0;
+
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+
+            while (word != 0) {
+                index[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+
+        return new RowSet(null, index, new int[size], 0, size, size);
+    }
+}
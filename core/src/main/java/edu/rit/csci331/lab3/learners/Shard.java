@@ -0,0 +1,65 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * One part of the training examples, counted by OutOfCoreLearning.
+ * A shard only ever reports statistics that can be summed across
+ * shards: class count tables of the leaves of a Decision Tree, and
+ * weighted class total tables of AdaBoost. Shards are given in the
+ * same order as their examples appear in the whole input, so the
+ * merged counts are the same as those of a single shard, and the
+ * merged weighted totals only differ from them by rounding.
+ */
+public interface Shard extends AutoCloseable {
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples in the shard
+     */
+    int size();
+
+    /**
+     * Getter for the question of each column
+     *
+     * @return String[] question of each column, in column order
+     */
+    String[] getAttributes();
+
+    /**
+     * Sends every example of the shard down a Decision Tree, adding the
+     * examples reaching each unfinished leaf to its counts.
+     *
+     * @param root Node root of the tree built so far, whose unfinished
+     *             leaves are the placeholders of the given counts
+     * @param leaves List<LeafCounts> empty counts of each unfinished leaf
+     */
+    void countLeaves(Node root, List<LeafCounts> leaves);
+
+    /**
+     * Reweights every example of the shard after an AdaBoost round and
+     * builds the weighted class total table of the new weights, as
+     * Learning.reweight() does.
+     *
+     * @param stump Node stump picked in the last round, or null to give
+     *              every example the starting weight
+     * @param initial Double starting weight of every example
+     * @param deltaW Double factor for the weights of correct examples
+     * @param scale Double factor for every weight
+     * @param columns int[] column index of each attribute
+     * @param totals double[] receiving the weighted class total table
+     */
+    void reweight(Node stump, double initial, double deltaW, double scale, int[] columns, double[] totals);
+
+    /**
+     * Releases the examples of the shard.
+     *
+     * @throws IOException if the shard cannot be released
+     */
+    @Override
+    void close() throws IOException;
+}
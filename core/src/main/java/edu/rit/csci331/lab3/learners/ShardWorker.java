@@ -0,0 +1,275 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Worker process side of sharded training. It holds one shard of
+ * the training examples and answers the requests of a coordinator
+ * running OutOfCoreLearning over RemoteShards, counting the leaves
+ * of each tree it is sent and reweighting its examples after each
+ * AdaBoost round. The protocol is described in RemoteShard.
+ * Every count and column index sent by the coordinator is checked
+ * against the shard's columns before it is used, so a bad request
+ * ends the session with an IOException instead of exhausting memory.
+ */
+public class ShardWorker {
+
+    /** Examples of this worker's shard */
+    private final Shard shard;
+
+    /**
+     * Constructor for ShardWorker class
+     *
+     * @param shard Shard of examples to serve
+     */
+    public ShardWorker(Shard shard) {
+        this.shard = shard;
+    }
+
+    /**
+     * Serves one coordinator session, answering every request read from
+     * the input until the coordinator quits or closes the connection.
+     *
+     * @param input InputStream of requests
+     * @param output OutputStream the responses are written to
+     * @throws IOException if the coordinator cannot be read from or written to
+     */
+    public void serve(InputStream input, OutputStream output) throws IOException {
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input, 1 << 16));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(output, 1 << 16));
+        String[] attributes = shard.getAttributes();
+
+        out.writeInt(RemoteShard.MAGIC);
+        out.writeInt(shard.size());
+        out.writeInt(attributes.length);
+        for (String attribute : attributes) {
+            out.writeUTF(attribute);
+        }
+        out.flush();
+
+        while (true) {
+            byte request;
+
+            try {
+                request = in.readByte();
+            } catch (EOFException e) {
+                return;
+            }
+
+            if (request == RemoteShard.COUNT) {
+                Map<Integer, Node> placeholders = new HashMap<>();
+                Node root = readTree(in, attributes, placeholders, 0);
+                List<LeafCounts> leaves = new ArrayList<>();
+                int count = in.readInt();
+
+                if (count != placeholders.size()) {
+                    throw new IOException("Tree has " + placeholders.size() + " leaves, not " + count);
+                }
+
+                for (int i = 0; i < count; i++) {
+                    if (!placeholders.containsKey(i)) {
+                        throw new IOException("Leaf " + i + " is not in the tree");
+                    }
+                    leaves.add(new LeafCounts(placeholders.get(i), readColumns(in, attributes)));
+                }
+
+                shard.countLeaves(root, leaves);
+
+                for (LeafCounts leaf : leaves) {
+                    leaf.write(out);
+                }
+            }
+            else if (request == RemoteShard.REWEIGHT) {
+                Node stump = in.readBoolean() ? readStump(in, attributes) : null;
+                double initial = in.readDouble();
+                double deltaW = in.readDouble();
+                double scale = in.readDouble();
+                int[] columns = readColumns(in, attributes);
+                double[] totals = new double[columns.length * 2 + 2];
+
+                shard.reweight(stump, initial, deltaW, scale, columns, totals);
+
+                for (double total : totals) {
+                    out.writeDouble(total);
+                }
+            }
+            else if (request == RemoteShard.QUIT) {
+                return;
+            }
+            else {
+                throw new IOException("Unknown request " + request);
+            }
+
+            out.flush();
+        }
+    }
+
+    /**
+     * Helper function used to read a tree written in pre-order. Each
+     * unfinished leaf is given a placeholder node, stored under the
+     * leaf's index in placeholders. A path asks each column at most
+     * once, so a tree deeper than the number of columns is refused.
+     *
+     * @param in DataInputStream to read from
+     * @param attributes String[] question of each column
+     * @param placeholders Map<Integer, Node> receiving the placeholder of each unfinished leaf
+     * @param depth Integer depth of the node being read
+     * @return Node root of the tree
+     * @throws IOException if the tree cannot be read or is not valid
+     */
+    private static Node readTree(DataInputStream in, String[] attributes, Map<Integer, Node> placeholders,
+                                 int depth) throws IOException {
+
+        byte tag = in.readByte();
+
+        if (tag == RemoteShard.LEAF) {
+            int index = in.readInt();
+            Node placeholder = new Node(null, null);
+
+            if (index < 0 || placeholders.putIfAbsent(index, placeholder) != null) {
+                throw new IOException("Invalid leaf index " + index);
+            }
+            return placeholder;
+        }
+        else if (tag == RemoteShard.RESULT) {
+            return new Node("Result", readResult(in));
+        }
+        else if (tag != RemoteShard.QUESTION || depth >= attributes.length) {
+            throw new IOException("Invalid tree node " + tag + " at depth " + depth);
+        }
+
+        Node node = new Node(attributes[readColumn(in, attributes)], null);
+        node.getChildNodes().put("True", readTree(in, attributes, placeholders, depth + 1));
+        node.getChildNodes().put("False", readTree(in, attributes, placeholders, depth + 1));
+
+        return node;
+    }
+
+    /**
+     * Helper function used to read the stump of an AdaBoost round.
+     *
+     * @param in DataInputStream to read from
+     * @param attributes String[] question of each column
+     * @return Node stump, with its True and False result nodes
+     * @throws IOException if the stump cannot be read
+     */
+    private static Node readStump(DataInputStream in, String[] attributes) throws IOException {
+
+        int column = in.readInt();
+
+        if (column >= attributes.length) {
+            throw new IOException("Invalid column " + column);
+        }
+
+        String trueResult = readResult(in);
+        String falseResult = readResult(in);
+
+        if (column < 0) {
+            return new Node("Result", trueResult);
+        }
+
+        Node stump = new Node(attributes[column], null);
+        stump.getChildNodes().put("True", new Node("Result", trueResult));
+        stump.getChildNodes().put("False", new Node("Result", falseResult));
+
+        return stump;
+    }
+
+    /**
+     * Helper function used to read the label of a result.
+     *
+     * @param in DataInputStream to read from
+     * @return String result, "en" or "nl"
+     * @throws IOException if the label cannot be read or is not en or nl
+     */
+    private static String readResult(DataInputStream in) throws IOException {
+
+        byte label = in.readByte();
+        String result = ExampleMatrix.toResult(label);
+
+        if (result == null) {
+            throw new IOException("Invalid label " + label);
+        }
+
+        return result;
+    }
+
+    /**
+     * Helper function used to read one column index.
+     *
+     * @param in DataInputStream to read from
+     * @param attributes String[] question of each column
+     * @return Integer column index
+     * @throws IOException if the column cannot be read or is not a column of the shard
+     */
+    private static int readColumn(DataInputStream in, String[] attributes) throws IOException {
+
+        int column = in.readInt();
+
+        if (column < 0 || column >= attributes.length) {
+            throw new IOException("Invalid column " + column);
+        }
+
+        return column;
+    }
+
+    /**
+     * Helper function used to read an array of column indexes and its
+     * length, which cannot be more than the number of columns.
+     *
+     * @param in DataInputStream to read from
+     * @param attributes String[] question of each column
+     * @return int[] column indexes read
+     * @throws IOException if the array cannot be read or is not valid
+     */
+    private static int[] readColumns(DataInputStream in, String[] attributes) throws IOException {
+
+        int length = in.readInt();
+
+        if (length < 0 || length > attributes.length) {
+            throw new IOException("Invalid column count " + length);
+        }
+
+        int[] values = new int[length];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readColumn(in, attributes);
+        }
+
+        return values;
+    }
+
+    /**
+     * Listens on a socket for a coordinator, serves its session and
+     * returns once it quits.
+     *
+     * @param port Integer port to listen on
+     * @param bind InetAddress to bind to, such as the loopback address
+     * @throws IOException if the socket cannot be opened
+     */
+    public void listen(int port, InetAddress bind) throws IOException {
+
+        try (ServerSocket server = new ServerSocket(port, 1, bind); Socket coordinator = server.accept()) {
+            coordinator.setTcpNoDelay(true);
+            serve(coordinator.getInputStream(), coordinator.getOutputStream());
+        }
+    }
+}
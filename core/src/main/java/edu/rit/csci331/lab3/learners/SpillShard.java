@@ -0,0 +1,328 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.SpillFile;
+import edu.rit.csci331.lab3.model.Node;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Shard of examples spilled to a SpillFile on this machine. Every
+ * statistic is built in sequential passes over the file, one block
+ * at a time, so heap use does not grow with the number of examples.
+ * AdaBoost weights are kept in a weight column, a file of one double
+ * per example next to the spill file, created on the first round.
+ * Closing the shard deletes both files.
+ */
+public class SpillShard implements Shard {
+
+    /** Examples of the shard */
+    private final SpillFile examples;
+
+    /** Column index of each question */
+    private final HashMap<String, Integer> columnOf = new HashMap<>();
+
+    /** Path of the weight column, or null before the first AdaBoost round */
+    private Path weightFile;
+
+    /** Channel of the weight column, or null before the first AdaBoost round */
+    private FileChannel weights;
+
+    /**
+     * Constructor for SpillShard class
+     *
+     * @param examples SpillFile of the shard's examples, closed with the shard
+     */
+    public SpillShard(SpillFile examples) {
+        this.examples = examples;
+
+        String[] names = examples.getAttributes();
+        for (int i = 0; i < names.length; i++) {
+            columnOf.put(names[i], i);
+        }
+    }
+
+    /**
+     * Getter for the number of examples
+     *
+     * @return Integer number of examples in the shard
+     */
+    @Override
+    public int size() {
+        return examples.size();
+    }
+
+    /**
+     * Getter for the question of each column
+     *
+     * @return String[] question of each column, in column order
+     */
+    @Override
+    public String[] getAttributes() {
+        return examples.getAttributes();
+    }
+
+    /**
+     * Sends every example of the shard down a Decision Tree in one
+     * sequential pass over the file, histogram-style: each block is
+     * routed down the tree with AND operations on its bitsets, and the
+     * examples reaching each unfinished leaf are counted for every one
+     * of its remaining attributes at once.
+     *
+     * @param root Node root of the tree built so far
+     * @param leaves List<LeafCounts> empty counts of each unfinished leaf
+     */
+    @Override
+    public void countLeaves(Node root, List<LeafCounts> leaves) {
+
+        IdentityHashMap<Node, LeafCounts> byPlaceholder = new IdentityHashMap<>();
+
+        for (LeafCounts leaf : leaves) {
+            byPlaceholder.put(leaf.getPlaceholder(), leaf);
+        }
+
+        examples.forEachBlock(block -> {
+            long[] all = new long[block.words()];
+
+            for (int row = 0; row < block.size(); row++) {
+                all[row >>> 6] |= 1L << row;
+            }
+            route(root, all, block, byPlaceholder);
+        });
+    }
+
+    /**
+     * Helper function used to send the examples of a block down the tree
+     * built so far, adding the examples reaching each unfinished leaf to
+     * its counts. A node with a result on one side is followed on the
+     * other side without recursing, so long chains of nodes do not
+     * deepen the stack.
+     *
+     * @param node Node to send the examples to
+     * @param member long[] bitset of the block's examples reaching the node
+     * @param block SpillFile.Block being scanned
+     * @param leaves IdentityHashMap<Node, LeafCounts> unfinished leaves by placeholder
+     */
+    private void route(Node node, long[] member, SpillFile.Block block, IdentityHashMap<Node, LeafCounts> leaves) {
+
+        while (ExampleMatrix.count(member) > 0) {
+            LeafCounts leaf = leaves.get(node);
+
+            if (leaf != null) {
+                leaf.count(block, member);
+                return;
+            }
+            else if (node.getResult() != null) {
+                return;
+            }
+
+            long[] column = block.getColumn(columnOf.get(node.getQuestion()));
+            long[] trueMember = new long[member.length];
+            long[] falseMember = new long[member.length];
+
+            for (int w = 0; w < member.length; w++) {
+                trueMember[w] = member[w] & column[w];
+                falseMember[w] = member[w] & ~column[w];
+            }
+
+            Node trueChild = node.getChildNodes().get("True");
+
+            if (trueChild.getResult() == null) {
+                route(trueChild, trueMember, block, leaves);
+            }
+
+            node = node.getChildNodes().get("False");
+            member = falseMember;
+        }
+    }
+
+    /**
+     * Reweights and normalizes every example in one sequential pass
+     * over the file, the same as Learning.reweight(). The weight of each
+     * example is read from the weight column and written back one block
+     * at a time. Which examples the stump classified correctly is worked
+     * out for each block from the stump's column and the label bitsets.
+     * Every weighted total is added up in example order, so the table is
+     * the same as the one built in memory.
+     *
+     * @param stump Node stump picked in the last round, or null to give
+     *              every example the starting weight
+     * @param initial Double starting weight of every example
+     * @param deltaW Double factor for the weights of correct examples
+     * @param scale Double factor for every weight
+     * @param columns int[] column index of each attribute
+     * @param totals double[] receiving the weighted class total table
+     */
+    @Override
+    public void reweight(Node stump, double initial, double deltaW, double scale, int[] columns, double[] totals) {
+
+        FileChannel weights = weights();
+        ByteBuffer buf = ByteBuffer.allocateDirect(SpillFile.BLOCK_ROWS * 8);
+        double[] a = new double[SpillFile.BLOCK_ROWS];
+        double[] b = new double[SpillFile.BLOCK_ROWS];
+        double[] classTotals = new double[2];
+        long[] position = {0};
+        double correctFactor = deltaW * scale;
+        int stumpColumn = stump == null || stump.getResult() != null ? -1 : columnOf.get(stump.getQuestion());
+
+        Arrays.fill(totals, 0);
+
+        examples.forEachBlock(block -> {
+            int rows = block.size();
+            long[] correct = stump != null ? correctRows(block, stump, stumpColumn) : null;
+            long[] en = block.getEnRows();
+            long[] nl = block.getNlRows();
+
+            buf.clear().limit(rows * 8);
+            if (stump != null) {
+                transfer(weights, buf, position[0], false);
+            }
+            DoubleBuffer column = buf.asDoubleBuffer();
+
+            for (int row = 0; row < rows; row++) {
+                int word = row >>> 6;
+                long bit = 1L << row;
+                boolean wasCorrect = correct != null && (correct[word] & bit) != 0;
+                double w = (stump != null ? column.get(row) : initial) * (wasCorrect ? correctFactor : scale);
+
+                a[row] = (en[word] & bit) != 0 ? w : 0;
+                b[row] = (nl[word] & bit) != 0 ? w : 0;
+                column.put(row, w);
+                classTotals[0] += a[row];
+                classTotals[1] += b[row];
+            }
+
+            buf.clear().limit(rows * 8);
+            transfer(weights, buf, position[0], true);
+            position[0] += rows * 8L;
+
+            for (int i = 0; i < columns.length; i++) {
+                long[] answers = block.getColumn(columns[i]);
+
+                for (int w = 0; w < block.words(); w++) {
+                    long bits = answers[w];
+
+                    while (bits != 0) {
+                        int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        totals[2 * i] += a[row];
+                        totals[2 * i + 1] += b[row];
+                    }
+                }
+            }
+        });
+
+        totals[totals.length - 2] = classTotals[0];
+        totals[totals.length - 1] = classTotals[1];
+    }
+
+    /**
+     * Helper function used to open the weight column, creating it next
+     * to the spill file the first time it is needed.
+     *
+     * @return FileChannel of the weight column
+     */
+    private FileChannel weights() {
+
+        if (weights == null) {
+            try {
+                weightFile = Files.createTempFile(examples.getPath().getParent(), "lab3-", ".weights");
+                weightFile.toFile().deleteOnExit();
+                weights = FileChannel.open(weightFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        return weights;
+    }
+
+    /**
+     * Helper function used to find which examples of a block a stump
+     * classifies correctly, the same as Learning.correctRows().
+     *
+     * @param block SpillFile.Block being scanned
+     * @param stump Node stump to check
+     * @param column Integer column index of the stump's question, or -1
+     *               if the stump is a result node
+     * @return long[] bitset of the block's examples classified correctly
+     */
+    private static long[] correctRows(SpillFile.Block block, Node stump, int column) {
+
+        long[] correct = new long[block.words()];
+
+        if (column < 0) {
+            System.arraycopy(labelRows(block, stump.getResult()), 0, correct, 0, correct.length);
+            return correct;
+        }
+
+        long[] answers = block.getColumn(column);
+        long[] trueRows = labelRows(block, stump.getChildNodes().get("True").getResult());
+        long[] falseRows = labelRows(block, stump.getChildNodes().get("False").getResult());
+
+        for (int w = 0; w < correct.length; w++) {
+            correct[w] = (answers[w] & trueRows[w]) | (~answers[w] & falseRows[w]);
+        }
+
+        return correct;
+    }
+
+    /**
+     * Helper function used to find the bitset of a block's examples with a result.
+     *
+     * @param block SpillFile.Block being scanned
+     * @param result String result, "en" or "nl"
+     * @return long[] bitset of the examples classified as result
+     */
+    private static long[] labelRows(SpillFile.Block block, String result) {
+        return result.equals("en") ? block.getEnRows() : block.getNlRows();
+    }
+
+    /**
+     * Helper function used to read or write the whole buffer at a
+     * position of the weight column.
+     *
+     * @param weights FileChannel of the weight column
+     * @param buf ByteBuffer to fill or write out
+     * @param position Long position in the file
+     * @param write Boolean indicating if the buffer is written instead of read
+     */
+    private static void transfer(FileChannel weights, ByteBuffer buf, long position, boolean write) {
+
+        try {
+            while (buf.hasRemaining()) {
+                position += write ? weights.write(buf, position) : weights.read(buf, position);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        buf.flip();
+    }
+
+    /**
+     * Closes and deletes the spill file and the weight column.
+     *
+     * @throws IOException if a file cannot be deleted
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (weights != null) {
+            weights.close();
+            Files.deleteIfExists(weightFile);
+        }
+
+        examples.close();
+    }
+}
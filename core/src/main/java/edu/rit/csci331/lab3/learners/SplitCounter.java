@@ -0,0 +1,306 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Fork-join task that builds the class count table used to
+ * pick the next question for a group of examples. A single
+ * pass over the row bitset counts, for every candidate
+ * attribute at once, how many English (en) and Dutch (nl)
+ * examples answer True, along with the total number of each.
+ * Large groups are split into ranges of bitset words, or of a
+ * sparse group's index array, that are counted in parallel and
+ * then summed. Counts are integers, so
+ * the table, and every gain calculated from it, is the same no
+ * matter how the work was split.
+ *
+ * When there are many more candidate attributes than True answers
+ * per example, such as with hashed n-gram questions, each example's
+ * True answers are read from its row instead, so the False answers
+ * are never touched.
+ *
+ * The table holds aTrue for attribute i at 2i, bTrue at 2i + 1,
+ * and the total en and nl counts in its last two entries.
+ */
+public class SplitCounter extends RecursiveTask<int[]> {
+
+    /** Serialization version, declared since RecursiveTask is Serializable */
+    private static final long serialVersionUID = 1L;
+
+    /** Number of bitset words below which a range is counted on one thread */
+    static final int THRESHOLD = 1 << 12;
+
+    /** Candidate attributes per True answer of an example above which rows are counted instead of columns */
+    static final int SPARSE_ATTRIBUTES = 4;
+
+    /** Examples being counted */
+    private final ExampleMatrix examples;
+
+    /** Row bitset of the group of examples, or null if it is sparse */
+    private final long[] rows;
+
+    /** Row indexes of a sparse group of examples */
+    private final int[] index;
+
+    /** Column index of each candidate attribute */
+    private final int[] attrs;
+
+    /** First bitset word or index position of the range counted by this task */
+    private final int from;
+
+    /** Word or position after the last one in the range counted by this task */
+    private final int to;
+
+    /**
+     * Constructor for SplitCounter class
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows long[] row bitset of the group of examples, or null
+     * @param index int[] row indexes of a sparse group of examples, or null
+     * @param attrs int[] column index of each candidate attribute
+     * @param from Integer first bitset word or index position to count
+     * @param to Integer word or position after the last one to count
+     */
+    private SplitCounter(ExampleMatrix examples, long[] rows, int[] index, int[] attrs, int from, int to) {
+        this.examples = examples;
+        this.rows = rows;
+        this.index = index;
+        this.attrs = attrs;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * Builds the class count table of a group of examples, in
+     * parallel if the group is large enough.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows long[] row bitset of the group of examples
+     * @param attrs int[] column index of each candidate attribute
+     * @return int[] class count table
+     */
+    public static int[] count(ExampleMatrix examples, long[] rows, int[] attrs) {
+
+        if (rows.length < THRESHOLD * 2) {
+            return countRange(examples, rows, attrs, 0, rows.length);
+        }
+
+        return new SplitCounter(examples, rows, null, attrs, 0, rows.length).invoke();
+    }
+
+    /**
+     * Builds the class count table of a sparse group of examples, in
+     * parallel if the group is large enough.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param index int[] row indexes of the group of examples
+     * @param from Integer first position of the group in index
+     * @param to Integer position after the last row of the group
+     * @param attrs int[] column index of each candidate attribute
+     * @return int[] class count table
+     */
+    static int[] count(ExampleMatrix examples, int[] index, int from, int to, int[] attrs) {
+
+        if (to - from < THRESHOLD * 2) {
+            return countIndexes(examples, index, attrs, from, to);
+        }
+
+        return new SplitCounter(examples, null, index, attrs, from, to).invoke();
+    }
+
+    /**
+     * Counts this task's range, splitting it in half and counting
+     * both halves in parallel while it is above THRESHOLD.
+     *
+     * @return int[] class count table of the range
+     */
+    @Override
+    protected int[] compute() {
+
+        if (to - from < THRESHOLD * 2) {
+            return rows != null ? countRange(examples, rows, attrs, from, to) : countIndexes(examples, index, attrs, from, to);
+        }
+
+        int mid = (from + to) >>> 1;
+        SplitCounter left = new SplitCounter(examples, rows, index, attrs, from, mid);
+        left.fork();
+
+        int[] counts = new SplitCounter(examples, rows, index, attrs, mid, to).compute();
+        int[] leftCounts = left.join();
+
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += leftCounts[i];
+        }
+
+        return counts;
+    }
+
+    /**
+     * Counts one range of bitset words on the current thread.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows long[] row bitset of the group of examples
+     * @param attrs int[] column index of each candidate attribute
+     * @param from Integer first bitset word to count
+     * @param to Integer word after the last bitset word to count
+     * @return int[] class count table of the range
+     */
+    static int[] countRange(ExampleMatrix examples, long[] rows, int[] attrs, int from, int to) {
+
+        int[] counts = new int[attrs.length * 2 + 2];
+        long[][] columns = new long[attrs.length][];
+        long[] enRows = examples.getEnRows();
+        long[] nlRows = examples.getNlRows();
+        int[] position = positions(examples, attrs);
+        int aCount = 0;
+        int bCount = 0;
+
+        for (int i = 0; i < attrs.length; i++) {
+            columns[i] = examples.getColumn(attrs[i]);
+        }
+
+        for (int w = from; w < to; w++) {
+            long m = rows[w];
+
+            if (m == 0) {
+                continue;
+            }
+
+            long en = m & enRows[w];
+            long nl = m & nlRows[w];
+            aCount += Long.bitCount(en);
+            bCount += Long.bitCount(nl);
+
+            if (position != null) {
+                for (long bits = en; bits != 0; bits &= bits - 1) {
+                    countRow(examples, (w << 6) + Long.numberOfTrailingZeros(bits), position, counts, 0);
+                }
+                for (long bits = nl; bits != 0; bits &= bits - 1) {
+                    countRow(examples, (w << 6) + Long.numberOfTrailingZeros(bits), position, counts, 1);
+                }
+                continue;
+            }
+
+            for (int i = 0; i < columns.length; i++) {
+                long answers = columns[i][w];
+                counts[2 * i] += Long.bitCount(en & answers);
+                counts[2 * i + 1] += Long.bitCount(nl & answers);
+            }
+        }
+
+        counts[counts.length - 2] = aCount;
+        counts[counts.length - 1] = bCount;
+
+        return counts;
+    }
+
+    /**
+     * Counts one range of a sparse group's index array on the current thread.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param index int[] row indexes of the group of examples
+     * @param attrs int[] column index of each candidate attribute
+     * @param from Integer first position to count
+     * @param to Integer position after the last one to count
+     * @return int[] class count table of the range
+     */
+    static int[] countIndexes(ExampleMatrix examples, int[] index, int[] attrs, int from, int to) {
+
+        int[] counts = new int[attrs.length * 2 + 2];
+        long[][] columns = new long[attrs.length][];
+        int[] position = positions(examples, attrs);
+        int aCount = 0;
+        int bCount = 0;
+
+        for (int i = 0; i < attrs.length; i++) {
+            columns[i] = examples.getColumn(attrs[i]);
+        }
+
+        for (int p = from; p < to; p++) {
+            int row = index[p];
+            int w = row >>> 6;
+            long bit = 1L << row;
+            byte label = examples.getLabel(row);
+            int offset;
+
+            if (label == ExampleMatrix.EN) {
+                aCount++;
+                offset = 0;
+            }
+            else if (label == ExampleMatrix.NL) {
+                bCount++;
+                offset = 1;
+            }
+            else {
+                continue;
+            }
+
+            if (position != null) {
+                countRow(examples, row, position, counts, offset);
+                continue;
+            }
+
+            for (int i = 0; i < columns.length; i++) {
+                if ((columns[i][w] & bit) != 0) {
+                    counts[2 * i + offset]++;
+                }
+            }
+        }
+
+        counts[counts.length - 2] = aCount;
+        counts[counts.length - 1] = bCount;
+
+        return counts;
+    }
+
+    /**
+     * Helper function used to decide whether answers should be counted
+     * row by row, and if so to map each column to its candidate attribute.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param attrs int[] column index of each candidate attribute
+     * @return int[] index in attrs of each column, or -1 if it is not a
+     *         candidate, or null if answers should be counted by column.
+     */
+    static int[] positions(ExampleMatrix examples, int[] attrs) {
+
+        if (!examples.hasRowFeatures()
+                || (long) attrs.length * examples.size() <= (long) SPARSE_ATTRIBUTES * examples.nonZeros()) {
+            return null;
+        }
+
+        int[] position = new int[examples.getAttributes().length];
+        Arrays.fill(position, -1);
+
+        for (int i = 0; i < attrs.length; i++) {
+            position[attrs[i]] = i;
+        }
+
+        return position;
+    }
+
+    /**
+     * Helper function used to count the True answers of one example.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param row Integer row index of the example
+     * @param position int[] index in attrs of each column, from positions()
+     * @param counts int[] class count table being built
+     * @param offset Integer 0 if the example is en, 1 if it is nl
+     */
+    private static void countRow(ExampleMatrix examples, int row, int[] position, int[] counts, int offset) {
+
+        int[] features = examples.getRowFeatures();
+
+        for (int k = examples.rowStart(row); k < examples.rowEnd(row); k++) {
+            int i = position[features[k]];
+
+            if (i >= 0) {
+                counts[2 * i + offset]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package edu.rit.csci331.lab3.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the stump chosen by one round of AdaBoost.
+ */
+@Name("edu.rit.csci331.lab3.BoostingRound")
+@Label("Boosting Round")
+@Category("Lab 3")
+@Description("Stump chosen by one round of AdaBoost, with its error and hypothesis weight")
+class BoostingRoundEvent extends jdk.jfr.Event {
+
+    /** Number of the round, starting at 0 */
+    @Label("Round")
+    int round;
+
+    /** Question asked by the stump */
+    @Label("Question")
+    String question;
+
+    /** Weighted error of the stump */
+    @Label("Error")
+    double error;
+
+    /** Hypothesis weight of the stump */
+    @Label("Hypothesis Weight")
+    float adaHypWeight;
+}
@@ -0,0 +1,110 @@
+package edu.rit.csci331.lab3.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds. Each latency
+ * is counted in the bucket of its highest set bit, so bucket b
+ * holds latencies from 2^b up to 2^(b + 1) nanoseconds and
+ * percentiles are accurate to within a factor of 2, which is
+ * enough to see which stage time goes to. Recording a latency
+ * is a few atomic adds and never allocates.
+ */
+public class LatencyHistogram {
+
+    /** Number of buckets, one per bit of a long */
+    private static final int BUCKETS = 64;
+
+    /** Number of latencies counted in each bucket */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    /** Number of latencies recorded */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of every latency recorded */
+    private final LongAdder total = new LongAdder();
+
+    /** Largest latency recorded */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos long latency in nanoseconds
+     */
+    public void record(long nanos) {
+
+        nanos = Math.max(nanos, 1);
+
+        buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(nanos));
+        count.increment();
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * Getter for the number of latencies recorded
+     *
+     * @return long number of latencies recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Getter for the sum of every latency recorded
+     *
+     * @return long total latency in nanoseconds
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * Getter for the largest latency recorded
+     *
+     * @return long largest latency in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates a percentile of the latencies recorded, as the upper
+     * bound of the bucket it falls in.
+     *
+     * @param p Double percentile, from 0 to 100
+     * @return long latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long percentile(double p) {
+
+        long n = getCount();
+        long rank = (long) Math.ceil(n * p / 100);
+        long seen = 0;
+
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += buckets.get(b);
+
+            if (seen >= rank && seen > 0) {
+                return Math.min(b < 62 ? 2L << b : Long.MAX_VALUE, getMax());
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Takes a snapshot of the histogram, as shown over JMX.
+     *
+     * @return LatencySnapshot of the latencies recorded so far
+     */
+    public LatencySnapshot snapshot() {
+
+        long n = getCount();
+
+        return new LatencySnapshot(n, n > 0 ? getTotal() / 1000.0 / n : 0, percentile(50) / 1000.0,
+                percentile(99) / 1000.0, getMax() / 1000.0);
+    }
+}
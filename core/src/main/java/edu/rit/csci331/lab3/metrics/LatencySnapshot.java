@@ -0,0 +1,86 @@
+package edu.rit.csci331.lab3.metrics;
+
+/**
+ * Summary of a LatencyHistogram at one point in time, in
+ * microseconds. Its getters are shown as the items of a
+ * composite attribute of the MetricsMXBean.
+ */
+public class LatencySnapshot {
+
+    /** Number of latencies recorded */
+    private final long count;
+
+    /** Mean latency in microseconds */
+    private final double meanMicros;
+
+    /** Median latency in microseconds */
+    private final double p50Micros;
+
+    /** 99th percentile latency in microseconds */
+    private final double p99Micros;
+
+    /** Largest latency in microseconds */
+    private final double maxMicros;
+
+    /**
+     * Constructor for LatencySnapshot class
+     *
+     * @param count long number of latencies recorded
+     * @param meanMicros Double mean latency in microseconds
+     * @param p50Micros Double median latency in microseconds
+     * @param p99Micros Double 99th percentile latency in microseconds
+     * @param maxMicros Double largest latency in microseconds
+     */
+    public LatencySnapshot(long count, double meanMicros, double p50Micros, double p99Micros, double maxMicros) {
+        this.count = count;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * Getter for long count
+     *
+     * @return long count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Getter for double meanMicros
+     *
+     * @return double meanMicros
+     */
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Getter for double p50Micros
+     *
+     * @return double p50Micros
+     */
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Getter for double p99Micros
+     *
+     * @return double p99Micros
+     */
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Getter for double maxMicros
+     *
+     * @return double maxMicros
+     */
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+}
@@ -0,0 +1,316 @@
+package edu.rit.csci331.lab3.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Instrumentation of the hot paths of prediction and training.
+ * The pipeline records how long each stage takes per block of
+ * sentences, along with the number of sentences and bytes
+ * handled, and training records each split search, the depth
+ * of the tree and every boosting round.
+ *
+ * Metrics are only collected if the "lab3.metrics" system
+ * property is "true" when this class is loaded. ENABLED is a
+ * constant, so when it is false the JIT compiler removes every
+ * check of it along with the timing it guards. When enabled,
+ * the metrics are exported through the MetricsMXBean and as
+ * flight recorder events, and can be printed to stderr.
+ */
+public class Metrics implements MetricsMXBean {
+
+    /** System property that enables the metrics */
+    public static final String PROPERTY = "lab3.metrics";
+
+    /** Boolean indicating if metrics are collected */
+    public static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+    /** Name the MetricsMXBean is registered under */
+    public static final String OBJECT_NAME = "edu.rit.csci331.lab3:type=Metrics";
+
+    /** Stages of the prediction and training pipelines */
+    public enum Stage { READ, TOKENIZE, FEATURIZE, SCORE }
+
+    /** Latencies of each stage, indexed by Stage.ordinal() */
+    private static final LatencyHistogram[] STAGES = new LatencyHistogram[Stage.values().length];
+
+    /** Latencies of finding the best question at each tree node */
+    private static final LatencyHistogram SPLIT_SEARCH = new LatencyHistogram();
+
+    /** Number of sentences featurized */
+    private static final LongAdder SENTENCES = new LongAdder();
+
+    /** Number of bytes of input read */
+    private static final LongAdder BYTES_READ = new LongAdder();
+
+    /** Deepest level reached while learning a tree */
+    private static final LongAccumulator MAX_DEPTH = new LongAccumulator(Math::max, 0);
+
+    /** Question, error and weight of every boosting round, in order */
+    private static final List<Object[]> ROUNDS = new ArrayList<>();
+
+    /** Time the metrics started being collected, from System.nanoTime() */
+    private static final long STARTED = System.nanoTime();
+
+    static {
+        for (int i = 0; i < STAGES.length; i++) {
+            STAGES[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Finds the start time of something to be timed.
+     *
+     * @return long System.nanoTime() if metrics are enabled, otherwise 0
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records one run of a pipeline stage. Callers should only call
+     * this if ENABLED is true.
+     *
+     * @param stage Stage that was run
+     * @param start long start time from start()
+     * @param sentences Integer number of sentences featurized, or 0
+     * @param bytes long number of bytes of input read, or 0
+     */
+    public static void stage(Stage stage, long start, int sentences, long bytes) {
+
+        long latency = System.nanoTime() - start;
+
+        STAGES[stage.ordinal()].record(latency);
+        SENTENCES.add(sentences);
+        BYTES_READ.add(bytes);
+
+        StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.stage = stage.name();
+            event.latency = latency;
+            event.sentences = sentences;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the search for the best question at one tree node.
+     * Callers should only call this if ENABLED is true.
+     *
+     * @param start long start time from start()
+     * @param depth Integer depth of the node, with the root at 0
+     * @param examples Integer number of examples at the node
+     */
+    public static void splitSearch(long start, int depth, int examples) {
+
+        long latency = System.nanoTime() - start;
+
+        SPLIT_SEARCH.record(latency);
+        MAX_DEPTH.accumulate(depth);
+
+        SplitSearchEvent event = new SplitSearchEvent();
+        if (event.shouldCommit()) {
+            event.latency = latency;
+            event.depth = depth;
+            event.examples = examples;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the stump chosen by one round of AdaBoost. Callers
+     * should only call this if ENABLED is true.
+     *
+     * @param round Integer number of the round, starting at 0
+     * @param question String question asked by the stump
+     * @param error Double weighted error of the stump
+     * @param adaHypWeight Float hypothesis weight of the stump
+     */
+    public static void boostingRound(int round, String question, double error, float adaHypWeight) {
+
+        synchronized (ROUNDS) {
+            ROUNDS.add(new Object[] {question, error, adaHypWeight});
+        }
+
+        BoostingRoundEvent event = new BoostingRoundEvent();
+        if (event.shouldCommit()) {
+            event.round = round;
+            event.question = question;
+            event.error = error;
+            event.adaHypWeight = adaHypWeight;
+            event.commit();
+        }
+    }
+
+    /**
+     * Registers the MetricsMXBean with the platform MBean server, and
+     * if an interval is given, starts printing statsLine() to stderr
+     * on a daemon thread every interval.
+     *
+     * @param intervalSeconds long seconds between stats lines, or 0 for none
+     */
+    public static void export(long intervalSeconds) {
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (intervalSeconds > 0) {
+            ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics");
+                t.setDaemon(true);
+                return t;
+            });
+
+            reporter.scheduleAtFixedRate(() -> System.err.println(statsLine()),
+                    intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Builds a one line summary of the pipeline metrics, such as:
+     * "metrics: 2.0 s, 1750 sentences (875/s), 166917 bytes | read p50 ..."
+     *
+     * @return String summary of the pipeline metrics
+     */
+    public static String statsLine() {
+
+        double seconds = (System.nanoTime() - STARTED) / 1e9;
+        StringBuilder line = new StringBuilder(String.format(Locale.ROOT,
+                "metrics: %.1f s, %d sentences (%.0f/s), %d bytes",
+                seconds, SENTENCES.sum(), SENTENCES.sum() / seconds, BYTES_READ.sum()));
+
+        for (Stage stage : Stage.values()) {
+            appendLatency(line, stage.name().toLowerCase(Locale.ROOT), STAGES[stage.ordinal()]);
+        }
+
+        return line.toString();
+    }
+
+    /**
+     * Prints every metric to a stream: the stats line, then the
+     * training metrics if a model was learned.
+     *
+     * @param out PrintStream to print to, such as System.err
+     */
+    public static void report(PrintStream out) {
+
+        out.println(statsLine());
+
+        if (SPLIT_SEARCH.getCount() > 0) {
+            StringBuilder line = new StringBuilder("metrics: max depth " + MAX_DEPTH.get());
+            appendLatency(line, "split search", SPLIT_SEARCH);
+            out.println(line);
+        }
+
+        synchronized (ROUNDS) {
+            for (int round = 0; round < ROUNDS.size(); round++) {
+                Object[] stump = ROUNDS.get(round);
+                out.println(String.format(Locale.ROOT, "metrics: round %d %s error %.6f adaHypWeight %.6f",
+                        round, stump[0], (double) stump[1], (float) stump[2]));
+            }
+        }
+    }
+
+    /**
+     * Helper function used to add the latencies of a stage to a summary line.
+     *
+     * @param line StringBuilder summary line
+     * @param name String name of the stage
+     * @param histogram LatencyHistogram of the stage
+     */
+    private static void appendLatency(StringBuilder line, String name, LatencyHistogram histogram) {
+
+        line.append(String.format(Locale.ROOT, " | %s n=%d p50=%.3f ms p99=%.3f ms max=%.3f ms",
+                name, histogram.getCount(), histogram.percentile(50) / 1e6,
+                histogram.percentile(99) / 1e6, histogram.getMax() / 1e6));
+    }
+
+    @Override
+    public long getSentences() {
+        return SENTENCES.sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return BYTES_READ.sum();
+    }
+
+    @Override
+    public double getSentencesPerSecond() {
+        return SENTENCES.sum() / ((System.nanoTime() - STARTED) / 1e9);
+    }
+
+    @Override
+    public LatencySnapshot getRead() {
+        return STAGES[Stage.READ.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getTokenize() {
+        return STAGES[Stage.TOKENIZE.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getFeaturize() {
+        return STAGES[Stage.FEATURIZE.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getScore() {
+        return STAGES[Stage.SCORE.ordinal()].snapshot();
+    }
+
+    @Override
+    public LatencySnapshot getSplitSearch() {
+        return SPLIT_SEARCH.snapshot();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return MAX_DEPTH.get();
+    }
+
+    @Override
+    public String[] getBoostingQuestions() {
+
+        synchronized (ROUNDS) {
+            return ROUNDS.stream().map(stump -> (String) stump[0]).toArray(String[]::new);
+        }
+    }
+
+    @Override
+    public double[] getBoostingErrors() {
+
+        synchronized (ROUNDS) {
+            return ROUNDS.stream().mapToDouble(stump -> (double) stump[1]).toArray();
+        }
+    }
+
+    @Override
+    public float[] getBoostingWeights() {
+
+        synchronized (ROUNDS) {
+            float[] weights = new float[ROUNDS.size()];
+
+            for (int round = 0; round < weights.length; round++) {
+                weights[round] = (float) ROUNDS.get(round)[2];
+            }
+
+            return weights;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package edu.rit.csci331.lab3.metrics;
+
+/**
+ * Management interface the metrics are exported through over
+ * JMX, registered as "edu.rit.csci331.lab3:type=Metrics".
+ */
+public interface MetricsMXBean {
+
+    /**
+     * Getter for the number of sentences featurized
+     *
+     * @return long number of sentences featurized
+     */
+    long getSentences();
+
+    /**
+     * Getter for the number of bytes of input read, counting
+     * characters for input read through a Reader
+     *
+     * @return long number of bytes read
+     */
+    long getBytesRead();
+
+    /**
+     * Getter for the mean number of sentences featurized per second
+     * since the metrics were enabled
+     *
+     * @return double sentences per second
+     */
+    double getSentencesPerSecond();
+
+    /**
+     * Getter for the latencies of reading blocks of input
+     *
+     * @return LatencySnapshot of the read stage
+     */
+    LatencySnapshot getRead();
+
+    /**
+     * Getter for the latencies of splitting blocks into whole lines
+     *
+     * @return LatencySnapshot of the tokenize stage
+     */
+    LatencySnapshot getTokenize();
+
+    /**
+     * Getter for the latencies of answering the questions for a block
+     *
+     * @return LatencySnapshot of the featurize stage
+     */
+    LatencySnapshot getFeaturize();
+
+    /**
+     * Getter for the latencies of classifying a chunk of rows
+     *
+     * @return LatencySnapshot of the score stage
+     */
+    LatencySnapshot getScore();
+
+    /**
+     * Getter for the latencies of finding the best question at a tree node
+     *
+     * @return LatencySnapshot of the split search
+     */
+    LatencySnapshot getSplitSearch();
+
+    /**
+     * Getter for the deepest level reached while learning a Decision Tree
+     *
+     * @return long deepest recursion depth, with the root at 0
+     */
+    long getMaxDepth();
+
+    /**
+     * Getter for the question asked by the stump of each boosting round
+     *
+     * @return String[] question of each round, in order
+     */
+    String[] getBoostingQuestions();
+
+    /**
+     * Getter for the weighted error of the stump of each boosting round
+     *
+     * @return double[] error of each round, in order
+     */
+    double[] getBoostingErrors();
+
+    /**
+     * Getter for the adaHypWeight given to the stump of each boosting round
+     *
+     * @return float[] hypothesis weight of each round, in order
+     */
+    float[] getBoostingWeights();
+}
@@ -0,0 +1,31 @@
+package edu.rit.csci331.lab3.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for finding the best question at
+ * one node of a Decision Tree.
+ */
+@Name("edu.rit.csci331.lab3.SplitSearch")
+@Label("Split Search")
+@Category("Lab 3")
+@Description("Counting the classes of a tree node's examples for every remaining question")
+class SplitSearchEvent extends jdk.jfr.Event {
+
+    /** Time the search took */
+    @Label("Latency")
+    @Timespan
+    long latency;
+
+    /** Depth of the node, with the root at 0 */
+    @Label("Depth")
+    int depth;
+
+    /** Number of examples at the node */
+    @Label("Examples")
+    int examples;
+}
@@ -0,0 +1,37 @@
+package edu.rit.csci331.lab3.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event for one run of a pipeline stage,
+ * such as featurizing one block of input.
+ */
+@Name("edu.rit.csci331.lab3.Stage")
+@Label("Pipeline Stage")
+@Category("Lab 3")
+@Description("Reading, tokenizing, featurizing or scoring one block of sentences")
+class StageEvent extends jdk.jfr.Event {
+
+    /** Name of the stage */
+    @Label("Stage")
+    String stage;
+
+    /** Time the stage took */
+    @Label("Latency")
+    @Timespan
+    long latency;
+
+    /** Number of sentences handled */
+    @Label("Sentences")
+    int sentences;
+
+    /** Number of bytes of input handled */
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
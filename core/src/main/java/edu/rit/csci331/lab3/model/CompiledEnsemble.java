@@ -0,0 +1,323 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+
+import java.util.Arrays;
+
+/**
+ * AdaBoost model compiled into parallel primitive arrays. Stump
+ * s asks question feature[s] and adds weight[s] times sign
+ * trueSign[s] or falseSign[s] to the example's score, depending
+ * on its answer. A score greater than or equal to 0 classifies
+ * the example as English (en), otherwise Dutch (nl), the same
+ * as walking the linked stumps of the Node model.
+ * Batches are scored stump by stump over every row, so each
+ * pass is a branch-free loop over contiguous arrays that the
+ * JIT compiler can vectorize. A single row is scored stump by
+ * stump instead, stopping as soon as the stumps left cannot
+ * change the sign of its score.
+ */
+public class CompiledEnsemble implements CompiledModel {
+
+    /** Index of the question asked by each stump */
+    private final int[] feature;
+
+    /** Hypothesis weight of each stump */
+    private final float[] weight;
+
+    /** Sign (+1 for en, -1 for nl) added by each stump for a True answer */
+    private final int[] trueSign;
+
+    /** Sign (+1 for en, -1 for nl) added by each stump for a False answer */
+    private final int[] falseSign;
+
+    /** Total weight of stumps s and after at s, and 0 at the end */
+    private final float[] remaining;
+
+    /** Allowance for rounding when deciding a score's sign before it is complete */
+    private final float margin;
+
+    /** Lowest and highest possible score while every answer is unknown */
+    private final double lowest, highest;
+
+    /** Amount the lowest and highest possible score change by once question q answers True */
+    private final double[] raiseLow, lowerHigh;
+
+    /**
+     * Constructor for CompiledEnsemble class
+     *
+     * @param feature int[] question index of each stump
+     * @param weight float[] hypothesis weight of each stump
+     * @param trueSign int[] sign added by each stump for a True answer
+     * @param falseSign int[] sign added by each stump for a False answer
+     */
+    public CompiledEnsemble(int[] feature, float[] weight, int[] trueSign, int[] falseSign) {
+        this.feature = feature;
+        this.weight = weight;
+        this.trueSign = trueSign;
+        this.falseSign = falseSign;
+        this.remaining = new float[feature.length + 1];
+
+        for (int s = feature.length - 1; s >= 0; s--) {
+            remaining[s] = remaining[s + 1] + Math.abs(weight[s]);
+        }
+
+        this.margin = remaining[0] * feature.length * 1e-6f;
+
+        int questions = Arrays.stream(feature).max().orElse(-1) + 1;
+        this.raiseLow = new double[questions];
+        this.lowerHigh = new double[questions];
+        double low = 0.0;
+        double high = 0.0;
+
+        for (int s = 0; s < feature.length; s++) {
+            double ifTrue = weight[s] * trueSign[s];
+            double ifFalse = weight[s] * falseSign[s];
+
+            low += Math.min(ifTrue, ifFalse);
+            high += Math.max(ifTrue, ifFalse);
+            raiseLow[feature[s]] += ifTrue - Math.min(ifTrue, ifFalse);
+            lowerHigh[feature[s]] += ifTrue - Math.max(ifTrue, ifFalse);
+        }
+
+        this.lowest = low;
+        this.highest = high;
+    }
+
+    /**
+     * Compiles the linked stumps of an AdaBoost model into arrays.
+     *
+     * @param model Node first stump of the AdaBoost model
+     * @param attributes String[] questions, indexed the same as the feature bits
+     * @return CompiledEnsemble equivalent to the given stumps
+     */
+    public static CompiledEnsemble compile(Node model, String[] attributes) {
+
+        int size = 0;
+        for (Node stump = model; stump != null; stump = stump.getNextStump()) {
+            size++;
+        }
+
+        int[] feature = new int[size];
+        float[] weight = new float[size];
+        int[] trueSign = new int[size];
+        int[] falseSign = new int[size];
+        int s = 0;
+
+        for (Node stump = model; stump != null; stump = stump.getNextStump()) {
+            weight[s] = stump.getAdaHypWeight();
+
+            if (stump.getResult() != null) {
+                trueSign[s] = sign(stump);
+                falseSign[s] = sign(stump);
+            }
+            else {
+                feature[s] = CompiledTree.indexOf(attributes, stump.getQuestion());
+                trueSign[s] = sign(stump.getChildNodes().get("True"));
+                falseSign[s] = sign(stump.getChildNodes().get("False"));
+            }
+            s++;
+        }
+
+        // remaining and the bounds are derived from the filled arrays
+        return new CompiledEnsemble(feature, weight, trueSign, falseSign);
+    }
+
+    /**
+     * Helper function used to find the sign a result node adds to the score.
+     *
+     * @param result Node result node of a stump
+     * @return 1 for an English (en) result, otherwise -1
+     */
+    private static int sign(Node result) {
+        return result.getResult().equals("en") ? 1 : -1;
+    }
+
+    /**
+     * Calculates the score of one packed feature row by
+     * adding up the signed weight of every stump.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return float score, greater than or equal to 0 for English (en)
+     */
+    public float score(long[] features, int offset) {
+
+        float majority = 0.0f;
+
+        for (int s = 0; s < feature.length; s++) {
+            int f = feature[s];
+            int bit = (int) (features[offset + (f >>> 6)] >>> f) & 1;
+            majority += weight[s] * (falseSign[s] + bit * (trueSign[s] - falseSign[s]));
+        }
+
+        return majority;
+    }
+
+    /**
+     * Calculates the score of every row of a chunk. The outer loop
+     * runs over stumps and the inner loop over rows, so each inner
+     * loop reads one word per row at a fixed stride and has no
+     * branches. Scores are summed in stump order, so they are the
+     * same as calling score() on each row.
+     *
+     * @param chunk FeatureChunk of rows to score
+     * @param scores float[] receiving the score of each row, at least chunk.size() long
+     */
+    public void scoreAll(FeatureChunk chunk, float[] scores) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+        int size = chunk.size();
+
+        Arrays.fill(scores, 0, size, 0.0f);
+
+        for (int s = 0; s < feature.length; s++) {
+            int word = feature[s] >>> 6;
+            int shift = feature[s] & 63;
+            float w = weight[s];
+            int base = falseSign[s];
+            int delta = trueSign[s] - falseSign[s];
+
+            for (int row = 0; row < size; row++) {
+                int bit = (int) (features[row * stride + word] >>> shift) & 1;
+                scores[row] += w * (base + bit * delta);
+            }
+        }
+    }
+
+    /**
+     * Classifies one packed feature row.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return byte label (ExampleMatrix.EN or NL) of the example
+     */
+    @Override
+    public byte classify(long[] features, int offset) {
+
+        float majority = 0.0f;
+
+        for (int s = 0; s < feature.length; s++) {
+            int f = feature[s];
+            int bit = (int) (features[offset + (f >>> 6)] >>> f) & 1;
+            majority += weight[s] * (falseSign[s] + bit * (trueSign[s] - falseSign[s]));
+
+            if (Math.abs(majority) > remaining[s + 1] + margin) {
+                break;
+            }
+        }
+
+        return majority >= 0 ? ExampleMatrix.EN : ExampleMatrix.NL;
+    }
+
+    /**
+     * Classifies every row of a chunk using scoreAll().
+     *
+     * @param chunk FeatureChunk of rows to classify
+     * @param labels byte[] receiving the label of each row, at least chunk.size() long
+     */
+    @Override
+    public void classifyAll(FeatureChunk chunk, byte[] labels) {
+
+        float[] scores = new float[chunk.size()];
+        scoreAll(chunk, scores);
+
+        for (int row = 0; row < chunk.size(); row++) {
+            labels[row] = scores[row] >= 0 ? ExampleMatrix.EN : ExampleMatrix.NL;
+        }
+    }
+
+    /**
+     * Finds every question asked by a stump.
+     *
+     * @return int[] distinct question indexes, in increasing order
+     */
+    @Override
+    public int[] usedFeatures() {
+        return Arrays.stream(feature).sorted().distinct().toArray();
+    }
+
+    /**
+     * Checks whether the sign of a sentence's score is decided. Stumps
+     * whose question answers True add their True weight, and the others
+     * could still add either weight, so the sign is decided once even
+     * the lowest possible score is at least 0, or the highest is below 0.
+     * The bounds start from every answer unknown and are moved by the
+     * precomputed amount of each True question, so the cost grows with
+     * the number of True answers rather than the number of stumps.
+     *
+     * @param answers long[] packed answers of the sentence so far
+     * @return True if no later answer could change the result
+     */
+    @Override
+    public boolean decided(long[] answers) {
+
+        double low = lowest;
+        double high = highest;
+        int words = Math.min(answers.length, (raiseLow.length + 63) >>> 6);
+
+        for (int w = 0; w < words; w++) {
+            long bits = answers[w];
+
+            while (bits != 0) {
+                int q = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+
+                if (q < raiseLow.length) {
+                    low += raiseLow[q];
+                    high += lowerHigh[q];
+                }
+            }
+        }
+
+        return low > margin || high < -margin;
+    }
+
+    /**
+     * Getter for the total weight of every stump
+     *
+     * @return float sum of the absolute hypothesis weights, the largest
+     *         absolute score an example can have
+     */
+    public float getTotalWeight() {
+        return remaining[0];
+    }
+
+    /**
+     * Getter for int[] feature
+     *
+     * @return int[] feature
+     */
+    public int[] getFeature() {
+        return feature;
+    }
+
+    /**
+     * Getter for float[] weight
+     *
+     * @return float[] weight
+     */
+    public float[] getWeight() {
+        return weight;
+    }
+
+    /**
+     * Getter for int[] trueSign
+     *
+     * @return int[] trueSign
+     */
+    public int[] getTrueSign() {
+        return trueSign;
+    }
+
+    /**
+     * Getter for int[] falseSign
+     *
+     * @return int[] falseSign
+     */
+    public int[] getFalseSign() {
+        return falseSign;
+    }
+}
@@ -0,0 +1,57 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.features.FeatureChunk;
+
+/**
+ * A trained model compiled into a form that can classify
+ * packed feature rows directly, without walking Node objects
+ * or looking up questions by name.
+ * Implementations are immutable, so one instance can be shared
+ * by every thread.
+ */
+public interface CompiledModel {
+
+    /**
+     * Classifies one packed feature row, where bit q of the
+     * row is set if the example answers True for question q.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return byte label (ExampleMatrix.EN or NL) of the example
+     */
+    byte classify(long[] features, int offset);
+
+    /**
+     * Finds every question the model asks.
+     *
+     * @return int[] distinct question indexes, in increasing order
+     */
+    int[] usedFeatures();
+
+    /**
+     * Checks whether the model's result for a sentence that is still
+     * being scanned is already decided. Questions answered True so far
+     * stay True, while those answered False so far may still change.
+     * Used by FeatureRegistry.forModel() to stop scanning early.
+     *
+     * @param answers long[] packed answers of the sentence so far
+     * @return True if no later answer could change the result
+     */
+    boolean decided(long[] answers);
+
+    /**
+     * Classifies every row of a chunk.
+     *
+     * @param chunk FeatureChunk of rows to classify
+     * @param labels byte[] receiving the label of each row, at least chunk.size() long
+     */
+    default void classifyAll(FeatureChunk chunk, byte[] labels) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+
+        for (int row = 0; row < chunk.size(); row++) {
+            labels[row] = classify(features, row * stride);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.features.FeatureChunk;
+
+import java.util.Arrays;
+
+/**
+ * Model compiled into a dense truth table. A model that asks only
+ * a few questions is a function from the answers to those questions
+ * to a label, so every possible combination of answers is classified
+ * once, ahead of time, and each row is then scored by building its
+ * key from the answer bits and loading the label stored at that key.
+ * Bit j of a key is the answer to question keys[j]. When the keys
+ * are a run of consecutive questions in one word of the row, such
+ * as Q0 to Q8, the key is a single shift and mask of that word;
+ * otherwise each answer bit is gathered into the key in turn.
+ * Only models with at most MAX_KEYS key questions are tabulated,
+ * since the table doubles in size with every question added.
+ */
+public class CompiledTable implements CompiledModel {
+
+    /** Largest number of key questions a table is built for */
+    public static final int MAX_KEYS = 20;
+
+    /** Model the table was built from */
+    private final CompiledModel model;
+
+    /** Question index of each bit of the key */
+    private final int[] keys;
+
+    /** Label of each key */
+    private final byte[] table;
+
+    /** Word of the row holding every key question, or -1 if they are gathered */
+    private final int word;
+
+    /** Index within the word of the first key question */
+    private final int shift;
+
+    /** Mask of the key bits once shifted */
+    private final long mask;
+
+    /**
+     * Constructor for CompiledTable class
+     *
+     * @param model CompiledModel the table was built from
+     * @param keys int[] question index of each bit of the key
+     * @param table byte[] label of each key, 2^keys.length long
+     */
+    public CompiledTable(CompiledModel model, int[] keys, byte[] table) {
+
+        if (keys.length > MAX_KEYS || table.length != 1 << keys.length) {
+            throw new IllegalArgumentException("Table of " + table.length + " labels does not match " + keys.length + " keys");
+        }
+
+        this.model = model;
+        this.keys = keys;
+        this.table = table;
+
+        boolean run = true;
+
+        for (int j = 1; j < keys.length; j++) {
+            if (keys[j] != keys[0] + j) {
+                run = false;
+            }
+        }
+
+        if (keys.length == 0) {
+            this.word = 0;
+            this.shift = 0;
+        }
+        else if (run && keys[0] >>> 6 == keys[keys.length - 1] >>> 6) {
+            this.word = keys[0] >>> 6;
+            this.shift = keys[0] & 63;
+        }
+        else {
+            this.word = -1;
+            this.shift = 0;
+        }
+        this.mask = (1L << keys.length) - 1;
+    }
+
+    /**
+     * Builds the truth table of a model, if it asks few enough questions.
+     * When the questions it asks span at most MAX_KEYS consecutive
+     * questions of one word, the whole span is used as the key, so
+     * the key is read with one shift, even if some of those questions
+     * do not affect the result. Otherwise only the questions it asks
+     * are used.
+     *
+     * @param model CompiledModel to tabulate
+     * @return CompiledTable equivalent to the model, or null if it asks
+     *         more than MAX_KEYS questions
+     */
+    public static CompiledTable of(CompiledModel model) {
+
+        if (model instanceof CompiledTable) {
+            return (CompiledTable) model;
+        }
+
+        int[] used = model.usedFeatures();
+        int[] keys;
+
+        if (used.length == 0) {
+            keys = used;
+        }
+        else if (used[used.length - 1] - used[0] < MAX_KEYS && used[0] >>> 6 == used[used.length - 1] >>> 6) {
+            keys = new int[used[used.length - 1] - used[0] + 1];
+
+            for (int j = 0; j < keys.length; j++) {
+                keys[j] = used[0] + j;
+            }
+        }
+        else if (used.length <= MAX_KEYS) {
+            keys = used;
+        }
+        else {
+            return null;
+        }
+
+        return new CompiledTable(model, keys, tabulate(model, keys));
+    }
+
+    /**
+     * Helper function used to classify every combination of answers to
+     * the key questions with a model.
+     *
+     * @param model CompiledModel to classify with
+     * @param keys int[] question index of each bit of the key
+     * @return byte[] label of each key, 2^keys.length long
+     */
+    private static byte[] tabulate(CompiledModel model, int[] keys) {
+
+        int words = 1;
+        for (int f : keys) {
+            words = Math.max(words, (f >>> 6) + 1);
+        }
+
+        long[] row = new long[words];
+        byte[] table = new byte[1 << keys.length];
+
+        for (int key = 0; key < table.length; key++) {
+            for (int j = 0; j < keys.length; j++) {
+                int f = keys[j];
+
+                if ((key & (1 << j)) != 0) {
+                    row[f >>> 6] |= 1L << f;
+                }
+                else {
+                    row[f >>> 6] &= ~(1L << f);
+                }
+            }
+            table[key] = model.classify(row, 0);
+        }
+
+        return table;
+    }
+
+    /**
+     * Helper function used to check that the key questions of a table
+     * are distinct and include every question a model asks, so that the
+     * key decides the model's result.
+     *
+     * @param keys int[] question index of each bit of the key
+     * @param used int[] questions asked by the model
+     * @return True if the keys are distinct and cover every used question
+     */
+    static boolean covers(int[] keys, int[] used) {
+
+        int[] sorted = keys.clone();
+        Arrays.sort(sorted);
+
+        for (int j = 1; j < sorted.length; j++) {
+            if (sorted[j] == sorted[j - 1]) {
+                return false;
+            }
+        }
+
+        for (int f : used) {
+            if (Arrays.binarySearch(sorted, f) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Helper function used to build the key of one packed feature row.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return Integer key of the row's answers
+     */
+    private int key(long[] features, int offset) {
+
+        if (word >= 0) {
+            return (int) ((features[offset + word] >>> shift) & mask);
+        }
+
+        int key = 0;
+
+        for (int j = 0; j < keys.length; j++) {
+            int f = keys[j];
+            key |= (int) ((features[offset + (f >>> 6)] >>> f) & 1) << j;
+        }
+
+        return key;
+    }
+
+    /**
+     * Classifies one packed feature row by looking up its key.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return byte label stored for the row's answers
+     */
+    @Override
+    public byte classify(long[] features, int offset) {
+        return table[key(features, offset)];
+    }
+
+    /**
+     * Classifies every row of a chunk, reading the key of each row with
+     * one shift when the keys are a run of one word.
+     *
+     * @param chunk FeatureChunk of rows to classify
+     * @param labels byte[] receiving the label of each row, at least chunk.size() long
+     */
+    @Override
+    public void classifyAll(FeatureChunk chunk, byte[] labels) {
+
+        long[] features = chunk.getFeatures();
+        int stride = chunk.getStride();
+        int size = chunk.size();
+
+        if (word < 0) {
+            for (int row = 0; row < size; row++) {
+                labels[row] = table[key(features, row * stride)];
+            }
+            return;
+        }
+
+        for (int row = 0, offset = word; row < size; row++, offset += stride) {
+            labels[row] = table[(int) ((features[offset] >>> shift) & mask)];
+        }
+    }
+
+    /**
+     * Finds every question asked by the model the table was built from.
+     *
+     * @return int[] distinct question indexes, in increasing order
+     */
+    @Override
+    public int[] usedFeatures() {
+        return model.usedFeatures();
+    }
+
+    /**
+     * Checks whether the result of the model the table was built from
+     * is already decided for a sentence that is still being scanned.
+     *
+     * @param answers long[] packed answers of the sentence so far
+     * @return True if no later answer could change the result
+     */
+    @Override
+    public boolean decided(long[] answers) {
+        return model.decided(answers);
+    }
+
+    /**
+     * Getter for the model the table was built from
+     *
+     * @return CompiledModel the table was built from
+     */
+    public CompiledModel getModel() {
+        return model;
+    }
+
+    /**
+     * Getter for int[] keys
+     *
+     * @return int[] keys
+     */
+    public int[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * Getter for byte[] table
+     *
+     * @return byte[] table
+     */
+    public byte[] getTable() {
+        return table;
+    }
+}
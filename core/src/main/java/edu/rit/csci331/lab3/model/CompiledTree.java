@@ -0,0 +1,225 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+
+import java.util.Arrays;
+
+/**
+ * Decision Tree compiled into flat primitive arrays. Each
+ * node is an index into the arrays: feature holds the index
+ * of the question it asks (or LEAF), children holds its False
+ * child at 2n and its True child at 2n + 1, and label holds
+ * the result of leaf nodes. Nodes are laid out in depth-first
+ * order, so the whole tree of a typical model fits in a few
+ * cache lines, and the evaluator picks the next node with the
+ * answer bit itself instead of branching on it.
+ */
+public class CompiledTree implements CompiledModel {
+
+    /** Feature value of a leaf node */
+    public static final int LEAF = -1;
+
+    /** Index of the question asked by each node, or LEAF */
+    private final int[] feature;
+
+    /** False child of node n at 2n, True child at 2n + 1 */
+    private final int[] children;
+
+    /** Label of each leaf node */
+    private final byte[] label;
+
+    /** Label every leaf under each node shares, or UNSETTLED if they differ */
+    private final byte[] settled;
+
+    /** Settled value of a node whose leaves have different labels */
+    private static final byte UNSETTLED = -2;
+
+    /**
+     * Constructor for CompiledTree class
+     *
+     * @param feature int[] question index of each node, or LEAF
+     * @param children int[] False and True child of each node
+     * @param label byte[] label of each leaf node
+     */
+    public CompiledTree(int[] feature, int[] children, byte[] label) {
+        this.feature = feature;
+        this.children = children;
+        this.label = label;
+        this.settled = new byte[feature.length];
+
+        // children always come after their parent in depth-first order
+        for (int n = feature.length - 1; n >= 0; n--) {
+            if (feature[n] == LEAF) {
+                settled[n] = label[n];
+            }
+            else {
+                byte f = settled[children[2 * n]];
+                settled[n] = f == settled[children[2 * n + 1]] ? f : UNSETTLED;
+            }
+        }
+    }
+
+    /**
+     * Compiles a Decision Tree model into flat arrays.
+     *
+     * @param root Node root of a Decision Tree
+     * @param attributes String[] questions, indexed the same as the feature bits
+     * @return CompiledTree equivalent to the given tree
+     */
+    public static CompiledTree compile(Node root, String[] attributes) {
+
+        int size = countNodes(root);
+        CompiledTree tree = new CompiledTree(new int[size], new int[size * 2], new byte[size]);
+
+        tree.fill(root, attributes, 0);
+
+        // settled is derived from the filled arrays, so build the final tree from them
+        return new CompiledTree(tree.feature, tree.children, tree.label);
+    }
+
+    /**
+     * Helper function used to count the nodes of a tree.
+     *
+     * @param node Node root of the tree
+     * @return Integer number of nodes
+     */
+    private static int countNodes(Node node) {
+
+        if (node.getResult() != null) {
+            return 1;
+        }
+
+        return 1 + countNodes(node.getChildNodes().get("True")) + countNodes(node.getChildNodes().get("False"));
+    }
+
+    /**
+     * Helper function used to store a node and all of its descendants,
+     * in depth-first order, starting at the given index.
+     *
+     * @param node Node to store
+     * @param attributes String[] questions, indexed the same as the feature bits
+     * @param n Integer index to store the node at
+     * @return Integer index after the last descendant stored
+     */
+    private int fill(Node node, String[] attributes, int n) {
+
+        if (node.getResult() != null) {
+            feature[n] = LEAF;
+            label[n] = ExampleMatrix.toLabel(node.getResult());
+            return n + 1;
+        }
+
+        feature[n] = indexOf(attributes, node.getQuestion());
+
+        int next = n + 1;
+        children[2 * n + 1] = next;
+        next = fill(node.getChildNodes().get("True"), attributes, next);
+        children[2 * n] = next;
+
+        return fill(node.getChildNodes().get("False"), attributes, next);
+    }
+
+    /**
+     * Helper function used to find the index of a question.
+     *
+     * @param attributes String[] questions
+     * @param question String question to find
+     * @return Integer index of the question
+     * @throws IllegalArgumentException if the question is not in attributes
+     */
+    public static int indexOf(String[] attributes, String question) {
+
+        for (int i = 0; i < attributes.length; i++) {
+            if (attributes[i].equals(question)) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Model asks unknown question " + question);
+    }
+
+    /**
+     * Walks the tree for one packed feature row. Each step is two
+     * array loads and a shift, with no allocation and no branch on
+     * the example's answer.
+     *
+     * @param features long[] containing the row
+     * @param offset Integer index of the row's first word
+     * @return byte label of the leaf reached
+     */
+    @Override
+    public byte classify(long[] features, int offset) {
+
+        int n = 0;
+        int f;
+
+        while ((f = feature[n]) >= 0) {
+            int bit = (int) (features[offset + (f >>> 6)] >>> f) & 1;
+            n = children[(n << 1) | bit];
+        }
+
+        return label[n];
+    }
+
+    /**
+     * Finds every question asked by a node of the tree.
+     *
+     * @return int[] distinct question indexes, in increasing order
+     */
+    @Override
+    public int[] usedFeatures() {
+        return Arrays.stream(feature).filter(f -> f != LEAF).sorted().distinct().toArray();
+    }
+
+    /**
+     * Checks whether the leaf of a sentence is decided. The path is
+     * followed while questions answer True, and the result is decided
+     * once every leaf below the node reached has the same label.
+     *
+     * @param answers long[] packed answers of the sentence so far
+     * @return True if no later answer could change the result
+     */
+    @Override
+    public boolean decided(long[] answers) {
+
+        int n = 0;
+
+        while (settled[n] == UNSETTLED) {
+            int f = feature[n];
+
+            if ((answers[f >>> 6] & (1L << f)) == 0) {
+                return false;
+            }
+            n = children[2 * n + 1];
+        }
+
+        return true;
+    }
+
+    /**
+     * Getter for int[] feature
+     *
+     * @return int[] feature
+     */
+    public int[] getFeature() {
+        return feature;
+    }
+
+    /**
+     * Getter for int[] children
+     *
+     * @return int[] children
+     */
+    public int[] getChildren() {
+        return children;
+    }
+
+    /**
+     * Getter for byte[] label
+     *
+     * @return byte[] label
+     */
+    public byte[] getLabel() {
+        return label;
+    }
+}
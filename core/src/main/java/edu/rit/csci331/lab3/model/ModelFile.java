@@ -0,0 +1,506 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes compiled models in a compact, versioned
+ * binary format, replacing Java serialization of Node objects.
+ * A model file is laid out as:
+ *
+ *   int magic "LNGM", short version, byte kind, byte 0,
+ *   int window, int attribute count, then for each attribute its name
+ *   as a short length and UTF-8 bytes, padded to 4 bytes,
+ *   int node/stump count n, then the packed arrays:
+ *   tree: int[n] feature, int[2n] children, byte[n] label
+ *   ensemble: int[n] feature, float[n] weight,
+ *             byte[n] trueSign, byte[n] falseSign
+ *
+ * optionally followed by the model's truth table, when it asks
+ * few enough questions to have one:
+ *
+ *   int magic "LNGT", int key count k, int[k] keys,
+ *   byte[2^k] table, int CRC-32 of every byte before it
+ *
+ * All values are big-endian. Files are memory-mapped when read
+ * and their arrays are bulk-copied straight into a CompiledTree
+ * or CompiledEnsemble, so no object graph is rebuilt. A stored
+ * truth table is loaded as a CompiledTable wrapping that model,
+ * without classifying it again; its checksum covers the model as
+ * well, so a table left over from another model is refused.
+ * The window is the number of words of each sentence the model
+ * was trained on, which changes every answer, so a model is only
+ * read for the window it was trained with. Version 1 files have
+ * no window field and are read for any window.
+ * Models saved with the old ObjectOutputStream format can still
+ * be read with readLegacy() and converted.
+ */
+public class ModelFile {
+
+    /** First four bytes of every model file, "LNGM" */
+    static final int MAGIC = 0x4C4E474D;
+
+    /** Current version of the format */
+    static final short VERSION = 2;
+
+    /** Version of the format before the window was stored */
+    static final short VERSION_NO_WINDOW = 1;
+
+    /** Kind of a Decision Tree model */
+    static final byte KIND_TREE = 1;
+
+    /** Kind of an AdaBoost model */
+    static final byte KIND_ENSEMBLE = 2;
+
+    /** First four bytes of the truth table section, "LNGT" */
+    static final int TABLE_MAGIC = 0x4C4E4754;
+
+    /** Classes allowed in a legacy serialized model */
+    private static final ObjectInputFilter LEGACY_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=4096;" + Node.class.getName() + ";java.util.HashMap;java.util.Map$Entry;java.lang.String;java.lang.Boolean;java.lang.Float;java.lang.Number;!*");
+
+    /** Name Node was serialized under when it was still in the default package */
+    private static final String LEGACY_NODE = "Node";
+
+    /**
+     * Writes a compiled model to a file, together with its truth table
+     * if it asks at most CompiledTable.MAX_KEYS questions.
+     *
+     * @param model CompiledModel to write, a CompiledTree or CompiledEnsemble,
+     *              or a CompiledTable built from one
+     * @param attributes String[] questions, indexed the same as the model's features
+     * @param window Integer number of words of each sentence the model was trained on
+     * @param file Path of the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CompiledModel model, String[] attributes, int window, Path file) throws IOException {
+
+        byte[][] names = new byte[attributes.length][];
+        int header = 16;
+
+        for (int i = 0; i < attributes.length; i++) {
+            names[i] = attributes[i].getBytes(StandardCharsets.UTF_8);
+            header += 2 + names[i].length;
+        }
+        header = (header + 3) & ~3;
+
+        CompiledTable table = CompiledTable.of(model);
+        int tableSize = table == null ? 0 : 12 + table.getKeys().length * 4 + table.getTable().length;
+
+        if (model instanceof CompiledTable) {
+            model = ((CompiledTable) model).getModel();
+        }
+
+        ByteBuffer buf;
+
+        if (model instanceof CompiledTree) {
+            CompiledTree tree = (CompiledTree) model;
+            int n = tree.getFeature().length;
+
+            buf = ByteBuffer.allocate(header + 4 + n * 13 + tableSize);
+            writeHeader(buf, KIND_TREE, window, names, header);
+            buf.putInt(n);
+            buf.asIntBuffer().put(tree.getFeature()).put(tree.getChildren());
+            buf.position(buf.position() + n * 12);
+            buf.put(tree.getLabel());
+        }
+        else if (model instanceof CompiledEnsemble) {
+            CompiledEnsemble ensemble = (CompiledEnsemble) model;
+            int n = ensemble.getFeature().length;
+
+            buf = ByteBuffer.allocate(header + 4 + n * 10 + tableSize);
+            writeHeader(buf, KIND_ENSEMBLE, window, names, header);
+            buf.putInt(n);
+            buf.asIntBuffer().put(ensemble.getFeature());
+            buf.position(buf.position() + n * 4);
+            buf.asFloatBuffer().put(ensemble.getWeight());
+            buf.position(buf.position() + n * 4);
+
+            for (int s = 0; s < n; s++) {
+                buf.put((byte) ensemble.getTrueSign()[s]);
+            }
+            for (int s = 0; s < n; s++) {
+                buf.put((byte) ensemble.getFalseSign()[s]);
+            }
+        }
+        else {
+            throw new IllegalArgumentException("Cannot save model of type " + model.getClass().getName());
+        }
+
+        if (table != null) {
+            buf.putInt(TABLE_MAGIC);
+            buf.putInt(table.getKeys().length);
+            buf.asIntBuffer().put(table.getKeys());
+            buf.position(buf.position() + table.getKeys().length * 4);
+            buf.put(table.getTable());
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), 0, buf.position());
+            buf.putInt((int) crc.getValue());
+        }
+
+        buf.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+        }
+    }
+
+    /**
+     * Helper function used to write the header and attribute table.
+     *
+     * @param buf ByteBuffer to write to
+     * @param kind byte kind of the model
+     * @param window Integer number of words of each sentence the model was trained on
+     * @param names byte[][] UTF-8 name of each attribute
+     * @param header Integer size of the header, including padding
+     */
+    private static void writeHeader(ByteBuffer buf, byte kind, int window, byte[][] names, int header) {
+
+        buf.putInt(MAGIC);
+        buf.putShort(VERSION);
+        buf.put(kind);
+        buf.put((byte) 0);
+        buf.putInt(window);
+        buf.putInt(names.length);
+
+        for (byte[] name : names) {
+            buf.putShort((short) name.length);
+            buf.put(name);
+        }
+
+        buf.position(header);
+    }
+
+    /**
+     * Checks if a file starts with the magic number of this format.
+     *
+     * @param file Path of the file to check
+     * @return True if the file is a model file, false if it is not
+     *         (such as a legacy serialized model)
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isModelFile(Path file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file.toFile()))) {
+            return in.available() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Reads the window a model file was trained with.
+     *
+     * @param file Path of the model file
+     * @return Integer number of words of each sentence the model was
+     *         trained on, or 0 if the file does not store it
+     * @throws IOException if the file cannot be read or is not a model file
+     */
+    public static int readWindow(Path file) throws IOException {
+
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file.toFile()))) {
+            if (in.available() < 12 || in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a model file");
+            }
+
+            short version = in.readShort();
+            in.readShort();
+
+            return version == VERSION_NO_WINDOW ? 0 : in.readInt();
+        }
+    }
+
+    /**
+     * Memory-maps a model file and loads its compiled model. Questions
+     * are matched by name, so the model's features are renumbered to
+     * the given attributes if they were saved in a different order.
+     *
+     * @param file Path of the model file
+     * @param attributes String[] questions, indexed the same as the feature bits
+     * @param window Integer number of words of each sentence analyzed, which
+     *               must be the one the model was trained with
+     * @return CompiledModel stored in the file, as a CompiledTable if the
+     *         file holds its truth table
+     * @throws IOException if the file cannot be read or is not a valid model
+     */
+    public static CompiledModel read(Path file, String[] attributes, int window) throws IOException {
+
+        MappedByteBuffer buf;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buf.remaining() < 16 || buf.getInt() != MAGIC) {
+            throw new IOException(file + " is not a model file");
+        }
+
+        short version = buf.getShort();
+        if (version != VERSION && version != VERSION_NO_WINDOW) {
+            throw new IOException(file + " has unsupported model version " + version);
+        }
+
+        byte kind = buf.get();
+        buf.get();
+
+        if (version != VERSION_NO_WINDOW) {
+            int trained = buf.getInt();
+
+            if (trained != window) {
+                throw new IOException(file + " was trained with window " + windowName(trained)
+                        + ", not " + windowName(window));
+            }
+        }
+
+        int count = buf.getInt();
+        if (count < 0 || count > buf.remaining() / 2) {
+            throw new IOException(file + " has an invalid attribute count " + count);
+        }
+
+        int[] remap = new int[count];
+
+        for (int i = 0; i < remap.length; i++) {
+            require(buf, 2, file);
+            byte[] name = new byte[buf.getShort() & 0xFFFF];
+            require(buf, name.length, file);
+            buf.get(name);
+
+            try {
+                remap[i] = CompiledTree.indexOf(attributes, new String(name, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+        }
+        buf.position(Math.min((buf.position() + 3) & ~3, buf.limit()));
+
+        require(buf, 4, file);
+        int n = buf.getInt();
+        if (n < 0 || (kind == KIND_TREE && n == 0)) {
+            throw new IOException(file + " has an invalid node count " + n);
+        }
+
+        require(buf, (long) n * (kind == KIND_TREE ? 13 : 10), file);
+
+        int[] feature = new int[n];
+        buf.asIntBuffer().get(feature);
+        buf.position(buf.position() + n * 4);
+
+        if (kind == KIND_TREE) {
+            int[] children = new int[n * 2];
+            byte[] label = new byte[n];
+
+            buf.asIntBuffer().get(children);
+            buf.position(buf.position() + n * 8);
+            buf.get(label);
+
+            // children must come after their parent, so every walk ends at a leaf
+            for (int i = 0; i < n; i++) {
+                if (feature[i] == CompiledTree.LEAF) {
+                    if (label[i] != ExampleMatrix.EN && label[i] != ExampleMatrix.NL) {
+                        throw new IOException(file + " has an invalid label at node " + i);
+                    }
+                    continue;
+                }
+
+                feature[i] = remapFeature(remap, feature[i], file);
+
+                for (int c = 2 * i; c <= 2 * i + 1; c++) {
+                    if (children[c] <= i || children[c] >= n) {
+                        throw new IOException(file + " has an invalid child " + children[c] + " at node " + i);
+                    }
+                }
+            }
+
+            return readTable(buf, remap, new CompiledTree(feature, children, label), file);
+        }
+        else if (kind == KIND_ENSEMBLE) {
+            float[] weight = new float[n];
+            int[] trueSign = new int[n];
+            int[] falseSign = new int[n];
+
+            buf.asFloatBuffer().get(weight);
+            buf.position(buf.position() + n * 4);
+
+            for (int s = 0; s < n; s++) {
+                trueSign[s] = sign(buf.get(), s, file);
+            }
+            for (int s = 0; s < n; s++) {
+                falseSign[s] = sign(buf.get(), s, file);
+                feature[s] = remap.length > 0 ? remapFeature(remap, feature[s], file) : 0;
+
+                if (!Float.isFinite(weight[s])) {
+                    throw new IOException(file + " has an invalid weight at stump " + s);
+                }
+            }
+
+            return readTable(buf, remap, new CompiledEnsemble(feature, weight, trueSign, falseSign), file);
+        }
+
+        throw new IOException(file + " has unknown model kind " + kind);
+    }
+
+    /**
+     * Helper function used to describe a window in error messages.
+     *
+     * @param window Integer number of words of each sentence analyzed
+     * @return String number of words, or "all" for the whole sentence
+     */
+    private static String windowName(int window) {
+        return window == FeatureRegistry.WHOLE_SENTENCE ? "all" : Integer.toString(window);
+    }
+
+    /**
+     * Helper function used to check that enough bytes are left to read.
+     *
+     * @param buf ByteBuffer being read
+     * @param bytes Long number of bytes about to be read
+     * @param file Path of the model file, for error messages
+     * @throws IOException if the file ends before those bytes
+     */
+    private static void require(ByteBuffer buf, long bytes, Path file) throws IOException {
+
+        if (bytes > buf.remaining()) {
+            throw new IOException(file + " is truncated at byte " + buf.position());
+        }
+    }
+
+    /**
+     * Helper function used to renumber a question saved in the file
+     * to its index in the current attributes.
+     *
+     * @param remap int[] current index of each question saved in the file
+     * @param feature Integer question index saved in the file
+     * @param file Path of the model file, for error messages
+     * @return Integer current index of the question
+     * @throws IOException if the file has no such question
+     */
+    private static int remapFeature(int[] remap, int feature, Path file) throws IOException {
+
+        if (feature < 0 || feature >= remap.length) {
+            throw new IOException(file + " asks unknown question index " + feature);
+        }
+
+        return remap[feature];
+    }
+
+    /**
+     * Helper function used to check the sign of a stump.
+     *
+     * @param sign byte sign read from the file
+     * @param s Integer index of the stump, for error messages
+     * @param file Path of the model file, for error messages
+     * @return Integer sign, -1, 0 or 1
+     * @throws IOException if the sign is not -1, 0 or 1
+     */
+    private static int sign(byte sign, int s, Path file) throws IOException {
+
+        if (sign < -1 || sign > 1) {
+            throw new IOException(file + " has an invalid sign " + sign + " at stump " + s);
+        }
+
+        return sign;
+    }
+
+    /**
+     * Helper function used to read the truth table section that may
+     * follow a model, renumbering its keys the same as the model. The
+     * section is checked for its structure only: it must fill the rest
+     * of the file exactly, its keys must be distinct and cover every
+     * question the model asks, and each label must be en or nl. The
+     * labels themselves are trusted, so loading never reclassifies them,
+     * once the checksum of the whole file up to the table's end matches.
+     *
+     * @param buf ByteBuffer positioned after the model's arrays
+     * @param remap int[] current index of each question saved in the file
+     * @param model CompiledModel read from the file
+     * @param file Path of the model file, for error messages
+     * @return CompiledTable of the model if the file holds one, otherwise the model
+     * @throws IOException if the truth table is not valid
+     */
+    private static CompiledModel readTable(ByteBuffer buf, int[] remap, CompiledModel model, Path file) throws IOException {
+
+        if (buf.remaining() < 8 || buf.getInt() != TABLE_MAGIC) {
+            return model;
+        }
+
+        int k = buf.getInt();
+        if (k < 0 || k > CompiledTable.MAX_KEYS || buf.remaining() != k * 4 + (1 << k) + 4) {
+            throw new IOException(file + " has an invalid truth table");
+        }
+
+        int[] keys = new int[k];
+        byte[] table = new byte[1 << k];
+
+        buf.asIntBuffer().get(keys);
+        buf.position(buf.position() + k * 4);
+        buf.get(table);
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().flip());
+
+        if (buf.getInt() != (int) crc.getValue()) {
+            throw new IOException(file + " has a truth table whose checksum does not match");
+        }
+
+        for (int j = 0; j < k; j++) {
+            keys[j] = remap.length > 0 ? remapFeature(remap, keys[j], file) : 0;
+        }
+
+        if (!CompiledTable.covers(keys, model.usedFeatures())) {
+            throw new IOException(file + " has a truth table that does not match its model");
+        }
+
+        for (byte label : table) {
+            if (label != ExampleMatrix.EN && label != ExampleMatrix.NL) {
+                throw new IOException(file + " has an invalid label in its truth table");
+            }
+        }
+
+        return new CompiledTable(model, keys, table);
+    }
+
+    /**
+     * Reads a model saved with the old ObjectOutputStream format. Only
+     * the classes a Node model is made of are allowed to be deserialized.
+     * Those models were saved before Node was moved into a package, so
+     * its old default package name is resolved to the current class.
+     *
+     * @param file Path of the legacy model file
+     * @return Node model stored in the file
+     * @throws IOException if the file cannot be read or contains other classes
+     */
+    public static Node readLegacy(Path file) throws IOException {
+
+        try (InputStream fileIn = new FileInputStream(file.toFile());
+             ObjectInputStream in = new ObjectInputStream(fileIn) {
+                 @Override
+                 protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                     return desc.getName().equals(LEGACY_NODE) ? Node.class : super.resolveClass(desc);
+                 }
+             }) {
+
+            in.setObjectInputFilter(LEGACY_FILTER);
+            return (Node) in.readObject();
+
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(file + " is not a legacy model", e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package edu.rit.csci331.lab3.model;
+
+import java.io.Serializable;
+import java.util.HashMap;
+
+/**
+ * Class used to represent and store the generated models
+ * for either Decision Tree or AdaBoost Learning.
+ */
+public class Node implements Serializable {
+
+    /** Serialization version, fixed so legacy model files stay readable */
+    private static final long serialVersionUID = -4412479954057394563L;
+
+    /** String question of this node */
+    String question;
+
+    /** Child nodes, or the next questions asked/
+     *  results found, based on the answers of
+     *  this node's question */
+    HashMap<String, Node> childNodes = new HashMap<>();
+
+    /** String result of this node, if it is a result node */
+    String result;
+
+    /** Boolean value indicating if this model represents
+     *  a Decision Tree or AdaBoost model. False by default,
+     *  therefore indicating a Decision Tree. */
+    Boolean ada = false;
+
+    /** If this is an AdaBoost model, this field points
+     *  to the next stump to test */
+    Node nextStump = null;
+
+    /** If this is an AdaBoost model, this field indicates
+     *  the hypothesis weight of this stump */
+    Float adaHypWeight;
+
+    /**
+     * Constructor for Node class
+     *
+     * @param question String question being asked by this node. Null if result node.
+     * @param result String result stored in this node. Null if question node.
+     */
+    public Node(String question, String result) {
+        this.question = question;
+        this.result = result;
+    }
+
+    /**
+     * Getter for String question
+     *
+     * @return String question
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Getter for HashMap<String,Node> childNodes
+     *
+     * @return HashMap<String,Node> childNodes
+     */
+    public HashMap<String,Node> getChildNodes() {
+        return childNodes;
+    }
+
+    /**
+     * Getter for String result
+     *
+     * @return String result
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Getter for boolean ada
+     *
+     * @return boolean ada
+     */
+    public Boolean getAda() {
+        return ada;
+    }
+
+    /**
+     * Getter for Node nextStump
+     *
+     * @return Node nextStump
+     */
+    public Node getNextStump() {
+        return nextStump;
+    }
+
+    /**
+     * Getter for float adaHypWeight
+     *
+     * @return float adaHypWeight
+     */
+    public Float getAdaHypWeight() {
+        return adaHypWeight;
+    }
+
+    /**
+     * Setter for boolean ada
+     *
+     * @param ada Boolean ada to set
+     */
+    public void setAda(Boolean ada) {
+        this.ada = ada;
+    }
+
+    /**
+     * Getter for Node nextStump
+     *
+     * @param nextStump Bode nextStump to set
+     */
+    public void setNextStump(Node nextStump) {
+        this.nextStump = nextStump;
+    }
+
+    /**
+     * Setter for float adaHypWeight
+     *
+     * @param adaHypWeight float adaHypWeight to set
+     */
+    public void setAdaHypWeight(Float adaHypWeight) {
+        this.adaHypWeight = adaHypWeight;
+    }
+
+}
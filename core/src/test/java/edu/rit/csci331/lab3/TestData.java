@@ -0,0 +1,122 @@
+package edu.rit.csci331.lab3;
+
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureChunk;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.features.SpillFile;
+import edu.rit.csci331.lab3.features.StreamingExtractor;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Loads the example files shipped with the lab for the tests. The
+ * directory holding train.dat and test.dat is given by the lab3.data
+ * system property, set by the build, and defaults to ../src.
+ */
+public class TestData {
+
+    /**
+     * Finds one of the lab's example files.
+     *
+     * @param name String file name, such as train.dat
+     * @return Path of the file
+     */
+    public static Path file(String name) {
+        return Path.of(System.getProperty("lab3.data", "../src"), name);
+    }
+
+    /**
+     * Reads every line of an example file.
+     *
+     * @param name String file name, such as train.dat
+     * @return List of String lines of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static List<String> lines(String name) throws IOException {
+        return Files.readAllLines(file(name), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams a file through a StreamingExtractor answering the default
+     * questions, the same way the lab3 program does.
+     *
+     * @param file Path of the file containing one example per line
+     * @param training Boolean indicating if each line starts with a label
+     * @param sink Consumer<FeatureChunk> receiving each chunk of rows
+     * @throws IOException if the file cannot be read
+     */
+    public static void extract(Path file, boolean training, Consumer<FeatureChunk> sink) throws IOException {
+
+        try (StreamingExtractor extractor = new StreamingExtractor(FeatureRegistry.defaults(), training, 2);
+             Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            extractor.extract(in, sink);
+        }
+    }
+
+    /**
+     * Reads every example of a file into an ExampleMatrix with weights of 1/N.
+     *
+     * @param file Path of the file containing one labelled example per line
+     * @return ExampleMatrix of the file's examples
+     * @throws IOException if the file cannot be read
+     */
+    public static ExampleMatrix matrix(Path file) throws IOException {
+
+        ExampleMatrix examples = new ExampleMatrix(List.of(FeatureRegistry.defaults().getNames()), 1024);
+
+        extract(file, true, examples::addExamples);
+        examples.resetWeights();
+
+        return examples;
+    }
+
+    /**
+     * Spills every example of a file to a SpillFile in a directory.
+     * The caller must close the SpillFile, deleting it.
+     *
+     * @param file Path of the file containing one labelled example per line
+     * @param directory Path of the directory to create the SpillFile in
+     * @return SpillFile of the file's examples
+     * @throws IOException if the file cannot be read or spilled
+     */
+    public static SpillFile spill(Path file, Path directory) throws IOException {
+
+        SpillFile examples = new SpillFile(directory, FeatureRegistry.defaults().getNames());
+
+        extract(file, true, examples::addExamples);
+        examples.finish();
+
+        return examples;
+    }
+
+    /**
+     * Writes every line of an example file to consecutive parts, so they
+     * can be used as the shards of one training set.
+     *
+     * @param name String file name, such as train.dat
+     * @param parts Integer number of parts
+     * @param directory Path of the directory to write the parts in
+     * @return List of Path parts, in order
+     * @throws IOException if a file cannot be read or written
+     */
+    public static List<Path> split(String name, int parts, Path directory) throws IOException {
+
+        List<String> lines = lines(name);
+        List<Path> files = new ArrayList<>();
+
+        for (int p = 0; p < parts; p++) {
+            Path part = directory.resolve(name + "." + p);
+            Files.write(part, lines.subList(lines.size() * p / parts, lines.size() * (p + 1) / parts), StandardCharsets.UTF_8);
+            files.add(part);
+        }
+
+        return files;
+    }
+}
@@ -0,0 +1,130 @@
+package edu.rit.csci331.lab3.features;
+
+import edu.rit.csci331.lab3.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that the default questions Q0 to Q8 are answered exactly as the
+ * original lab3 program answered them, by comparing every line of the
+ * lab's example files against a copy of its answerQuestions function.
+ */
+public class SentenceFeaturizerTest {
+
+    /** Names of the default questions, in column order */
+    private static final String[] NAMES = FeatureRegistry.defaults().getNames();
+
+    @Test
+    public void trainingAnswersMatchBaseline() throws IOException {
+        assertMatchesBaseline("train.dat", true);
+    }
+
+    @Test
+    public void predictionAnswersMatchBaseline() throws IOException {
+        assertMatchesBaseline("test.dat", false);
+    }
+
+    /**
+     * Helper function used to featurize a file and compare the label
+     * and every answer of each line with the original program's.
+     *
+     * @param name String file name of the examples
+     * @param training Boolean indicating if each line starts with a label
+     * @throws IOException if the file cannot be read
+     */
+    private static void assertMatchesBaseline(String name, boolean training) throws IOException {
+
+        List<String> lines = TestData.lines(name);
+        List<boolean[]> answers = new ArrayList<>();
+        List<Byte> labels = new ArrayList<>();
+
+        TestData.extract(TestData.file(name), training, chunk -> {
+            for (int row = 0; row < chunk.size(); row++) {
+                boolean[] rowAnswers = new boolean[NAMES.length];
+
+                for (int q = 0; q < NAMES.length; q++) {
+                    rowAnswers[q] = chunk.answer(q, row);
+                }
+                answers.add(rowAnswers);
+                labels.add(chunk.getLabel(row));
+            }
+        });
+
+        assertEquals(lines.size(), answers.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+            HashMap<String, String> expected = baseline(lines.get(i), training);
+            boolean[] expectedAnswers = new boolean[NAMES.length];
+
+            for (int q = 0; q < NAMES.length; q++) {
+                expectedAnswers[q] = expected.get(NAMES[q]).equals("True");
+            }
+
+            assertArrayEquals(expectedAnswers, answers.get(i), name + " line " + (i + 1));
+            assertEquals(training ? ExampleMatrix.toLabel(expected.get("Result")) : ExampleMatrix.UNKNOWN,
+                    labels.get(i), name + " line " + (i + 1));
+        }
+    }
+
+    /**
+     * Helper function used to answer the questions for one line the way
+     * the original answerQuestions function did, over its first 15 words.
+     *
+     * @param line String example line
+     * @param training Boolean indicating if the line starts with a label
+     * @return HashMap<String, String> answer of each question, and the Result
+     */
+    private static HashMap<String, String> baseline(String line, boolean training) {
+
+        String[] words = line.trim().split("\\s+");
+        HashMap<String, String> example = new HashMap<>();
+        int charCount = 0;
+
+        for (int i = 0; i < 15; i++) {
+            String word = words[i];
+
+            if (i == 0 && training) {
+                String[] splitClass = word.split("\\|");
+                example.put("Result", splitClass[0]);
+                word = splitClass[1];
+            }
+
+            word = word.replaceAll("[,.!?;:()]", "").toLowerCase();
+
+            charCount += word.length();
+
+            if (word.contains("aa")) {
+                example.put("Q1", "True");
+            }
+
+            if (word.contains("j") && !word.contains("ja") && !word.contains("je") && !word.contains("ji")
+                    && !word.contains("jo") && !word.contains("ju") && !word.contains("jy")) {
+                example.put("Q2", "True");
+            }
+
+            String[] articles = {"de", "het", "the", "een", "a", "an"};
+
+            for (int a = 0; a < articles.length; a++) {
+                if (word.equals(articles[a])) {
+                    example.put("Q" + (a + 3), "True");
+                }
+            }
+        }
+
+        for (int q = 1; q <= 8; q++) {
+            example.putIfAbsent("Q" + q, "False");
+        }
+
+        float avgCharCount = (float) charCount / 15;
+        example.put("Q0", avgCharCount >= 5 ? "True" : "False");
+
+        return example;
+    }
+}
@@ -0,0 +1,167 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.TestData;
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.model.CompiledEnsemble;
+import edu.rit.csci331.lab3.model.CompiledModel;
+import edu.rit.csci331.lab3.model.CompiledTree;
+import edu.rit.csci331.lab3.model.Node;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that a model learned out of core, from one spilled shard, from
+ * several, or from a shard served by a ShardWorker over a socket, is the
+ * same model learned in memory from the same examples. Models are
+ * compared by their truth tables, which classify every combination of
+ * answers to the default questions.
+ */
+public class OutOfCoreLearningTest {
+
+    /** Names of the default questions, in column order */
+    private static final String[] NAMES = FeatureRegistry.defaults().getNames();
+
+    /** Examples of train.dat, in memory */
+    private static ExampleMatrix train;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void load() throws IOException {
+        train = TestData.matrix(TestData.file("train.dat"));
+    }
+
+    @Test
+    public void singleShardMatchesInMemory() throws Exception {
+
+        try (SpillShard shard = new SpillShard(TestData.spill(TestData.file("train.dat"), directory))) {
+            assertSameModels(List.of(shard));
+        }
+    }
+
+    @Test
+    public void splitShardsMatchInMemory() throws Exception {
+
+        List<SpillShard> shards = new ArrayList<>();
+
+        try {
+            for (Path part : TestData.split("train.dat", 3, directory)) {
+                shards.add(new SpillShard(TestData.spill(part, directory)));
+            }
+
+            assertSameModels(shards);
+        } finally {
+            for (SpillShard shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    @Test
+    public void remoteShardMatchesInMemory() throws Exception {
+
+        List<Path> parts = TestData.split("train.dat", 2, directory);
+
+        try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+             SpillShard local = new SpillShard(TestData.spill(parts.get(0), directory));
+             SpillShard served = new SpillShard(TestData.spill(parts.get(1), directory))) {
+
+            CompletableFuture<Void> worker = CompletableFuture.runAsync(() -> {
+                try (Socket coordinator = server.accept()) {
+                    new ShardWorker(served).serve(coordinator.getInputStream(), coordinator.getOutputStream());
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+
+            try (RemoteShard remote = new RemoteShard("127.0.0.1", server.getLocalPort())) {
+                assertEquals(served.size(), remote.size());
+                assertArrayEquals(NAMES, remote.getAttributes());
+
+                assertSameModels(List.of(local, remote));
+            }
+
+            worker.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void emptyShardLearnsEnglish() throws Exception {
+
+        Path empty = Files.createFile(directory.resolve("empty.dat"));
+
+        try (SpillShard shard = new SpillShard(TestData.spill(empty, directory))) {
+            ArrayList<String> attributes = new ArrayList<>(List.of(NAMES));
+
+            for (Node model : List.of(OutOfCoreLearning.decisionTreeLearning(List.of(shard), attributes, Integer.MAX_VALUE),
+                    OutOfCoreLearning.adaBoost(List.of(shard), attributes, attributes.size()))) {
+                byte[] table = table(model);
+                byte[] english = new byte[table.length];
+
+                assertArrayEquals(english, table);
+            }
+        }
+    }
+
+    /**
+     * Helper function used to learn a decision tree and an AdaBoost
+     * ensemble from the shards and check that each has the same truth
+     * table as the one learned in memory, and that the ensembles pick
+     * the same question for every stump.
+     *
+     * @param shards List<? extends Shard> shards holding every example of train.dat, in order
+     */
+    private static void assertSameModels(List<? extends Shard> shards) {
+
+        ArrayList<String> attributes = new ArrayList<>(List.of(NAMES));
+
+        Node tree = Learning.decisionTreeLearning(train, attributes, Integer.MAX_VALUE);
+        Node outOfCoreTree = OutOfCoreLearning.decisionTreeLearning(shards, attributes, Integer.MAX_VALUE);
+
+        assertArrayEquals(table(tree), table(outOfCoreTree), "decision tree");
+
+        train.resetWeights();
+        Node ensemble = Learning.adaBoost(train, attributes, attributes.size());
+        Node outOfCoreEnsemble = OutOfCoreLearning.adaBoost(shards, attributes, attributes.size());
+
+        assertArrayEquals(table(ensemble), table(outOfCoreEnsemble), "AdaBoost");
+        assertArrayEquals(CompiledEnsemble.compile(ensemble, NAMES).getFeature(),
+                CompiledEnsemble.compile(outOfCoreEnsemble, NAMES).getFeature(), "AdaBoost stumps");
+    }
+
+    /**
+     * Helper function used to compile a learned model and classify every
+     * combination of answers to the default questions.
+     *
+     * @param model Node decision tree or first stump of an ensemble
+     * @return byte[] label of each combination, indexed by its answer bits
+     */
+    private static byte[] table(Node model) {
+
+        CompiledModel compiled = model.getAda() ? CompiledEnsemble.compile(model, NAMES) : CompiledTree.compile(model, NAMES);
+        byte[] table = new byte[1 << NAMES.length];
+
+        for (int key = 0; key < table.length; key++) {
+            table[key] = compiled.classify(new long[] {key}, 0);
+        }
+
+        return table;
+    }
+}
@@ -0,0 +1,235 @@
+package edu.rit.csci331.lab3.learners;
+
+import edu.rit.csci331.lab3.TestData;
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the class count tables built by SplitCounter against a plain
+ * count of every row, and that the importance computed from them is
+ * bit-identical to the original program's float importance, so the
+ * questions are picked in the same order.
+ */
+public class SplitCounterTest {
+
+    /** Examples of train.dat */
+    private static ExampleMatrix train;
+
+    /** Examples of train.dat repeated until counting forks */
+    private static ExampleMatrix large;
+
+    /** Column index of every question */
+    private static int[] attrs;
+
+    @BeforeAll
+    public static void load() throws IOException {
+
+        train = TestData.matrix(TestData.file("train.dat"));
+        attrs = new int[train.getAttributes().length];
+
+        for (int i = 0; i < attrs.length; i++) {
+            attrs[i] = i;
+        }
+
+        large = new ExampleMatrix(List.of(train.getAttributes()), 1024);
+
+        while (large.words() < SplitCounter.THRESHOLD * 4) {
+            for (int row = 0; row < train.size(); row++) {
+                int copy = large.addExample(train.getLabel(row));
+
+                for (int attr : attrs) {
+                    if (train.answer(attr, row)) {
+                        large.setTrue(attr, copy);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void countsMatchEveryRow() {
+
+        for (long[] rows : groups(train)) {
+            assertArrayEquals(naiveCounts(train, rows), SplitCounter.count(train, rows, attrs));
+        }
+    }
+
+    @Test
+    public void forkedCountsMatchSequentialCounts() {
+
+        for (long[] rows : groups(large)) {
+            int[] expected = SplitCounter.countRange(large, rows, attrs, 0, rows.length);
+
+            assertArrayEquals(expected, SplitCounter.count(large, rows, attrs));
+            assertArrayEquals(naiveCounts(large, rows), expected);
+        }
+    }
+
+    @Test
+    public void importanceIsBitIdenticalToBaseline() {
+
+        for (ExampleMatrix examples : List.of(train, large)) {
+            for (long[] rows : groups(examples)) {
+                int[] counts = SplitCounter.count(examples, rows, attrs);
+
+                for (int i = 0; i < attrs.length; i++) {
+                    assertEquals(Double.doubleToLongBits(baselineImportance(examples, rows, attrs[i])),
+                            Double.doubleToLongBits(Learning.importance(counts, i)),
+                            "question " + examples.getAttributes()[attrs[i]]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Helper function used to build the groups of examples to count:
+     * every example, no example, the examples answering each question
+     * True, and random samples of a few densities.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @return List of long[] row bitsets
+     */
+    private static List<long[]> groups(ExampleMatrix examples) {
+
+        List<long[]> groups = new ArrayList<>();
+        long[] all = examples.allRows();
+        Random random = new Random(331);
+
+        groups.add(all);
+        groups.add(new long[all.length]);
+
+        for (int attr : attrs) {
+            long[] column = examples.getColumn(attr);
+            long[] rows = new long[all.length];
+
+            for (int w = 0; w < rows.length; w++) {
+                rows[w] = all[w] & column[w];
+            }
+            groups.add(rows);
+        }
+
+        for (int density = 1; density <= 3; density++) {
+            long[] rows = new long[all.length];
+
+            for (int w = 0; w < rows.length; w++) {
+                rows[w] = all[w];
+
+                for (int d = 0; d < density; d++) {
+                    rows[w] &= random.nextLong();
+                }
+            }
+            groups.add(rows);
+        }
+
+        return groups;
+    }
+
+    /**
+     * Helper function used to build a class count table one row at a time.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows long[] row bitset of the group of examples
+     * @return int[] class count table, laid out as by SplitCounter
+     */
+    private static int[] naiveCounts(ExampleMatrix examples, long[] rows) {
+
+        int[] counts = new int[attrs.length * 2 + 2];
+
+        for (int row = 0; row < examples.size(); row++) {
+            if ((rows[row >>> 6] & (1L << row)) == 0) {
+                continue;
+            }
+
+            int label = examples.getLabel(row);
+            counts[counts.length - 2 + label]++;
+
+            for (int i = 0; i < attrs.length; i++) {
+                if (examples.answer(attrs[i], row)) {
+                    counts[2 * i + label]++;
+                }
+            }
+        }
+
+        return counts;
+    }
+
+    /**
+     * Helper function used to calculate the importance of a question the
+     * way the original program did, counting each example in floats.
+     *
+     * @param examples ExampleMatrix containing every example
+     * @param rows long[] row bitset of the group of examples
+     * @param attr Integer column index of the question
+     * @return Double importance of the question
+     */
+    private static double baselineImportance(ExampleMatrix examples, long[] rows, int attr) {
+
+        float aCount = 0;
+        float bCount = 0;
+        float aTrueCount = 0;
+        float aFalseCount = 0;
+        float bTrueCount = 0;
+        float bFalseCount = 0;
+
+        for (int row = 0; row < examples.size(); row++) {
+            if ((rows[row >>> 6] & (1L << row)) == 0) {
+                continue;
+            }
+
+            if (examples.getLabel(row) == ExampleMatrix.EN) {
+                aCount++;
+
+                if (examples.answer(attr, row)) {
+                    aTrueCount++;
+                }
+                else {
+                    aFalseCount++;
+                }
+            }
+            else if (examples.getLabel(row) == ExampleMatrix.NL) {
+                bCount++;
+
+                if (examples.answer(attr, row)) {
+                    bTrueCount++;
+                }
+                else {
+                    bFalseCount++;
+                }
+            }
+        }
+
+        double remainder = ((aTrueCount + bTrueCount) / (aCount + bCount)) * booleanEntropy(aTrueCount / (aTrueCount + bTrueCount));
+        remainder += ((aFalseCount + bFalseCount) / (aCount + bCount)) * booleanEntropy(aFalseCount / (aFalseCount + bFalseCount));
+
+        return booleanEntropy(aCount / (aCount + bCount)) - remainder;
+    }
+
+    /**
+     * Helper function used to calculate the Boolean Entropy of a
+     * probability, as the original program did.
+     *
+     * @param prob Float probability for calculations
+     * @return Double Boolean entropy of prob
+     */
+    private static double booleanEntropy(float prob) {
+
+        if (prob == 0 || prob == 1 || Float.isNaN(prob)) {
+            return 0;
+        }
+
+        double e1 = prob * (Math.log(1/prob) / Math.log(2));
+
+        double e2 = (1-prob) * (Math.log(1/(1-prob)) / Math.log(2));
+
+        return e1 + e2;
+    }
+}
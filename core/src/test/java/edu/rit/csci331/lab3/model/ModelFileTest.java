@@ -0,0 +1,284 @@
+package edu.rit.csci331.lab3.model;
+
+import edu.rit.csci331.lab3.TestData;
+import edu.rit.csci331.lab3.features.ExampleMatrix;
+import edu.rit.csci331.lab3.features.FeatureRegistry;
+import edu.rit.csci331.lab3.learners.Learning;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that models survive a round trip through a model file, and that
+ * truncated or corrupted files are refused with an IOException instead
+ * of loading a different model or failing with another exception.
+ */
+public class ModelFileTest {
+
+    /** Names of the default questions, in column order */
+    private static final String[] NAMES = FeatureRegistry.defaults().getNames();
+
+    /** Window the models are trained with */
+    private static final int WINDOW = FeatureRegistry.DEFAULT_WINDOW;
+
+    /** Decision tree learned from train.dat */
+    private static CompiledModel tree;
+
+    /** AdaBoost ensemble learned from train.dat */
+    private static CompiledModel ensemble;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    public static void learn() throws IOException {
+
+        ExampleMatrix train = TestData.matrix(TestData.file("train.dat"));
+        ArrayList<String> attributes = new ArrayList<>(List.of(NAMES));
+
+        tree = CompiledTree.compile(Learning.decisionTreeLearning(train, attributes, Integer.MAX_VALUE), NAMES);
+        ensemble = CompiledEnsemble.compile(Learning.adaBoost(train, attributes, attributes.size()), NAMES);
+    }
+
+    @Test
+    public void treeRoundTrip() throws IOException {
+        assertRoundTrip(tree);
+    }
+
+    @Test
+    public void ensembleRoundTrip() throws IOException {
+        assertRoundTrip(ensemble);
+    }
+
+    @Test
+    public void legacyModelRoundTrip() throws IOException {
+
+        Path legacy = TestData.file("best.model");
+        assertFalse(ModelFile.isModelFile(legacy));
+
+        Node model = ModelFile.readLegacy(legacy);
+        assertRoundTrip(model.getAda() ? CompiledEnsemble.compile(model, NAMES) : CompiledTree.compile(model, NAMES));
+    }
+
+    @Test
+    public void questionsAreMatchedByName() throws IOException {
+
+        Path file = write(tree);
+        String[] reversed = new String[NAMES.length];
+
+        for (int i = 0; i < NAMES.length; i++) {
+            reversed[NAMES.length - 1 - i] = NAMES[i];
+        }
+
+        CompiledModel read = ModelFile.read(file, reversed, WINDOW);
+
+        for (int key = 0; key < 1 << NAMES.length; key++) {
+            long row = Long.reverse((long) key) >>> (64 - NAMES.length);
+            assertEquals(tree.classify(new long[] {key}, 0), read.classify(new long[] {row}, 0));
+        }
+    }
+
+    @Test
+    public void otherWindowIsRefused() throws IOException {
+
+        Path file = write(tree);
+
+        assertEquals(WINDOW, ModelFile.readWindow(file));
+        assertThrows(IOException.class, () -> ModelFile.read(file, NAMES, WINDOW + 1));
+    }
+
+    @Test
+    public void versionOneIsReadForAnyWindow() throws IOException {
+
+        byte[] bytes = Files.readAllBytes(write(ensemble));
+        ByteBuffer v1 = ByteBuffer.allocate(bytes.length - 4);
+
+        v1.put(bytes, 0, 4).putShort(ModelFile.VERSION_NO_WINDOW).put(bytes, 6, 2).put(bytes, 12, bytes.length - 12);
+
+        Path file = directory.resolve("v1.model");
+        Files.write(file, withChecksum(v1.array()));
+
+        assertEquals(0, ModelFile.readWindow(file));
+        assertSameModel(ensemble, ModelFile.read(file, NAMES, WINDOW + 1));
+    }
+
+    @Test
+    public void unknownQuestionIsRefused() throws IOException {
+
+        Path file = write(ensemble);
+
+        assertThrows(IOException.class, () -> ModelFile.read(file, Arrays.copyOf(NAMES, 2), WINDOW));
+    }
+
+    @Test
+    public void truncatedFilesAreRefused() throws IOException {
+
+        for (CompiledModel model : List.of(tree, ensemble)) {
+            byte[] bytes = Files.readAllBytes(write(model));
+            Path file = directory.resolve("truncated.model");
+
+            for (int length = 0; length < bytes.length; length++) {
+                Files.write(file, Arrays.copyOf(bytes, length));
+                assertRefusedOrSame(model, file);
+            }
+        }
+    }
+
+    @Test
+    public void corruptedFilesAreRefused() throws IOException {
+
+        for (CompiledModel model : List.of(tree, ensemble)) {
+            byte[] bytes = Files.readAllBytes(write(model));
+            Path file = directory.resolve("corrupted.model");
+
+            for (int position = 0; position < bytes.length; position++) {
+                for (int bit : new int[] {0x01, 0x80}) {
+                    byte[] corrupted = bytes.clone();
+                    corrupted[position] ^= bit;
+
+                    Files.write(file, corrupted);
+                    assertRefusedOrSame(model, file);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void childLoopIsRefused() throws IOException {
+
+        byte[] bytes = Files.readAllBytes(write(tree));
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        int nodes = headerEnd(buf);
+        int n = buf.getInt(nodes);
+
+        // point the root's True child back at the root, keeping the checksum valid
+        buf.putInt(nodes + 4 + n * 4, 0);
+
+        Path file = directory.resolve("loop.model");
+        Files.write(file, withChecksum(bytes));
+
+        IOException e = assertThrows(IOException.class, () -> ModelFile.read(file, NAMES, WINDOW));
+        assertTrue(e.getMessage().contains("invalid child"), e.getMessage());
+    }
+
+    /**
+     * Helper function used to write a model to a new file.
+     *
+     * @param model CompiledModel to write
+     * @return Path of the model file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(CompiledModel model) throws IOException {
+
+        Path file = Files.createTempFile(directory, "test", ".model");
+        ModelFile.write(model, NAMES, WINDOW, file);
+
+        return file;
+    }
+
+    /**
+     * Helper function used to write a model, read it back and check that
+     * it is loaded with its truth table and classifies every combination
+     * of answers the same.
+     *
+     * @param model CompiledModel to write
+     * @throws IOException if the file cannot be written or read
+     */
+    private void assertRoundTrip(CompiledModel model) throws IOException {
+
+        Path file = write(model);
+        CompiledModel read = ModelFile.read(file, NAMES, WINDOW);
+
+        assertTrue(ModelFile.isModelFile(file));
+        assertInstanceOf(CompiledTable.class, read);
+        assertInstanceOf(model.getClass(), ((CompiledTable) read).getModel());
+        assertArrayEquals(CompiledTable.of(model).getTable(), ((CompiledTable) read).getTable());
+        assertSameModel(model, read);
+        assertSameModel(model, ((CompiledTable) read).getModel());
+    }
+
+    /**
+     * Helper function used to check that reading a damaged file either
+     * fails with an IOException or still loads the same model, as when
+     * only the optional truth table was cut off.
+     *
+     * @param model CompiledModel the file was written from
+     * @param file Path of the damaged model file
+     */
+    private static void assertRefusedOrSame(CompiledModel model, Path file) {
+
+        CompiledModel read;
+
+        try {
+            read = ModelFile.read(file, NAMES, WINDOW);
+        } catch (IOException e) {
+            return;
+        }
+
+        assertSameModel(model, read);
+    }
+
+    /**
+     * Helper function used to check that two models classify every
+     * combination of answers to the default questions the same.
+     *
+     * @param expected CompiledModel written to the file
+     * @param actual CompiledModel read from the file
+     */
+    private static void assertSameModel(CompiledModel expected, CompiledModel actual) {
+
+        for (long key = 0; key < 1 << NAMES.length; key++) {
+            assertEquals(expected.classify(new long[] {key}, 0), actual.classify(new long[] {key}, 0), "key " + key);
+        }
+    }
+
+    /**
+     * Helper function used to find where the node count of a version 2
+     * model file starts, after its header and attribute names.
+     *
+     * @param buf ByteBuffer of the whole file
+     * @return Integer position of the node count
+     */
+    private static int headerEnd(ByteBuffer buf) {
+
+        int position = 16;
+
+        for (int i = buf.getInt(12); i > 0; i--) {
+            position += 2 + buf.getShort(position);
+        }
+
+        return (position + 3) & ~3;
+    }
+
+    /**
+     * Helper function used to replace the checksum that ends a model
+     * file with the checksum of its edited bytes.
+     *
+     * @param bytes byte[] whole model file, ending with its truth table
+     * @return byte[] the same bytes, with the checksum updated
+     */
+    private static byte[] withChecksum(byte[] bytes) {
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 4, (int) crc.getValue());
+
+        return bytes;
+    }
+}